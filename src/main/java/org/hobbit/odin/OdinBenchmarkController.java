@@ -4,12 +4,16 @@ import org.hobbit.core.Commands;
 import org.hobbit.core.components.AbstractBenchmarkController;
 import org.hobbit.odin.systems.virtuoso.VirtuosoSystemAdapterConstants;
 import org.hobbit.odin.util.OdinConstants;
+import org.hobbit.odin.util.SaturationCodec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map.Entry;
+import java.util.TreeMap;
 import java.util.concurrent.Semaphore;
 
 import org.apache.jena.rdf.model.NodeIterator;
@@ -42,6 +46,10 @@ public class OdinBenchmarkController extends AbstractBenchmarkController {
 
     private long timestampsMax = Long.MIN_VALUE;
     private long timestampsMin = Long.MAX_VALUE;
+    /* Map with keys feedback windows and values the sum of the rates of all data generators */
+    private TreeMap<Long, Double> saturationRates = new TreeMap<Long, Double>();
+    /* Number of data generators that reported their saturation rates */
+    private int saturationReports = 0;
     private String[] envVariablesEvaluationModule = null;
 
     public OdinBenchmarkController() {
@@ -209,13 +217,373 @@ public class OdinBenchmarkController extends AbstractBenchmarkController {
             duration = 600000l;
         }
 
+        /* Number of pre-processing threads per data generator */
+        iterator = benchmarkParamModel.listObjectsOfProperty(
+                benchmarkParamModel.getProperty("http://w3id.org/bench#hasNumberOfPreprocessingThreads"));
+        int preprocessingThreads = -1;
+        if (iterator.hasNext()) {
+            try {
+                preprocessingThreads = iterator.next().asLiteral().getInt();
+            } catch (Exception e) {
+                LOGGER.error("Exception while parsing parameter.", e);
+            }
+        }
+        if (preprocessingThreads == -1) {
+            LOGGER.error(
+                    "Couldn't get the number of pre-processing threads from the parameter model. Using the default value.");
+            preprocessingThreads = 1;
+        }
+
+        /* Number of threads of the evaluation module */
+        iterator = benchmarkParamModel.listObjectsOfProperty(
+                benchmarkParamModel.getProperty("http://w3id.org/bench#hasNumberOfEvaluationThreads"));
+        int evaluationThreads = -1;
+        if (iterator.hasNext()) {
+            try {
+                evaluationThreads = iterator.next().asLiteral().getInt();
+            } catch (Exception e) {
+                LOGGER.error("Exception while parsing parameter.", e);
+            }
+        }
+        if (evaluationThreads == -1) {
+            LOGGER.error(
+                    "Couldn't get the number of evaluation threads from the parameter model. Using the default value.");
+            evaluationThreads = 1;
+        }
+
+        /* Memory budget of serialized INSERT queries per data generator in MB */
+        iterator = benchmarkParamModel.listObjectsOfProperty(
+                benchmarkParamModel.getProperty("http://w3id.org/bench#hasInsertPayloadBudget"));
+        long insertPayloadBudget = -1;
+        if (iterator.hasNext()) {
+            try {
+                insertPayloadBudget = iterator.next().asLiteral().getLong();
+            } catch (Exception e) {
+                LOGGER.error("Exception while parsing parameter.", e);
+            }
+        }
+        if (insertPayloadBudget == -1) {
+            LOGGER.error(
+                    "Couldn't get the memory budget of serialized INSERT queries from the parameter model. Using the default value.");
+            insertPayloadBudget = 0;
+        }
+
+        /* Number of threads sending queries per data generator */
+        iterator = benchmarkParamModel.listObjectsOfProperty(
+                benchmarkParamModel.getProperty("http://w3id.org/bench#hasNumberOfDispatchThreads"));
+        int dispatchThreads = -1;
+        if (iterator.hasNext()) {
+            try {
+                dispatchThreads = iterator.next().asLiteral().getInt();
+            } catch (Exception e) {
+                LOGGER.error("Exception while parsing parameter.", e);
+            }
+        }
+        if (dispatchThreads == -1) {
+            LOGGER.error(
+                    "Couldn't get the number of dispatch threads from the parameter model. Using the default value.");
+            dispatchThreads = 0;
+        }
+
+        /* Maximum number of queries waiting to be sent per data generator */
+        iterator = benchmarkParamModel.listObjectsOfProperty(
+                benchmarkParamModel.getProperty("http://w3id.org/bench#hasDispatchQueueSize"));
+        int dispatchQueueSize = -1;
+        if (iterator.hasNext()) {
+            try {
+                dispatchQueueSize = iterator.next().asLiteral().getInt();
+            } catch (Exception e) {
+                LOGGER.error("Exception while parsing parameter.", e);
+            }
+        }
+        if (dispatchQueueSize <= 0) {
+            LOGGER.error("Couldn't get the dispatch queue size from the parameter model. Using the default value.");
+            dispatchQueueSize = 1024;
+        }
+
+        /* Maximum number of queries a dispatch thread takes at once */
+        iterator = benchmarkParamModel.listObjectsOfProperty(
+                benchmarkParamModel.getProperty("http://w3id.org/bench#hasDispatchBatchSize"));
+        int dispatchBatchSize = -1;
+        if (iterator.hasNext()) {
+            try {
+                dispatchBatchSize = iterator.next().asLiteral().getInt();
+            } catch (Exception e) {
+                LOGGER.error("Exception while parsing parameter.", e);
+            }
+        }
+        if (dispatchBatchSize <= 0) {
+            LOGGER.error("Couldn't get the dispatch batch size from the parameter model. Using the default value.");
+            dispatchBatchSize = 1;
+        }
+
+        /* Store of the reference set of each data generator */
+        iterator = benchmarkParamModel
+                .listObjectsOfProperty(benchmarkParamModel.getProperty("http://w3id.org/bench#hasReferenceStore"));
+        String referenceStore = null;
+        if (iterator.hasNext()) {
+            try {
+                referenceStore = iterator.next().asLiteral().getString();
+            } catch (Exception e) {
+                LOGGER.error("Exception while parsing parameter.", e);
+            }
+        }
+        if (referenceStore == null) {
+            LOGGER.error("Couldn't get the reference store from the parameter model. Using the default value.");
+            referenceStore = "TDB";
+        }
+
+        /* Way of computing the expected answers of each data generator */
+        iterator = benchmarkParamModel.listObjectsOfProperty(
+                benchmarkParamModel.getProperty("http://w3id.org/bench#hasExpectedAnswersMode"));
+        String expectedAnswers = null;
+        if (iterator.hasNext()) {
+            try {
+                expectedAnswers = iterator.next().asLiteral().getString();
+            } catch (Exception e) {
+                LOGGER.error("Exception while parsing parameter.", e);
+            }
+        }
+        if (expectedAnswers == null) {
+            LOGGER.error(
+                    "Couldn't get the way of computing the expected answers from the parameter model. Using the default value.");
+            expectedAnswers = "TDB";
+        }
+
+        /* Reuse of the artifacts of previous runs of each data generator */
+        iterator = benchmarkParamModel
+                .listObjectsOfProperty(benchmarkParamModel.getProperty("http://w3id.org/bench#hasArtifactCache"));
+        boolean artifactCache = false;
+        if (iterator.hasNext()) {
+            try {
+                artifactCache = iterator.next().asLiteral().getBoolean();
+            } catch (Exception e) {
+                LOGGER.error("Exception while parsing parameter.", e);
+            }
+        } else {
+            LOGGER.error("Couldn't get the artifact cache from the parameter model. Using the default value.");
+        }
+
+        /* Storage of the models of the insert queries of each data generator */
+        iterator = benchmarkParamModel
+                .listObjectsOfProperty(benchmarkParamModel.getProperty("http://w3id.org/bench#hasPersistedModels"));
+        boolean persistModels = true;
+        if (iterator.hasNext()) {
+            try {
+                persistModels = iterator.next().asLiteral().getBoolean();
+            } catch (Exception e) {
+                LOGGER.error("Exception while parsing parameter.", e);
+            }
+        } else {
+            LOGGER.error("Couldn't get the model persistence from the parameter model. Using the default value.");
+        }
+
+        /* Shape of the union of the select queries of each data generator */
+        iterator = benchmarkParamModel
+                .listObjectsOfProperty(benchmarkParamModel.getProperty("http://w3id.org/bench#hasUnionShape"));
+        String unionShape = null;
+        if (iterator.hasNext()) {
+            try {
+                unionShape = iterator.next().asLiteral().getString();
+            } catch (Exception e) {
+                LOGGER.error("Exception while parsing parameter.", e);
+            }
+        }
+        if (unionShape == null) {
+            LOGGER.error("Couldn't get the union shape from the parameter model. Using the default value.");
+            unionShape = "LEFT_DEEP";
+        }
+
+        /* Number of triples whose half is covered by the select queries */
+        iterator = benchmarkParamModel.listObjectsOfProperty(
+                benchmarkParamModel.getProperty("http://w3id.org/bench#hasSelectRequestedPatterns"));
+        int selectRequestedPatterns = -1;
+        if (iterator.hasNext()) {
+            try {
+                selectRequestedPatterns = iterator.next().asLiteral().getInt();
+            } catch (Exception e) {
+                LOGGER.error("Exception while parsing parameter.", e);
+            }
+        }
+        if (selectRequestedPatterns <= 0) {
+            LOGGER.error("Couldn't get the number of requested patterns of the select queries from the parameter model. Using the default value.");
+            selectRequestedPatterns = 4000;
+        }
+
+        /* Number of triples sampled for each select query, 0 if all are used */
+        iterator = benchmarkParamModel.listObjectsOfProperty(
+                benchmarkParamModel.getProperty("http://w3id.org/bench#hasSelectSampleSize"));
+        int selectSampleSize = -1;
+        if (iterator.hasNext()) {
+            try {
+                selectSampleSize = iterator.next().asLiteral().getInt();
+            } catch (Exception e) {
+                LOGGER.error("Exception while parsing parameter.", e);
+            }
+        }
+        if (selectSampleSize < 0) {
+            LOGGER.error("Couldn't get the sample size of the select queries from the parameter model. Using the default value.");
+            selectSampleSize = 0;
+        }
+
+        /* Maximum number of triple patterns of each select query, 0 if unlimited */
+        iterator = benchmarkParamModel.listObjectsOfProperty(
+                benchmarkParamModel.getProperty("http://w3id.org/bench#hasSelectMaxPatterns"));
+        int selectMaxPatterns = -1;
+        if (iterator.hasNext()) {
+            try {
+                selectMaxPatterns = iterator.next().asLiteral().getInt();
+            } catch (Exception e) {
+                LOGGER.error("Exception while parsing parameter.", e);
+            }
+        }
+        if (selectMaxPatterns < 0) {
+            LOGGER.error("Couldn't get the maximum number of triple patterns of the select queries from the parameter model. Using the default value.");
+            selectMaxPatterns = 0;
+        }
+
+        /* Target number of answers of each select query, 0 if unlimited */
+        iterator = benchmarkParamModel.listObjectsOfProperty(
+                benchmarkParamModel.getProperty("http://w3id.org/bench#hasSelectTargetCardinality"));
+        int selectTargetCardinality = -1;
+        if (iterator.hasNext()) {
+            try {
+                selectTargetCardinality = iterator.next().asLiteral().getInt();
+            } catch (Exception e) {
+                LOGGER.error("Exception while parsing parameter.", e);
+            }
+        }
+        if (selectTargetCardinality < 0) {
+            LOGGER.error("Couldn't get the target cardinality of the select queries from the parameter model. Using the default value.");
+            selectTargetCardinality = 0;
+        }
+
+        /* Load profile of the streams of each data generator */
+        iterator = benchmarkParamModel
+                .listObjectsOfProperty(benchmarkParamModel.getProperty("http://w3id.org/bench#hasLoadProfile"));
+        String loadProfile = null;
+        if (iterator.hasNext()) {
+            try {
+                loadProfile = iterator.next().asLiteral().getString();
+            } catch (Exception e) {
+                LOGGER.error("Exception while parsing parameter.", e);
+            }
+        }
+        if (loadProfile == null) {
+            LOGGER.error("Couldn't get the load profile from the parameter model. Using the default value.");
+            loadProfile = "EXPONENTIAL";
+        }
+
+        /* Load factor of the load profile */
+        iterator = benchmarkParamModel
+                .listObjectsOfProperty(benchmarkParamModel.getProperty("http://w3id.org/bench#hasLoadFactor"));
+        double loadFactor = -1;
+        if (iterator.hasNext()) {
+            try {
+                loadFactor = iterator.next().asLiteral().getDouble();
+            } catch (Exception e) {
+                LOGGER.error("Exception while parsing parameter.", e);
+            }
+        }
+        if (loadFactor < 1) {
+            LOGGER.error("Couldn't get the load factor from the parameter model. Using the default value.");
+            loadFactor = 2.0;
+        }
+
+        /* Load period of the load profile, in streams */
+        iterator = benchmarkParamModel
+                .listObjectsOfProperty(benchmarkParamModel.getProperty("http://w3id.org/bench#hasLoadPeriod"));
+        int loadPeriod = -1;
+        if (iterator.hasNext()) {
+            try {
+                loadPeriod = iterator.next().asLiteral().getInt();
+            } catch (Exception e) {
+                LOGGER.error("Exception while parsing parameter.", e);
+            }
+        }
+        if (loadPeriod <= 0) {
+            LOGGER.error("Couldn't get the load period from the parameter model. Using the default value.");
+            loadPeriod = 4;
+        }
+
+        /* Target acknowledgement latency of the saturation mode in ms, 0 for the select delay */
+        iterator = benchmarkParamModel.listObjectsOfProperty(
+                benchmarkParamModel.getProperty("http://w3id.org/bench#hasSaturationLatency"));
+        long saturationLatency = -1;
+        if (iterator.hasNext()) {
+            try {
+                saturationLatency = iterator.next().asLiteral().getLong();
+            } catch (Exception e) {
+                LOGGER.error("Exception while parsing parameter.", e);
+            }
+        }
+        if (saturationLatency < 0) {
+            LOGGER.error("Couldn't get the target latency of the saturation mode from the parameter model. "
+                    + "Using the default value.");
+            saturationLatency = 0l;
+        }
+
+        /* Additive increase of the speedup of the saturation mode */
+        iterator = benchmarkParamModel.listObjectsOfProperty(
+                benchmarkParamModel.getProperty("http://w3id.org/bench#hasSaturationIncrease"));
+        double saturationIncrease = -1;
+        if (iterator.hasNext()) {
+            try {
+                saturationIncrease = iterator.next().asLiteral().getDouble();
+            } catch (Exception e) {
+                LOGGER.error("Exception while parsing parameter.", e);
+            }
+        }
+        if (saturationIncrease <= 0) {
+            LOGGER.error("Couldn't get the additive increase of the saturation mode from the parameter model. "
+                    + "Using the default value.");
+            saturationIncrease = 0.25;
+        }
+
+        /* Multiplicative decrease of the speedup of the saturation mode */
+        iterator = benchmarkParamModel.listObjectsOfProperty(
+                benchmarkParamModel.getProperty("http://w3id.org/bench#hasSaturationDecrease"));
+        double saturationDecrease = -1;
+        if (iterator.hasNext()) {
+            try {
+                saturationDecrease = iterator.next().asLiteral().getDouble();
+            } catch (Exception e) {
+                LOGGER.error("Exception while parsing parameter.", e);
+            }
+        }
+        if (saturationDecrease <= 0 || saturationDecrease >= 1) {
+            LOGGER.error("Couldn't get the multiplicative decrease of the saturation mode from the parameter model. "
+                    + "Using the default value.");
+            saturationDecrease = 0.5;
+        }
+
         // data generators environmental values
         String[] envVariablesDataGenerator = new String[] { OdinConstants.GENERATOR_SEED + "=" + seed,
                 OdinConstants.GENERATOR_POPULATION + "=" + population,
                 OdinConstants.GENERATOR_DATASET + "=" + mimicking,
                 OdinConstants.GENERATOR_MIMICKING_OUTPUT + "=" + mimickingOutput,
                 OdinConstants.GENERATOR_INSERT_QUERIES_COUNT + "=" + numberOfInsertQueries,
-                OdinConstants.GENERATOR_BENCHMARK_DURATION + "=" + duration };
+                OdinConstants.GENERATOR_BENCHMARK_DURATION + "=" + duration,
+                OdinConstants.GENERATOR_PREPROCESSING_THREADS + "=" + preprocessingThreads,
+                OdinConstants.GENERATOR_INSERT_PAYLOAD_BUDGET + "=" + insertPayloadBudget,
+                OdinConstants.GENERATOR_DISPATCH_THREADS + "=" + dispatchThreads,
+                OdinConstants.GENERATOR_DISPATCH_QUEUE_SIZE + "=" + dispatchQueueSize,
+                OdinConstants.GENERATOR_DISPATCH_BATCH_SIZE + "=" + dispatchBatchSize,
+                OdinConstants.GENERATOR_REFERENCE_STORE + "=" + referenceStore,
+                OdinConstants.GENERATOR_EXPECTED_ANSWERS + "=" + expectedAnswers,
+                OdinConstants.GENERATOR_ARTIFACT_CACHE + "=" + artifactCache,
+                OdinConstants.GENERATOR_PERSIST_MODELS + "=" + persistModels,
+                OdinConstants.GENERATOR_UNION_SHAPE + "=" + unionShape,
+                OdinConstants.GENERATOR_SELECT_REQUESTED_PATTERNS + "=" + selectRequestedPatterns,
+                OdinConstants.GENERATOR_SELECT_SAMPLE_SIZE + "=" + selectSampleSize,
+                OdinConstants.GENERATOR_SELECT_MAX_PATTERNS + "=" + selectMaxPatterns,
+                OdinConstants.GENERATOR_SELECT_TARGET_CARDINALITY + "=" + selectTargetCardinality,
+                OdinConstants.GENERATOR_LOAD_PROFILE + "=" + loadProfile,
+                OdinConstants.GENERATOR_LOAD_FACTOR + "=" + loadFactor,
+                OdinConstants.GENERATOR_LOAD_PERIOD + "=" + loadPeriod,
+                OdinConstants.GENERATOR_SATURATION_LATENCY + "=" + saturationLatency,
+                OdinConstants.GENERATOR_SATURATION_INCREASE + "=" + saturationIncrease,
+                OdinConstants.GENERATOR_SATURATION_DECREASE + "=" + saturationDecrease };
 
         createDataGenerators(STRUCTURED_DATA_GENERATOR_CONTAINER_IMAGE, numberOfDataGenerators,
                 envVariablesDataGenerator);
@@ -236,11 +604,13 @@ public class OdinBenchmarkController extends AbstractBenchmarkController {
                 OdinConstants.EVALUATION_MACRO_AVERAGE_FMEASURE + "=" + "http://w3id.org/bench#macroAverageFmeasure",
                 OdinConstants.EVALUATION_MAX_TPS + "=" + "http://w3id.org/bench#maxTPS",
                 OdinConstants.EVALUATION_AVERAGE_TPS + "=" + "http://w3id.org/bench#averageTPS",
+                OdinConstants.EVALUATION_SATURATION_TPS + "=" + "http://w3id.org/bench#saturationTPS",
                 OdinConstants.EVALUATION_TASKS_EVALUATION_RECALL + "=" + "http://w3id.org/bench#tasksRecall",
                 OdinConstants.EVALUATION_TASKS_EVALUATION_PRECISION + "=" + "http://w3id.org/bench#tasksPrecision",
                 OdinConstants.EVALUATION_TASKS_EVALUATION_FMEASURE + "=" + "http://w3id.org/bench#tasksFmeasure",
                 OdinConstants.EVALUATION_TASKS_EVALUATION_TPS + "=" + "http://w3id.org/bench#tasksTPS",
-                OdinConstants.EVALUATION_TASKS_EVALUATION_DELAY + "=" + "http://w3id.org/bench#tasksAnswerDelay" };
+                OdinConstants.EVALUATION_TASKS_EVALUATION_DELAY + "=" + "http://w3id.org/bench#tasksAnswerDelay",
+                OdinConstants.EVALUATION_THREADS + "=" + evaluationThreads };
 
         // wait until you retrieve min and max timestamps from each data
         // generator
@@ -270,6 +640,15 @@ public class OdinBenchmarkController extends AbstractBenchmarkController {
                 this.timestampsMax = maxTS;
 
             minMaxTimestampMutex.release();
+        } else if (OdinConstants.SATURATION_RATES_FROM_DATAGENERATOR == command) {
+            // all data generators receive the same feedback windows, so the
+            // rates of the same window add up
+            TreeMap<Long, Double> rates = SaturationCodec.readRates(data);
+            synchronized (this) {
+                for (Entry<Long, Double> rate : rates.entrySet())
+                    this.saturationRates.merge(rate.getKey(), rate.getValue(), Double::sum);
+                this.saturationReports++;
+            }
         } else if (OdinConstants.BULK_LOAD_FROM_DATAGENERATOR == command) {
             // this will be send by data gens
             bulkLoadMutex.release();
@@ -312,8 +691,25 @@ public class OdinBenchmarkController extends AbstractBenchmarkController {
         waitForTaskGenToFinish();
         // wait for the system to terminate
         waitForSystemToFinish(1500000);
+        // report the saturation ceiling if the data generators searched for it
+        String[] envVariablesEvaluationModule = this.envVariablesEvaluationModule;
+        synchronized (this) {
+            if (this.saturationReports > 0) {
+                // the highest total rate of a window, not the sum of the
+                // highest rates of each data generator
+                double saturationTPS = 0.0;
+                for (double rate : this.saturationRates.values())
+                    saturationTPS = Math.max(saturationTPS, rate);
+                LOGGER.info("Saturation ceiling of " + this.saturationReports + " Data Generators: " + saturationTPS
+                        + " triples/s");
+                String saturation = OdinConstants.EVALUATION_SATURATION_TPS_VALUE + "=" + saturationTPS;
+                envVariablesEvaluationModule = Arrays.copyOf(envVariablesEvaluationModule,
+                        envVariablesEvaluationModule.length + 1);
+                envVariablesEvaluationModule[envVariablesEvaluationModule.length - 1] = saturation;
+            }
+        }
         // data generators environmental values
-        createEvaluationModule(EVALUATION_MODULE_CONTAINER_IMAGE, this.envVariablesEvaluationModule);
+        createEvaluationModule(EVALUATION_MODULE_CONTAINER_IMAGE, envVariablesEvaluationModule);
         // wait for the evaluation to finish
         waitForEvalComponentsToFinish();
 
@@ -0,0 +1,337 @@
+package org.hobbit.odin.odindatagenerator;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.log4j.Logger;
+
+/**
+ * Artifact Cache class. Keeps track of the artifacts that a Data Generator
+ * creates before the benchmark begins, so that a run with the same parameters
+ * reuses them instead of creating them again. The artifacts are created in two
+ * stages: the pre-processing stage runs the mimicking algorithm and divides its
+ * output into time stamp files, the streams stage creates the INSERT and SELECT
+ * SPARQL queries and the expected answers. Each stage is identified by a
+ * SHA-256 hash of all parameters it depends on, and a manifest in the output
+ * folder records the stages that were completed. The artifacts of the streams
+ * stage are stored in a folder named after its hash, so that runs that only
+ * differ in the parameters of the streams share the pre-processing stage.
+ * Only the streams stage that was saved last is kept.
+ *
+ * @author Kleanthi Georgala (georgala@informatik.uni-leipzig.de)
+ * @version 1.0
+ *
+ */
+public class ArtifactCache {
+    protected static final Logger logger = Logger.getLogger(ArtifactCache.class.getName());
+    /* Name of the manifest file */
+    public static final String MANIFEST = "manifest.properties";
+    /* Name of the file that describes the streams of a streams stage */
+    public static final String STREAMS = "streams.tsv";
+    /* Manifest key of the pre-processing stage */
+    private static final String PREPROCESSING_STAGE = "preprocessing";
+    /* Manifest key prefix of the streams stages */
+    private static final String STREAMS_STAGE = "streams.";
+    /* Name prefix of the folders of the streams stages */
+    private static final String STREAMS_FOLDER = "streams_";
+
+    /* Output folder of the Data Generator */
+    private String directory = null;
+    /* Completed stages */
+    private Properties manifest = new Properties();
+
+    /* Constructor */
+    public ArtifactCache(String directory) {
+        this.directory = directory;
+        File file = new File(directory + MANIFEST);
+        if (file.exists()) {
+            try (InputStream in = new FileInputStream(file)) {
+                manifest.load(in);
+            } catch (IOException e) {
+                logger.error("Couldn't read manifest " + file + ". Ignoring cached artifacts.");
+                manifest.clear();
+            }
+        }
+    }
+
+    /* Getters */
+    public String getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Returns the SHA-256 hash of a list of parameters.
+     *
+     * @param parameters,
+     *            the parameters
+     * @return the hash as a hexadecimal String
+     */
+    public static String hash(Object... parameters) {
+        MessageDigest digest = null;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            logger.error("SHA-256 is not available.");
+            throw new RuntimeException();
+        }
+        for (Object parameter : parameters) {
+            digest.update(String.valueOf(parameter).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest())
+            hex.append(String.format("%02x", b));
+        return hex.toString();
+    }
+
+    /**
+     * Checks if the pre-processing stage was completed with the given
+     * parameters and all of its time stamp files exist.
+     *
+     * @param key,
+     *            the hash of the parameters of the stage
+     * @return true if the stage can be reused, false otherwise
+     */
+    public boolean isPreprocessingValid(String key) {
+        if (!key.equals(manifest.getProperty(PREPROCESSING_STAGE)))
+            return false;
+        File timeStamps = new File(directory + "timeStamps.tsv");
+        if (!timeStamps.exists())
+            return false;
+        try (BufferedReader reader = Files.newBufferedReader(timeStamps.toPath(), StandardCharsets.UTF_8)) {
+            String line = null;
+            while ((line = reader.readLine()) != null) {
+                String[] columns = line.split("\t");
+                if (columns.length < 2 || !new File(columns[1]).exists())
+                    return false;
+            }
+        } catch (IOException e) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Removes all artifacts and the manifest before the pre-processing stage
+     * is run again.
+     */
+    public void clear() {
+        try {
+            FileUtils.cleanDirectory(new File(directory));
+        } catch (IOException e) {
+            e.printStackTrace();
+            logger.error("Couldn't remove the artifacts of " + directory);
+            throw new RuntimeException();
+        }
+        manifest.clear();
+    }
+
+    /**
+     * Records that the pre-processing stage was completed.
+     *
+     * @param key,
+     *            the hash of the parameters of the stage
+     */
+    public void setPreprocessing(String key) {
+        manifest.setProperty(PREPROCESSING_STAGE, key);
+        save();
+    }
+
+    /**
+     * Returns the folder of the artifacts of a streams stage.
+     *
+     * @param key,
+     *            the hash of the parameters of the stage
+     * @return the folder of the stage
+     */
+    public String getStreamsDirectory(String key) {
+        return directory + STREAMS_FOLDER + key.substring(0, 16) + "/";
+    }
+
+    /**
+     * Removes the artifacts of a streams stage before it is run again and
+     * creates its folder.
+     *
+     * @param key,
+     *            the hash of the parameters of the stage
+     */
+    public void clearStreams(String key) {
+        manifest.remove(STREAMS_STAGE + key);
+        File folder = new File(getStreamsDirectory(key));
+        try {
+            FileUtils.deleteDirectory(folder);
+        } catch (IOException e) {
+            e.printStackTrace();
+            logger.error("Couldn't remove the artifacts of " + folder);
+            throw new RuntimeException();
+        }
+        if (!folder.mkdirs()) {
+            logger.error("Failed to create new directory: " + folder);
+            throw new RuntimeException();
+        }
+    }
+
+    /**
+     * Reads the streams of a completed streams stage.
+     *
+     * @param key,
+     *            the hash of the parameters of the stage
+     * @return the streams, or null if the stage was not completed or any of
+     *         its files is missing
+     */
+    public TreeMap<Integer, Stream> loadStreams(String key) {
+        if (manifest.getProperty(STREAMS_STAGE + key) == null)
+            return null;
+        Path file = Paths.get(getStreamsDirectory(key) + STREAMS);
+        if (!Files.exists(file))
+            return null;
+        TreeMap<Integer, Stream> streams = new TreeMap<Integer, Stream>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line = null;
+            while ((line = reader.readLine()) != null) {
+                String[] columns = line.split("\t");
+                int streamID = Integer.parseInt(columns[1]);
+                if (!streams.containsKey(streamID)) {
+                    Stream stream = new Stream(streamID, new ArrayList<InsertQueryInfo>(), new SelectQueryInfo());
+                    streams.put(streamID, stream);
+                }
+                Stream stream = streams.get(streamID);
+                if (columns[0].equals("I")) {
+                    InsertQueryInfo insert = new InsertQueryInfo(Long.parseLong(columns[2]),
+                            Long.parseLong(columns[3]));
+                    insert.setInsertFile(columns[4]);
+                    // models are not stored if their persistence is disabled
+                    insert.setModelFile(columns[5].equals("null") ? null : columns[5]);
+                    insert.setModelSize(Long.parseLong(columns[6]));
+                    if (!new File(columns[4]).exists()
+                            || (insert.getModelFile() != null && !new File(columns[5]).exists()))
+                        return null;
+                    stream.addInsertQuery(insert);
+                } else {
+                    SelectQueryInfo select = new SelectQueryInfo();
+                    select.setTimeStamp(Long.parseLong(columns[2]));
+                    select.setDelay(Long.parseLong(columns[3]));
+                    select.setSelectQueryFile(columns[4]);
+                    select.setAnswersFile(columns[5]);
+                    if (!new File(columns[4]).exists() || !new File(columns[5]).exists())
+                        return null;
+                    stream.setSelectQuery(select);
+                    stream.setBeginPoint(Long.parseLong(columns[6]));
+                    stream.setEndPoint(Long.parseLong(columns[7]));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("Couldn't read " + file + ". Creating the streams again.");
+            return null;
+        }
+        for (Stream stream : streams.values()) {
+            if (stream.getSelectQuery().getSelectQueryFile() == null)
+                return null;
+        }
+        return streams;
+    }
+
+    /**
+     * Writes the streams of a streams stage and records that the stage was
+     * completed. The artifacts of all other streams stages are removed.
+     *
+     * @param key,
+     *            the hash of the parameters of the stage
+     * @param streams,
+     *            the streams created by the stage
+     */
+    public void saveStreams(String key, TreeMap<Integer, Stream> streams) {
+        Path file = Paths.get(getStreamsDirectory(key) + STREAMS);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (Entry<Integer, Stream> entry : streams.entrySet()) {
+                Stream stream = entry.getValue();
+                for (InsertQueryInfo insert : stream.getInsertQueries()) {
+                    writer.write("I\t" + entry.getKey() + "\t" + insert.getTimeStamp() + "\t" + insert.getDelay()
+                            + "\t" + insert.getInsertFile() + "\t" + insert.getModelFile() + "\t"
+                            + insert.getModelSize() + "\n");
+                }
+                SelectQueryInfo select = stream.getSelectQuery();
+                writer.write("S\t" + entry.getKey() + "\t" + select.getTimeStamp() + "\t" + select.getDelay() + "\t"
+                        + select.getSelectQueryFile() + "\t" + select.getAnswersFile() + "\t"
+                        + stream.getBeginPoint() + "\t" + stream.getEndPoint() + "\n");
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            logger.error("Couldn't write " + file);
+            throw new RuntimeException();
+        }
+        for (String name : manifest.stringPropertyNames()) {
+            if (name.startsWith(STREAMS_STAGE))
+                manifest.remove(name);
+        }
+        manifest.setProperty(STREAMS_STAGE + key, STREAMS);
+        save();
+        removeOtherStreams(key);
+    }
+
+    /**
+     * Removes the folders of all streams stages except one. The manifest must
+     * not record any of them.
+     *
+     * @param key,
+     *            the hash of the parameters of the stage to keep
+     */
+    private void removeOtherStreams(String key) {
+        String current = new File(getStreamsDirectory(key)).getName();
+        File[] folders = new File(directory).listFiles();
+        if (folders == null)
+            return;
+        for (File folder : folders) {
+            if (!folder.isDirectory() || !folder.getName().startsWith(STREAMS_FOLDER)
+                    || folder.getName().equals(current))
+                continue;
+            try {
+                FileUtils.deleteDirectory(folder);
+            } catch (IOException e) {
+                // the folder is not recorded, so it is never read again
+                logger.error("Couldn't remove the artifacts of " + folder);
+            }
+        }
+    }
+
+    /**
+     * Writes the manifest. The manifest is replaced atomically, so that an
+     * interrupted run never leaves a manifest of incomplete stages.
+     */
+    private void save() {
+        Path file = Paths.get(directory + MANIFEST);
+        Path temp = Paths.get(directory + MANIFEST + ".tmp");
+        try (OutputStream out = new FileOutputStream(temp.toFile())) {
+            manifest.store(out, "ODIN data generator artifacts");
+        } catch (IOException e) {
+            e.printStackTrace();
+            logger.error("Couldn't write manifest " + temp);
+            throw new RuntimeException();
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            e.printStackTrace();
+            logger.error("Couldn't replace manifest " + file);
+            throw new RuntimeException();
+        }
+    }
+}
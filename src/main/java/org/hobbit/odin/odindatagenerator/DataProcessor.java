@@ -2,16 +2,21 @@ package org.hobbit.odin.odindatagenerator;
 
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.jena.rdf.model.*;
 import org.apache.jena.vocabulary.RDF;
 import org.apache.log4j.Logger;
 import org.hobbit.odin.util.MainClassProperty;
+import org.hobbit.odin.util.TimeStampCodec;
 import org.hobbit.odin.util.TimeStampProperty;
 
 import java.io.*;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.format.DateTimeParseException;
 
 /**
  * Responsible for the pre-processing of the input data. Divides mimicking
@@ -27,24 +32,33 @@ public class DataProcessor {
      * Map with keys the unique time stamps and values the set of filenames that
      * include triples generated at the corresponding time stamp
      */
-    TreeMap<String, String> timeStamps = new TreeMap<String, String>();
+    ConcurrentSkipListMap<String, String> timeStamps = new ConcurrentSkipListMap<String, String>();
     /* Output directory of all datasets */
     String outputDirectory = null;
     /* Time stamp property of a dataset */
     String timeStampProperty = "";
     /* Main class property of a dataset */
     String classProperty = null;
+    /* Codec of the time stamps of a dataset */
+    TimeStampCodec codec = null;
     /* rdf:type property */
     Property typeProperty = RDF.type;
-    HashMap<String, Long> filesCounter = new HashMap<String, Long>();
+    ConcurrentHashMap<String, Long> filesCounter = new ConcurrentHashMap<String, Long>();
     int ID;
+    /* Number of threads used for the pre-processing, 1 for sequential */
+    int threads = 1;
+    /* Partitioner that buffers the event sub-graphs of each time stamp file */
+    EventPartitioner partitioner = new EventPartitioner();
+    /* Index of the model whose events are currently extracted */
+    SubGraphExtractor extractor = null;
 
     /* Constructor */
     public DataProcessor(String outputDirectory, String mimickingDataset, int id) {
         this.outputDirectory = outputDirectory;
         this.getProperties(mimickingDataset);
-        filesCounter = new HashMap<String, Long>();
-        timeStamps = new TreeMap<String, String>();
+        filesCounter = new ConcurrentHashMap<String, Long>();
+        timeStamps = new ConcurrentSkipListMap<String, String>();
+        partitioner = new EventPartitioner();
         this.ID = id;
     }
 
@@ -61,6 +75,23 @@ public class DataProcessor {
         return classProperty;
     }
 
+    public EventPartitioner getPartitioner() {
+        return partitioner;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /* Setters */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public void setPartitioner(EventPartitioner partitioner) {
+        this.partitioner = partitioner;
+    }
+
     //////////////////////////////////////////////////////////////////////////////////////////////
 
     /**
@@ -74,15 +105,19 @@ public class DataProcessor {
         if (mimickingAlgorithm.contains("TRANSPORT_DATA")) {
             this.classProperty = MainClassProperty.TRANSPORT_DATA_MAINCLASS.mainClassProperty();
             this.timeStampProperty = TimeStampProperty.TRANSPORT_DATA_TIMESTAMP.timeStampProperty();
+            this.codec = TimeStampCodec.getCodec();
         } else if (mimickingAlgorithm.contains("TWIG")) {
             this.classProperty = MainClassProperty.TWIG_MAINCLASS.mainClassProperty();
             this.timeStampProperty = TimeStampProperty.TWIG_TIMESTAMP.timeStampProperty();
+            this.codec = TimeStampCodec.getCodec();
         } else if (mimickingAlgorithm.contains("TT")) {
             this.classProperty = MainClassProperty.TT_DATA_MAINCLASS.mainClassProperty();
             this.timeStampProperty = TimeStampProperty.TT_DATA_TIMESTAMP.timeStampProperty();
+            this.codec = TimeStampCodec.getCodec();
         } else if (mimickingAlgorithm.contains("OBS")) {
             this.classProperty = MainClassProperty.OBS_DATA_MAINCLASS.mainClassProperty();
             this.timeStampProperty = TimeStampProperty.OBS_DATA_TIMESTAMP.timeStampProperty();
+            this.codec = TimeStampCodec.getCodec();
         } else {
             logger.error("Invalid mimicking algorithm name " + mimickingAlgorithm);
             throw new RuntimeException();
@@ -230,7 +265,9 @@ public class DataProcessor {
 
     /**
      * Given a model and a resource, it creates the subgraph with all inlinks
-     * and outlinks from this resource and stores it into a file.
+     * and outlinks from this resource and hands it to the partitioner of the
+     * corresponding time stamp file. The sub-graph is written into the file
+     * once the partitioner is flushed.
      * 
      * @param folder,
      *            the output folder
@@ -241,14 +278,36 @@ public class DataProcessor {
      * 
      */
     public void createSubModel(String folder, Resource subject, Model model) {
+        // index the model once for all of its events
+        if (extractor == null || extractor.getModel() != model)
+            extractor = new SubGraphExtractor(model);
+        createSubModel(folder, subject, model, extractor);
+    }
+
+    /**
+     * Given a model, its index and a resource, it creates the subgraph with
+     * all inlinks and outlinks from this resource and hands it to the
+     * partitioner of the corresponding time stamp file. Can be called
+     * concurrently for events of the same or of different models.
+     * 
+     * @param folder,
+     *            the output folder
+     * @param subject,
+     *            the predefined subject
+     * @param model,
+     *            the existing model that includes the subject
+     * @param extractor,
+     *            the index of the existing model
+     * 
+     */
+    public void createSubModel(String folder, Resource subject, Model model, SubGraphExtractor extractor) {
         // get all outlinks from this URI
-        Model outlinks = ModelFactory.createDefaultModel();
-        outlinks = getOutLinks(subject, ModelFactory.createDefaultModel(), model);
+        Model outlinks = extractor.getOutLinks(subject);
 
         // get all inlinks from this URI
         Model inlinks = ModelFactory.createDefaultModel();
         if (!this.classProperty.equals(MainClassProperty.TRANSPORT_DATA_MAINCLASS.mainClassProperty()))
-            inlinks = getInLinks((RDFNode) subject, ModelFactory.createDefaultModel(), model);
+            inlinks = extractor.getInLinks((RDFNode) subject);
 
         // find all their timestamps
         Statement timeStampStatement = getTimeStamp(subject, model);
@@ -259,27 +318,7 @@ public class DataProcessor {
         }
 
         String timeStamp = timeStampStatement.getObject().asLiteral().getLexicalForm();
-        if (!filesCounter.containsKey(timeStamp)) {
-            SimpleDateFormat df = null;
-            Date date = null;
-            try {// 2017-02-03T13:34:44Z
-                if (this.classProperty.equals(MainClassProperty.TWIG_MAINCLASS.mainClassProperty()))
-                    df = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
-                else if (this.classProperty.equals(MainClassProperty.TT_DATA_MAINCLASS.mainClassProperty()))
-                    df = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSSSS");
-                else if (this.classProperty.equals(MainClassProperty.OBS_DATA_MAINCLASS.mainClassProperty()))
-                    df = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
-                else
-                    df = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSSSS");
-                date = df.parse(timeStamp);
-            } catch (ParseException e) {
-                e.printStackTrace();
-                logger.error("Couldn't parse date: " + timeStamp);
-                throw new RuntimeException();
-            }
-            filesCounter.put(timeStamp, date.getTime());
-        }
-        long c = filesCounter.get(timeStamp);
+        long c = filesCounter.computeIfAbsent(timeStamp, this::parseTimeStamp);
 
         File newFolder = new File(folder + "clean/");
         if (!newFolder.exists())
@@ -287,34 +326,30 @@ public class DataProcessor {
 
         String fileName = folder + "clean/" + c + ".ttl";
 
-        Model existingModel = ModelFactory.createDefaultModel();
         Model newModel = ModelFactory.createDefaultModel();
-        if ((new File(fileName).exists())) {
-            existingModel.read(fileName);
-            newModel.add(existingModel);
-        }
         newModel.add(outlinks);
         newModel.add(inlinks);
-        FileOutputStream writer = null;
-        try {
-            writer = new FileOutputStream(fileName, false);
-            newModel.write(writer, "ttl");
-        } catch (IOException e) {
-            logger.error("Couldn't write model in : " + fileName);
-            e.printStackTrace();
-            throw new RuntimeException();
-        }
+        partitioner.add(fileName, newModel);
 
         timeStamps.put(timeStamp, fileName);
 
+    }
+
+    /**
+     * Converts the lexical form of a generation time stamp into microseconds.
+     * 
+     * @param timeStamp,
+     *            the lexical form of the time stamp
+     * @return the time stamp in microseconds
+     */
+    private Long parseTimeStamp(String timeStamp) {
         try {
-            writer.close();
-        } catch (IOException e) {
-            logger.error("Couldn't close file : " + fileName);
+            return codec.toMicros(timeStamp);
+        } catch (DateTimeParseException e) {
             e.printStackTrace();
+            logger.error("Couldn't parse date: " + timeStamp);
             throw new RuntimeException();
         }
-
     }
 
     /**
@@ -429,7 +464,10 @@ public class DataProcessor {
 
     /**
      * Divides all generated triple into files based on their generation time
-     * stamp.
+     * stamp. The mimicking output is traversed once and the sub-graphs of the
+     * events are appended to the time stamp files by the partitioner. If more
+     * than one thread is assigned, the input files and the events of each file
+     * are processed by a fork-join pool.
      * 
      */
     public void divideData() {
@@ -441,47 +479,71 @@ public class DataProcessor {
             logger.error("Mimicking algorithm did not return any data files.");
             throw new RuntimeException();
         }
+        List<File> inputFiles = null;
         if (this.classProperty.equals(MainClassProperty.OBS_DATA_MAINCLASS.mainClassProperty())
-                || this.classProperty.equals(MainClassProperty.TT_DATA_MAINCLASS.mainClassProperty())) {
-            int sizeCounter = 0;
-            int eventCounter = 0;
-            for (File file : listOfFiles) {
-                Model model = getModel(fullNameDirectory + file.getName());
-                sizeCounter += model.size();
-                StmtIterator statements = getStatements(model);
-
-                // find all events that are instances of classProperty
-                while (statements.hasNext()) {
-                    eventCounter++;
-                    Statement statement = statements.next();
-                    Resource mainResource = getMainResource(statement);
-                    createSubModel(fullNameDirectory, mainResource, model);
-
-                }
-
+                || this.classProperty.equals(MainClassProperty.TT_DATA_MAINCLASS.mainClassProperty()))
+            inputFiles = Arrays.asList(listOfFiles);
+        else
+            inputFiles = Arrays.asList(listOfFiles[0]);
+
+        LongAdder sizeCounter = new LongAdder();
+        LongAdder eventCounter = new LongAdder();
+        if (threads > 1) {
+            logger.info(ID + " Pre-processing " + inputFiles.size() + " files with " + threads + " threads.");
+            List<File> files = inputFiles;
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                pool.submit(() -> files.parallelStream()
+                        .forEach(file -> divideFile(fullNameDirectory, file, true, sizeCounter, eventCounter)))
+                        .get();
+            } catch (InterruptedException | ExecutionException e) {
+                e.printStackTrace();
+                logger.error("Couldn't pre-process files of " + fullNameDirectory);
+                throw new RuntimeException();
+            } finally {
+                pool.shutdown();
             }
-            logger.info(ID + " Number of triples: " + sizeCounter);
-            logger.info(ID + " Number of events: " + eventCounter);
-            writeTimeStamps(fullNameDirectory);
-
         } else {
-            Model model = getModel(fullNameDirectory + listOfFiles[0].getName());
-            logger.info(ID + " Number of triples: " + model.size());
-
-            StmtIterator statements = getStatements(model);
-            int counter = 0;
-            // find all events that are instances of classProperty
-            while (statements.hasNext()) {
-                counter++;
-                Statement statement = statements.next();
-                Resource mainResource = getMainResource(statement);
-                createSubModel(fullNameDirectory, mainResource, model);
-
-            }
-            logger.info(ID + " Number of events: " + counter);
-            writeTimeStamps(fullNameDirectory);
+            for (File file : inputFiles)
+                divideFile(fullNameDirectory, file, false, sizeCounter, eventCounter);
         }
+        partitioner.flush();
+        logger.info(ID + " Number of triples: " + sizeCounter.sum());
+        logger.info(ID + " Number of events: " + eventCounter.sum());
+        writeTimeStamps(fullNameDirectory);
 
     }
 
+    /**
+     * Divides all triples of one mimicking file into files based on their
+     * generation time stamp.
+     * 
+     * @param directory,
+     *            the output directory of all mimicking files
+     * @param file,
+     *            the mimicking file
+     * @param parallel,
+     *            true if the events are processed in parallel
+     * @param sizeCounter,
+     *            the counter of the triples read
+     * @param eventCounter,
+     *            the counter of the events found
+     */
+    private void divideFile(String directory, File file, boolean parallel, LongAdder sizeCounter,
+            LongAdder eventCounter) {
+        Model model = getModel(directory + file.getName());
+        sizeCounter.add(model.size());
+        SubGraphExtractor fileExtractor = new SubGraphExtractor(model);
+
+        // find all events that are instances of classProperty
+        List<Statement> statements = getStatements(model).toList();
+        eventCounter.add(statements.size());
+        if (parallel)
+            statements.parallelStream().forEach(
+                    statement -> createSubModel(directory, getMainResource(statement), model, fileExtractor));
+        else
+            for (Statement statement : statements)
+                createSubModel(directory, getMainResource(statement), model, fileExtractor);
+    }
+
 }
@@ -0,0 +1,114 @@
+package org.hobbit.odin.odindatagenerator;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Deadline Scheduler class. Waits for absolute deadlines measured from a
+ * single epoch with System.nanoTime, instead of sleeping for relative delays.
+ * Oversleeping or slow work before an event therefore never shifts the
+ * following events. The calling thread is parked until shortly before a
+ * deadline and spins for the remaining time. The lateness of each event, i.e.
+ * the time between its deadline and the moment the wait returned, is recorded.
+ *
+ * @author Kleanthi Georgala (georgala@informatik.uni-leipzig.de)
+ * @version 1.0
+ *
+ */
+public class DeadlineScheduler {
+    protected static final Logger logger = Logger.getLogger(DeadlineScheduler.class.getName());
+    /* Default time before a deadline after which the thread spins */
+    public static final long DEFAULT_SPIN_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    /* Time before a deadline after which the thread spins */
+    private long spinNanos = DEFAULT_SPIN_NANOS;
+    /* Epoch of all deadlines in nanoseconds */
+    private long epoch = 0l;
+    /* Lateness of each event in nanoseconds */
+    private long[] lateness = new long[1024];
+    /* Number of events */
+    private int events = 0;
+
+    /* Constructors */
+    public DeadlineScheduler() {
+    }
+
+    public DeadlineScheduler(long spinNanos) {
+        this.spinNanos = spinNanos;
+    }
+
+    /* Getters */
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public int getEvents() {
+        return events;
+    }
+
+    public long getLateness(int event) {
+        return lateness[event];
+    }
+
+    /**
+     * Sets the epoch of all deadlines to the current time.
+     */
+    public void start() {
+        this.epoch = System.nanoTime();
+        this.events = 0;
+    }
+
+    /**
+     * Waits until a deadline is reached and records the lateness of the
+     * event.
+     *
+     * @param deadline,
+     *            the deadline in nanoseconds after the epoch
+     * @return the lateness of the event in nanoseconds
+     * @throws InterruptedException
+     *             if the thread is interrupted while waiting
+     */
+    public long awaitDeadline(long deadline) throws InterruptedException {
+        long target = epoch + deadline;
+        long remaining = target - System.nanoTime();
+        while (remaining > spinNanos) {
+            LockSupport.parkNanos(remaining - spinNanos);
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            remaining = target - System.nanoTime();
+        }
+        long now = System.nanoTime();
+        while (now - target < 0)
+            now = System.nanoTime();
+
+        if (events == lateness.length)
+            lateness = Arrays.copyOf(lateness, events * 2);
+        lateness[events++] = now - target;
+        return now - target;
+    }
+
+    /**
+     * Logs the mean, median, 99th percentile and maximum lateness of all
+     * events.
+     *
+     * @param name,
+     *            the name of the scheduled events
+     */
+    public void logStatistics(String name) {
+        if (events == 0)
+            return;
+        long[] sorted = Arrays.copyOf(lateness, events);
+        Arrays.sort(sorted);
+        long sum = 0l;
+        for (long l : sorted)
+            sum += l;
+        logger.info(name + ": lateness of " + events + " events in microseconds: mean "
+                + TimeUnit.NANOSECONDS.toMicros(sum / events) + ", median "
+                + TimeUnit.NANOSECONDS.toMicros(sorted[events / 2]) + ", 99th percentile "
+                + TimeUnit.NANOSECONDS.toMicros(sorted[(int) (events * 0.99)]) + ", max "
+                + TimeUnit.NANOSECONDS.toMicros(sorted[events - 1]));
+    }
+}
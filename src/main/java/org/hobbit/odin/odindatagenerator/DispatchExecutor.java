@@ -0,0 +1,267 @@
+package org.hobbit.odin.odindatagenerator;
+
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Dispatch Executor class. Sends the INSERT and SELECT SPARQL queries of a
+ * Data Generator with a fixed number of worker threads that take the queries
+ * from a bounded queue. If the queue is full, the scheduling thread waits until
+ * a worker takes a query (backpressure), so the memory used by pending queries
+ * stays bounded. A worker takes up to a fixed number of waiting queries at
+ * once and sends them one after the other, which saves a wake-up per query
+ * when queries are sent in bursts. The executor records the queue depth, the
+ * send latency (from scheduling a query until it has been sent), the number of
+ * scheduling attempts that found the queue full, the number of queries that
+ * waited too long in the queue and the number of failed sends.
+ *
+ * @author Kleanthi Georgala (georgala@informatik.uni-leipzig.de)
+ * @version 1.0
+ *
+ */
+public class DispatchExecutor {
+    protected static final Logger logger = Logger.getLogger(DispatchExecutor.class.getName());
+    /* Default capacity of the queue */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    /* Default number of queries a worker takes at once */
+    public static final int DEFAULT_BATCH_SIZE = 1;
+    /* Default time a query may wait in the queue before it is late */
+    public static final long DEFAULT_LATE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    /* Marks the end of the queue */
+    private static final Dispatch STOP = new Dispatch(null, 0l);
+
+    /* Queries waiting to be sent */
+    private ArrayBlockingQueue<Dispatch> queue = null;
+    /* Worker threads */
+    private Thread[] workers = null;
+    /* Maximum number of queries a worker takes at once */
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    /* Time a query may wait in the queue before it is late */
+    private long lateNanos = DEFAULT_LATE_NANOS;
+    /* Whether no more queries are accepted */
+    private volatile boolean shutdown = false;
+
+    /* Number of scheduled queries */
+    private LongAdder submitted = new LongAdder();
+    /* Number of sent queries */
+    private LongAdder completed = new LongAdder();
+    /* Number of queries whose sending threw an exception */
+    private LongAdder failed = new LongAdder();
+    /* Number of scheduled queries that found the queue full */
+    private LongAdder rejected = new LongAdder();
+    /* Number of queries that waited longer than lateNanos in the queue */
+    private LongAdder late = new LongAdder();
+    /* Sum of all send latencies in nanoseconds */
+    private LongAdder latencySum = new LongAdder();
+    /* Maximum send latency in nanoseconds */
+    private LongAccumulator maxLatency = new LongAccumulator(Long::max, 0l);
+    /* Maximum queue depth */
+    private LongAccumulator maxQueueDepth = new LongAccumulator(Long::max, 0l);
+
+    /**
+     * Query scheduled for sending.
+     */
+    private static class Dispatch {
+        /* Sends the query */
+        private final Runnable task;
+        /* Time of scheduling in nanoseconds */
+        private final long submitted;
+
+        public Dispatch(Runnable task, long submitted) {
+            this.task = task;
+            this.submitted = submitted;
+        }
+    }
+
+    /* Constructors */
+    public DispatchExecutor(int threads) {
+        this(threads, DEFAULT_QUEUE_CAPACITY, DEFAULT_BATCH_SIZE);
+    }
+
+    public DispatchExecutor(int threads, int queueCapacity, int batchSize) {
+        this(threads, queueCapacity, batchSize, DEFAULT_LATE_NANOS);
+    }
+
+    public DispatchExecutor(int threads, int queueCapacity, int batchSize, long lateNanos) {
+        if (threads <= 0 || queueCapacity <= 0 || batchSize <= 0) {
+            logger.error("Dispatch threads, queue capacity and batch size must be positive.");
+            throw new RuntimeException();
+        }
+        this.queue = new ArrayBlockingQueue<Dispatch>(queueCapacity);
+        this.batchSize = batchSize;
+        this.lateNanos = lateNanos;
+        this.workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(this::work, "odin-dispatch-" + i);
+            workers[i].start();
+        }
+    }
+
+    /* Getters */
+    public int getThreads() {
+        return workers.length;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    public long getSubmitted() {
+        return submitted.sum();
+    }
+
+    public long getCompleted() {
+        return completed.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getLate() {
+        return late.sum();
+    }
+
+    public long getMaxLatency() {
+        return maxLatency.get();
+    }
+
+    public long getMeanLatency() {
+        long count = completed.sum() + failed.sum();
+        return (count == 0) ? 0l : latencySum.sum() / count;
+    }
+
+    /**
+     * Schedules a query for sending. Waits if the queue is full.
+     *
+     * @param task,
+     *            the task that sends the query
+     * @throws InterruptedException
+     *             if the thread is interrupted while waiting
+     */
+    public void execute(Runnable task) throws InterruptedException {
+        if (shutdown) {
+            logger.error("Dispatch executor is shut down.");
+            throw new RuntimeException();
+        }
+        Dispatch dispatch = new Dispatch(task, System.nanoTime());
+        if (!queue.offer(dispatch)) {
+            rejected.increment();
+            queue.put(dispatch);
+        }
+        submitted.increment();
+        maxQueueDepth.accumulate(queue.size());
+    }
+
+    /**
+     * Takes queries from the queue and sends them until the executor is shut
+     * down.
+     */
+    private void work() {
+        ArrayList<Dispatch> batch = new ArrayList<Dispatch>(batchSize);
+        boolean stop = false;
+        try {
+            while (!stop) {
+                batch.add(queue.take());
+                if (batchSize > 1)
+                    queue.drainTo(batch, batchSize - 1);
+                for (Dispatch dispatch : batch) {
+                    if (dispatch == STOP)
+                        stop = true;
+                    else
+                        send(dispatch);
+                }
+                batch.clear();
+            }
+            // let the next worker stop as well
+            queue.put(STOP);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Sends a query and records its latency.
+     *
+     * @param dispatch,
+     *            the scheduled query
+     */
+    private void send(Dispatch dispatch) {
+        if (System.nanoTime() - dispatch.submitted > lateNanos)
+            late.increment();
+        try {
+            dispatch.task.run();
+            completed.increment();
+        } catch (RuntimeException e) {
+            failed.increment();
+            logger.error("Couldn't send query.", e);
+        }
+        long latency = System.nanoTime() - dispatch.submitted;
+        latencySum.add(latency);
+        maxLatency.accumulate(latency);
+    }
+
+    /**
+     * Stops accepting queries. Queries already scheduled are still sent.
+     *
+     * @throws InterruptedException
+     *             if the thread is interrupted while waiting for the queue
+     */
+    public void shutdown() throws InterruptedException {
+        if (shutdown)
+            return;
+        shutdown = true;
+        queue.put(STOP);
+    }
+
+    /**
+     * Waits until all scheduled queries are sent after a shutdown.
+     *
+     * @param timeout,
+     *            the maximum time to wait
+     * @param unit,
+     *            the unit of the timeout
+     * @return true if all workers finished, false otherwise
+     * @throws InterruptedException
+     *             if the thread is interrupted while waiting
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Thread worker : workers) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining > 0)
+                TimeUnit.NANOSECONDS.timedJoin(worker, remaining);
+            if (worker.isAlive())
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Logs the metrics of the executor.
+     *
+     * @param name,
+     *            the name of the sent queries
+     */
+    public void logStatistics(String name) {
+        logger.info(name + ": " + getCompleted() + " queries sent by " + workers.length + " threads, "
+                + getFailed() + " failed, " + getRejected() + " found the queue full, " + getLate()
+                + " waited longer than " + TimeUnit.NANOSECONDS.toMillis(lateNanos) + " ms, max queue depth "
+                + getMaxQueueDepth() + ", send latency in microseconds: mean "
+                + TimeUnit.NANOSECONDS.toMicros(getMeanLatency()) + ", max "
+                + TimeUnit.NANOSECONDS.toMicros(getMaxLatency()));
+    }
+}
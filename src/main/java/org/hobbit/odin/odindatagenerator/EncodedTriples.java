@@ -0,0 +1,220 @@
+package org.hobbit.odin.odindatagenerator;
+
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RDFFormat;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.apache.jena.riot.system.StreamRDFWriter;
+import org.apache.log4j.Logger;
+
+/**
+ * Encoded Triples class. Keeps a set of triples as ids of a Term Dictionary,
+ * packed as three consecutive ints per triple, instead of a Jena Model.
+ * Triples keep the order in which they were added and triples that were
+ * already added are ignored, as in a Jena Model. Triples are converted back
+ * into Jena triples only when they are written.
+ *
+ * @author Kleanthi Georgala (georgala@informatik.uni-leipzig.de)
+ * @version 1.0
+ *
+ */
+public class EncodedTriples implements Iterable<Triple> {
+    protected static final Logger logger = Logger.getLogger(EncodedTriples.class.getName());
+
+    /* Dictionary of the ids of the triples */
+    private TermDictionary dictionary = null;
+    /* Subject, predicate and object ids of each triple */
+    private int[] records = new int[3 * 16];
+    /* Number of triples */
+    private int size = 0;
+    /* Open addressing hash table of triple positions plus one, 0 if empty */
+    private int[] table = new int[32];
+
+    /* Constructor */
+    public EncodedTriples(TermDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    /* Getters */
+    public TermDictionary getDictionary() {
+        return dictionary;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getSubject(int index) {
+        return records[3 * index];
+    }
+
+    public int getPredicate(int index) {
+        return records[3 * index + 1];
+    }
+
+    public int getObject(int index) {
+        return records[3 * index + 2];
+    }
+
+    /**
+     * Returns a triple given its position.
+     *
+     * @param index,
+     *            the position of the triple
+     * @return the decoded triple
+     */
+    public Triple getTriple(int index) {
+        if (index < 0 || index >= size) {
+            logger.error("Triple " + index + " doesn't exist, number of triples: " + size);
+            throw new RuntimeException();
+        }
+        return new Triple(dictionary.decode(getSubject(index)), dictionary.decode(getPredicate(index)),
+                dictionary.decode(getObject(index)));
+    }
+
+    private static int hash(int subject, int predicate, int object) {
+        int h = (subject * 31 + predicate) * 31 + object;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Adds a triple given the ids of its terms.
+     *
+     * @param subject,
+     *            the id of the subject
+     * @param predicate,
+     *            the id of the predicate
+     * @param object,
+     *            the id of the object
+     * @return true if the triple was added, false if it was already included
+     */
+    public boolean add(int subject, int predicate, int object) {
+        int mask = table.length - 1;
+        int slot = hash(subject, predicate, object) & mask;
+        while (table[slot] != 0) {
+            int i = 3 * (table[slot] - 1);
+            if (records[i] == subject && records[i + 1] == predicate && records[i + 2] == object)
+                return false;
+            slot = (slot + 1) & mask;
+        }
+        if (3 * size == records.length)
+            records = Arrays.copyOf(records, 2 * records.length);
+        records[3 * size] = subject;
+        records[3 * size + 1] = predicate;
+        records[3 * size + 2] = object;
+        size++;
+        table[slot] = size;
+        // keep the table at most half full
+        if (2 * size > table.length)
+            rehash();
+        return true;
+    }
+
+    /**
+     * Adds a triple.
+     *
+     * @param triple,
+     *            the triple to be added
+     * @return true if the triple was added, false if it was already included
+     */
+    public boolean add(Triple triple) {
+        return add(dictionary.encode(triple.getSubject()), dictionary.encode(triple.getPredicate()),
+                dictionary.encode(triple.getObject()));
+    }
+
+    private void rehash() {
+        table = new int[2 * table.length];
+        int mask = table.length - 1;
+        for (int index = 0; index < size; index++) {
+            int slot = hash(getSubject(index), getPredicate(index), getObject(index)) & mask;
+            while (table[slot] != 0)
+                slot = (slot + 1) & mask;
+            table[slot] = index + 1;
+        }
+    }
+
+    /**
+     * Adds the triples of an RDF file.
+     *
+     * @param file,
+     *            the RDF file
+     */
+    public void read(String file) {
+        StreamRDF sink = new StreamRDFBase() {
+            @Override
+            public void triple(Triple triple) {
+                add(triple);
+            }
+        };
+        RDFDataMgr.parse(sink, file);
+    }
+
+    /**
+     * Writes the triples in Turtle.
+     *
+     * @param out,
+     *            the output stream
+     */
+    public void write(OutputStream out) {
+        write(this, out);
+    }
+
+    /**
+     * Writes a set of triples in Turtle.
+     *
+     * @param triples,
+     *            the triples to be written
+     * @param out,
+     *            the output stream
+     */
+    public static void write(Iterable<Triple> triples, OutputStream out) {
+        StreamRDF writer = StreamRDFWriter.getWriterStream(out, RDFFormat.TURTLE_BLOCKS);
+        writer.start();
+        for (Triple triple : triples)
+            writer.triple(triple);
+        writer.finish();
+    }
+
+    /**
+     * Adds the triples of another set of triples.
+     *
+     * @param triples,
+     *            the triples to be added
+     */
+    public void addAll(EncodedTriples triples) {
+        if (triples.getDictionary() != dictionary) {
+            for (Triple triple : triples)
+                add(triple);
+            return;
+        }
+        // ids of the same dictionary are copied as they are
+        for (int index = 0; index < triples.size(); index++)
+            add(triples.getSubject(index), triples.getPredicate(index), triples.getObject(index));
+    }
+
+    @Override
+    public Iterator<Triple> iterator() {
+        return new Iterator<Triple>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public Triple next() {
+                if (index >= size)
+                    throw new NoSuchElementException();
+                return getTriple(index++);
+            }
+        };
+    }
+
+}
@@ -0,0 +1,128 @@
+package org.hobbit.odin.odindatagenerator;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map.Entry;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.log4j.Logger;
+
+/**
+ * Event Partitioner class. Collects the sub-graphs of all events of a mimicking
+ * output in one pass and groups them into buckets, one bucket per time stamp
+ * file. Once the number of buffered triples exceeds a predefined bound, every
+ * bucket is appended to its time stamp file with a single writer and the
+ * buffer is emptied. Sub-graphs can be added concurrently. A time stamp file
+ * is truncated the first time the partitioner writes into it, so that the
+ * events of an earlier run are not kept.
+ *
+ * Buckets are appended as N-Triples, which is a subset of Turtle. Each
+ * appended chunk uses the internal blank node labels of Jena, so blank nodes
+ * of different chunks never clash when the file is read back.
+ *
+ * @author Kleanthi Georgala (georgala@informatik.uni-leipzig.de)
+ * @version 1.0
+ *
+ */
+public class EventPartitioner {
+    protected static final Logger logger = Logger.getLogger(EventPartitioner.class.getName());
+    /* Default maximum number of buffered triples */
+    public static final long DEFAULT_MAX_BUFFERED_TRIPLES = 500000l;
+
+    /* Map with keys the time stamp files and values the buffered triples */
+    private HashMap<String, Model> buckets = new HashMap<String, Model>();
+    /* Number of triples currently buffered in all buckets */
+    private long bufferedTriples = 0l;
+    /* Maximum number of buffered triples before the buckets are flushed */
+    private long maxBufferedTriples = DEFAULT_MAX_BUFFERED_TRIPLES;
+    /* Number of flushes performed so far */
+    private int flushCounter = 0;
+    /* Time stamp files written so far */
+    private HashSet<String> writtenFiles = new HashSet<String>();
+
+    /* Constructors */
+    public EventPartitioner() {
+    }
+
+    public EventPartitioner(long maxBufferedTriples) {
+        this.maxBufferedTriples = maxBufferedTriples;
+    }
+
+    /* Getters */
+    public synchronized long getBufferedTriples() {
+        return bufferedTriples;
+    }
+
+    public long getMaxBufferedTriples() {
+        return maxBufferedTriples;
+    }
+
+    public int getFlushCounter() {
+        return flushCounter;
+    }
+
+    /**
+     * Adds the sub-graph of an event to the bucket of its time stamp file. If
+     * the buffer exceeds its bound, all buckets are flushed.
+     *
+     * @param fileName,
+     *            the time stamp file the sub-graph belongs to
+     * @param subModel,
+     *            the sub-graph of the event
+     */
+    public synchronized void add(String fileName, Model subModel) {
+        Model bucket = buckets.get(fileName);
+        if (bucket == null) {
+            bucket = ModelFactory.createDefaultModel();
+            buckets.put(fileName, bucket);
+        }
+        long before = bucket.size();
+        bucket.add(subModel);
+        bufferedTriples += bucket.size() - before;
+
+        if (bufferedTriples >= maxBufferedTriples)
+            flush();
+    }
+
+    /**
+     * Appends every bucket to its time stamp file and empties the buffer.
+     */
+    public synchronized void flush() {
+        if (buckets.isEmpty())
+            return;
+        for (Entry<String, Model> entry : buckets.entrySet()) {
+            String fileName = entry.getKey();
+            OutputStream writer = null;
+            try {
+                // append only to files written by this partitioner
+                writer = new FileOutputStream(fileName, !writtenFiles.add(fileName));
+                RDFDataMgr.write(writer, entry.getValue(), Lang.NTRIPLES);
+            } catch (IOException e) {
+                logger.error("Couldn't write model in : " + fileName);
+                e.printStackTrace();
+                throw new RuntimeException();
+            } finally {
+                if (writer != null) {
+                    try {
+                        writer.close();
+                    } catch (IOException e) {
+                        logger.error("Couldn't close file : " + fileName);
+                        e.printStackTrace();
+                        throw new RuntimeException();
+                    }
+                }
+            }
+            entry.getValue().close();
+        }
+        flushCounter++;
+        logger.debug("Flushed " + bufferedTriples + " triples into " + buckets.size() + " files.");
+        buckets = new HashMap<String, Model>();
+        bufferedTriples = 0l;
+    }
+}
@@ -0,0 +1,273 @@
+package org.hobbit.odin.odindatagenerator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.ResultSet;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.sparql.algebra.Algebra;
+import org.apache.jena.sparql.algebra.Op;
+import org.apache.jena.sparql.algebra.op.OpBGP;
+import org.apache.jena.sparql.algebra.op.OpUnion;
+import org.apache.jena.sparql.core.BasicPattern;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.ResultSetStream;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.engine.binding.BindingFactory;
+import org.apache.jena.sparql.engine.iterator.QueryIterPlainWrapper;
+import org.apache.jena.tdb.store.NodeId;
+import org.apache.log4j.Logger;
+
+/**
+ * Expected Answer Engine class. Computes the expected answers of the SELECT
+ * SPARQL queries created by the Select Query class without a SPARQL engine.
+ * These queries are a UNION of basic graph patterns, where all triple patterns
+ * of a basic graph pattern share a single variable and have no other variable.
+ * The engine keeps an SPO, a POS and an OSP index of all triples loaded into
+ * the Reference Set, resolves each triple pattern with a single index lookup
+ * and intersects the answers of the triple patterns of a basic graph pattern,
+ * so that the cost of a query depends on the size of its answers instead of
+ * the size of the graph. Queries of any other form are not supported.
+ *
+ * @author Kleanthi Georgala (georgala@informatik.uni-leipzig.de)
+ * @version 1.0
+ *
+ */
+public class ExpectedAnswerEngine {
+    protected static final Logger logger = Logger.getLogger(ExpectedAnswerEngine.class.getName());
+
+    /* Whether nodes are converted into the form returned by a Jena TDB */
+    private boolean canonical = false;
+    /* Name of the indexed graph */
+    private String graphName = null;
+    /* Whether triples of more than one graph were added */
+    private boolean mixedGraphs = false;
+    /* Number of indexed triples */
+    private long size = 0l;
+    /* Map with keys subjects, predicates and values the objects */
+    private HashMap<Node, HashMap<Node, LinkedHashSet<Node>>> spo = new HashMap<Node, HashMap<Node, LinkedHashSet<Node>>>();
+    /* Map with keys predicates, objects and values the subjects */
+    private HashMap<Node, HashMap<Node, ArrayList<Node>>> pos = new HashMap<Node, HashMap<Node, ArrayList<Node>>>();
+    /* Map with keys objects, subjects and values the predicates */
+    private HashMap<Node, HashMap<Node, ArrayList<Node>>> osp = new HashMap<Node, HashMap<Node, ArrayList<Node>>>();
+
+    /* Constructor */
+    public ExpectedAnswerEngine(boolean canonical) {
+        this.canonical = canonical;
+    }
+
+    /* Getters */
+    public long getSize() {
+        return size;
+    }
+
+    public String getGraphName() {
+        return graphName;
+    }
+
+    /**
+     * Adds a triple to the indexes. Triples that are already indexed are
+     * ignored.
+     *
+     * @param graph,
+     *            the name of the graph of the triple
+     * @param triple,
+     *            the triple to be added
+     */
+    public void add(String graph, Triple triple) {
+        if (graphName == null)
+            graphName = graph;
+        else if (!graphName.equals(graph))
+            mixedGraphs = true;
+
+        Node subject = canonical(triple.getSubject());
+        Node predicate = canonical(triple.getPredicate());
+        Node object = canonical(triple.getObject());
+
+        LinkedHashSet<Node> objects = spo.computeIfAbsent(subject, k -> new HashMap<Node, LinkedHashSet<Node>>())
+                .computeIfAbsent(predicate, k -> new LinkedHashSet<Node>());
+        if (!objects.add(object))
+            return;
+        pos.computeIfAbsent(predicate, k -> new HashMap<Node, ArrayList<Node>>())
+                .computeIfAbsent(object, k -> new ArrayList<Node>()).add(subject);
+        osp.computeIfAbsent(object, k -> new HashMap<Node, ArrayList<Node>>())
+                .computeIfAbsent(subject, k -> new ArrayList<Node>()).add(predicate);
+        size++;
+    }
+
+    /**
+     * Converts a literal into the form returned by a Jena TDB, which stores
+     * numbers, dates and booleans by value.
+     *
+     * @param node,
+     *            the node to be converted
+     * @return the converted node
+     */
+    private Node canonical(Node node) {
+        if (!canonical || !node.isLiteral())
+            return node;
+        NodeId id = NodeId.inline(node);
+        return (id == null) ? node : NodeId.extract(id);
+    }
+
+    /**
+     * Checks if a triple is indexed.
+     *
+     * @param subject,
+     *            the subject of the triple
+     * @param predicate,
+     *            the predicate of the triple
+     * @param object,
+     *            the object of the triple
+     * @return true if the triple is indexed, false otherwise
+     */
+    public boolean contains(Node subject, Node predicate, Node object) {
+        HashMap<Node, LinkedHashSet<Node>> predicates = spo.get(subject);
+        if (predicates == null)
+            return false;
+        LinkedHashSet<Node> objects = predicates.get(predicate);
+        return objects != null && objects.contains(object);
+    }
+
+    /**
+     * Returns the answers of a triple pattern with a single variable.
+     *
+     * @param pattern,
+     *            the triple pattern with converted constants
+     * @return the distinct nodes that the variable can be bound to
+     */
+    private Collection<Node> candidates(Triple pattern) {
+        Collection<Node> answers = null;
+        if (pattern.getSubject().isVariable()) {
+            HashMap<Node, ArrayList<Node>> objects = pos.get(pattern.getPredicate());
+            answers = (objects == null) ? null : objects.get(pattern.getObject());
+        } else if (pattern.getPredicate().isVariable()) {
+            HashMap<Node, ArrayList<Node>> subjects = osp.get(pattern.getObject());
+            answers = (subjects == null) ? null : subjects.get(pattern.getSubject());
+        } else {
+            HashMap<Node, LinkedHashSet<Node>> predicates = spo.get(pattern.getSubject());
+            answers = (predicates == null) ? null : predicates.get(pattern.getPredicate());
+        }
+        return (answers == null) ? Collections.<Node> emptyList() : answers;
+    }
+
+    /**
+     * Computes the answers of a SELECT SPARQL query.
+     *
+     * @param query,
+     *            the SELECT SPARQL query
+     * @return the answers of the query, or null if the query is not supported
+     */
+    public List<Binding> answer(Query query) {
+        // the query must be performed against the indexed graph only
+        if (mixedGraphs || graphName == null || query.getGraphURIs().size() != 1
+                || !query.getGraphURIs().get(0).equals(graphName) || !query.getNamedGraphURIs().isEmpty())
+            return null;
+        ArrayList<Binding> answers = new ArrayList<Binding>();
+        if (!evaluate(Algebra.compile(query), answers))
+            return null;
+        return answers;
+    }
+
+    /**
+     * Computes the answers of a UNION of basic graph patterns.
+     *
+     * @param op,
+     *            the algebra expression of the query
+     * @param answers,
+     *            the list the answers are appended to
+     * @return true if the expression is supported, false otherwise
+     */
+    private boolean evaluate(Op op, List<Binding> answers) {
+        if (op instanceof OpUnion) {
+            OpUnion union = (OpUnion) op;
+            return evaluate(union.getLeft(), answers) && evaluate(union.getRight(), answers);
+        }
+        if (op instanceof OpBGP)
+            return evaluate(((OpBGP) op).getPattern(), answers);
+        return false;
+    }
+
+    /**
+     * Computes the answers of a basic graph pattern whose triple patterns share
+     * a single variable.
+     *
+     * @param bgp,
+     *            the basic graph pattern
+     * @param answers,
+     *            the list the answers are appended to
+     * @return true if the basic graph pattern is supported, false otherwise
+     */
+    private boolean evaluate(BasicPattern bgp, List<Binding> answers) {
+        if (bgp.isEmpty())
+            return false;
+        Var variable = null;
+        ArrayList<Triple> patterns = new ArrayList<Triple>(bgp.size());
+        for (Triple triple : bgp) {
+            Node[] nodes = new Node[] { triple.getSubject(), triple.getPredicate(), triple.getObject() };
+            int variables = 0;
+            for (int i = 0; i < nodes.length; i++) {
+                if (nodes[i].isVariable()) {
+                    variables++;
+                    if (variable == null)
+                        variable = Var.alloc(nodes[i]);
+                    else if (!variable.equals(nodes[i]))
+                        return false;
+                } else
+                    nodes[i] = canonical(nodes[i]);
+            }
+            if (variables != 1)
+                return false;
+            patterns.add(new Triple(nodes[0], nodes[1], nodes[2]));
+        }
+
+        // resolve the most selective pattern and check the others per answer
+        Triple smallest = null;
+        Collection<Node> candidates = null;
+        for (Triple pattern : patterns) {
+            Collection<Node> current = candidates(pattern);
+            if (candidates == null || current.size() < candidates.size()) {
+                smallest = pattern;
+                candidates = current;
+            }
+        }
+        for (Node candidate : candidates) {
+            boolean found = true;
+            for (Triple pattern : patterns) {
+                if (pattern == smallest)
+                    continue;
+                Node subject = pattern.getSubject().isVariable() ? candidate : pattern.getSubject();
+                Node predicate = pattern.getPredicate().isVariable() ? candidate : pattern.getPredicate();
+                Node object = pattern.getObject().isVariable() ? candidate : pattern.getObject();
+                if (!contains(subject, predicate, object)) {
+                    found = false;
+                    break;
+                }
+            }
+            if (found)
+                answers.add(BindingFactory.binding(variable, candidate));
+        }
+        return true;
+    }
+
+    /**
+     * Converts the answers of a SELECT SPARQL query into a result set.
+     *
+     * @param query,
+     *            the SELECT SPARQL query
+     * @param answers,
+     *            the answers of the query
+     * @return the result set
+     */
+    public static ResultSet toResultSet(Query query, List<Binding> answers) {
+        return new ResultSetStream(query.getResultVars(), ModelFactory.createDefaultModel(),
+                new QueryIterPlainWrapper(answers.iterator()));
+    }
+}
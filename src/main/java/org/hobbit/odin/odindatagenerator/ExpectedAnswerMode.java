@@ -0,0 +1,49 @@
+package org.hobbit.odin.odindatagenerator;
+
+import java.io.IOException;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Expected answer mode class. Defines how the Reference Set computes the
+ * expected answers of a SELECT SPARQL query: TDB performs the query against
+ * the reference store, INDEX resolves it with the Expected Answer Engine and
+ * CROSS_CHECK does both and fails if the answers differ.
+ *
+ * @author Kleanthi Georgala (georgala@informatik.uni-leipzig.de)
+ * @version 1.0
+ *
+ */
+public enum ExpectedAnswerMode {
+
+    TDB, INDEX, CROSS_CHECK;
+
+    protected static final Logger logger = Logger.getLogger(ExpectedAnswerMode.class.getName());
+
+    /**
+     * Factory function that returns the correct expected answer mode given a
+     * name.
+     *
+     * @param name,
+     *            the name of the expected answer mode
+     * @return the corresponding expected answer mode
+     * @throws IOException
+     *             if the input name does not correspond to any valid expected
+     *             answer mode
+     */
+    public static ExpectedAnswerMode getExpectedAnswerMode(String name) throws IOException {
+        switch (name) {
+        case ("TDB"):
+            return TDB;
+        case ("INDEX"):
+            return INDEX;
+        case ("CROSS_CHECK"):
+            return CROSS_CHECK;
+        default:
+            logger.error("Unknown expected answer mode: " + name);
+            throw new IOException();
+        }
+
+    }
+
+}
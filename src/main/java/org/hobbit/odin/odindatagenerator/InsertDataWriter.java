@@ -0,0 +1,129 @@
+package org.hobbit.odin.odindatagenerator;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.out.NodeFmtLib;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.apache.log4j.Logger;
+
+/**
+ * Insert Data Writer class. Writes an INSERT DATA SPARQL query of the form
+ * INSERT DATA { GRAPH &lt;g&gt; { ... } } while its triples are received, one
+ * triple per line in N-Triples syntax, so that neither the triples nor the
+ * query are kept in memory. The writer can be used as the destination of an
+ * RDF parser.
+ *
+ * @author Kleanthi Georgala (georgala@informatik.uni-leipzig.de)
+ * @version 1.0
+ *
+ */
+public class InsertDataWriter extends StreamRDFBase {
+    protected static final Logger logger = Logger.getLogger(InsertDataWriter.class.getName());
+
+    /* Output of the query */
+    private Writer writer = null;
+    /* Name of the graph the triples are inserted into, null if default */
+    private String graphName = null;
+    /* Number of written triples */
+    private long size = 0l;
+
+    /* Constructor */
+    public InsertDataWriter(OutputStream out, String graphName) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        this.graphName = graphName;
+    }
+
+    /* Getters */
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public void start() {
+        write("INSERT DATA {\n");
+        if (graphName != null)
+            write("  GRAPH <" + graphName + "> {\n");
+    }
+
+    @Override
+    public void triple(Triple triple) {
+        write((graphName != null) ? "    " : "  ");
+        write(NodeFmtLib.str(triple.getSubject()));
+        write(" ");
+        write(NodeFmtLib.str(triple.getPredicate()));
+        write(" ");
+        write(NodeFmtLib.str(triple.getObject()));
+        write(" .\n");
+        size++;
+    }
+
+    @Override
+    public void finish() {
+        if (graphName != null)
+            write("  }\n");
+        write("}\n");
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            logger.error("Couldn't write INSERT DATA query.");
+            e.printStackTrace();
+            throw new RuntimeException();
+        }
+    }
+
+    private void write(String text) {
+        try {
+            writer.write(text);
+        } catch (IOException e) {
+            logger.error("Couldn't write INSERT DATA query.");
+            e.printStackTrace();
+            throw new RuntimeException();
+        }
+    }
+
+    /**
+     * Writes an INSERT DATA SPARQL query given a set of triples.
+     *
+     * @param triples,
+     *            the triples to be inserted
+     * @param graphName,
+     *            the name of the graph the triples are inserted into, or null
+     *            for the default graph
+     * @param out,
+     *            the output stream of the query
+     * @return the number of written triples
+     */
+    public static long write(Iterable<Triple> triples, String graphName, OutputStream out) {
+        InsertDataWriter writer = new InsertDataWriter(out, graphName);
+        writer.start();
+        for (Triple triple : triples)
+            writer.triple(triple);
+        writer.finish();
+        return writer.getSize();
+    }
+
+    /**
+     * Returns an INSERT DATA SPARQL query given a set of triples as UTF-8
+     * encoded bytes.
+     *
+     * @param triples,
+     *            the triples to be inserted
+     * @param graphName,
+     *            the name of the graph the triples are inserted into, or null
+     *            for the default graph
+     * @return the UTF-8 encoded query
+     */
+    public static byte[] toByteArray(Iterable<Triple> triples, String graphName) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        write(triples, graphName, out);
+        return out.toByteArray();
+    }
+
+}
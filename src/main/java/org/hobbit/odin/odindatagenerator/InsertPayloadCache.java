@@ -0,0 +1,181 @@
+package org.hobbit.odin.odindatagenerator;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Insert Payload Cache class. Serializes the INSERT SPARQL queries of all
+ * streams into the byte arrays sent to the System Adapter before the benchmark
+ * begins, so that sending a query does not read any file. Queries are
+ * serialized in the order they are sent until a memory budget is reached. The
+ * remaining queries are serialized by a background thread that stays a fixed
+ * number of queries ahead of the sending threads. Payloads are released once
+ * they are sent.
+ *
+ * @author Kleanthi Georgala (georgala@informatik.uni-leipzig.de)
+ * @version 1.0
+ *
+ */
+public class InsertPayloadCache {
+    protected static final Logger logger = Logger.getLogger(InsertPayloadCache.class.getName());
+    /* Default number of queries serialized ahead of the sending threads */
+    public static final int DEFAULT_PREFETCH_WINDOW = 16;
+
+    /* Maximum number of bytes of preloaded payloads */
+    private long budget = 0l;
+    /* Number of bytes of preloaded payloads */
+    private long preloadedBytes = 0l;
+    /* Number of preloaded payloads */
+    private int preloadedQueries = 0;
+    /* Number of queries serialized ahead of the sending threads */
+    private int prefetchWindow = DEFAULT_PREFETCH_WINDOW;
+    /* Map with keys the queries and values their preloaded payloads */
+    private ConcurrentHashMap<InsertQueryInfo, byte[]> payloads = new ConcurrentHashMap<InsertQueryInfo, byte[]>();
+    /* Queries that did not fit into the budget, in order of sending */
+    private ArrayList<InsertQueryInfo> lazyQueries = new ArrayList<InsertQueryInfo>();
+    /* Position of the next lazy query to prefetch */
+    private int nextPrefetch = 0;
+    /* Map with keys the queries and values their prefetched payloads */
+    private ConcurrentHashMap<InsertQueryInfo, Future<byte[]>> prefetched = new ConcurrentHashMap<InsertQueryInfo, Future<byte[]>>();
+    /* Lazy queries sent before they were prefetched */
+    private HashSet<InsertQueryInfo> sentEarly = new HashSet<InsertQueryInfo>();
+    /* Background thread of lazy queries */
+    private ExecutorService prefetcher = null;
+
+    /* Constructors */
+    public InsertPayloadCache(long budget) {
+        this.budget = budget;
+    }
+
+    public InsertPayloadCache(long budget, int prefetchWindow) {
+        this.budget = budget;
+        this.prefetchWindow = prefetchWindow;
+    }
+
+    /* Getters */
+    public long getBudget() {
+        return budget;
+    }
+
+    public long getPreloadedBytes() {
+        return preloadedBytes;
+    }
+
+    public int getPreloadedQueries() {
+        return preloadedQueries;
+    }
+
+    public int getLazyQueries() {
+        return lazyQueries.size();
+    }
+
+    public int getRetainedQueries() {
+        return payloads.size() + prefetched.size();
+    }
+
+    /**
+     * Serializes INSERT SPARQL queries until the budget is reached and starts
+     * prefetching the remaining queries.
+     *
+     * @param queries,
+     *            the INSERT SPARQL queries in order of sending
+     */
+    public void preload(List<InsertQueryInfo> queries) {
+        for (InsertQueryInfo query : queries) {
+            if (lazyQueries.isEmpty()) {
+                byte[] payload = query.getUpdateRequestPayload();
+                if (preloadedBytes + payload.length <= budget) {
+                    payloads.put(query, payload);
+                    preloadedBytes += payload.length;
+                    preloadedQueries++;
+                    continue;
+                }
+                // the first query that does not fit is already serialized
+                prefetched.put(query, CompletableFuture.completedFuture(payload));
+                nextPrefetch = 1;
+            }
+            // once a query does not fit, all following queries are lazy so
+            // the prefetcher follows the order of sending
+            lazyQueries.add(query);
+        }
+        logger.info("Preloaded " + preloadedQueries + " INSERT queries (" + preloadedBytes + " bytes), "
+                + lazyQueries.size() + " INSERT queries are prefetched.");
+        if (!lazyQueries.isEmpty()) {
+            prefetcher = Executors.newSingleThreadExecutor();
+            for (int i = nextPrefetch; i < prefetchWindow; i++)
+                prefetchNext();
+        }
+    }
+
+    /**
+     * Submits the next lazy query that was not sent yet to the prefetcher. Its
+     * future is added to the map before it is submitted, so that a sending
+     * thread either finds it or has already marked the query as sent.
+     */
+    private synchronized void prefetchNext() {
+        while (nextPrefetch < lazyQueries.size()) {
+            InsertQueryInfo query = lazyQueries.get(nextPrefetch++);
+            if (sentEarly.remove(query))
+                continue;
+            FutureTask<byte[]> task = new FutureTask<byte[]>(() -> query.getUpdateRequestPayload());
+            prefetched.put(query, task);
+            prefetcher.execute(task);
+            return;
+        }
+    }
+
+    /**
+     * Returns the serialized INSERT SPARQL query and releases its payload.
+     * Preloaded payloads are returned immediately, prefetched payloads are
+     * waited for and all other queries are serialized on the calling thread.
+     *
+     * @param query,
+     *            the INSERT SPARQL query
+     * @return the serialized query
+     */
+    public byte[] getPayload(InsertQueryInfo query) {
+        byte[] payload = payloads.remove(query);
+        if (payload != null)
+            return payload;
+        Future<byte[]> future = null;
+        synchronized (this) {
+            future = prefetched.remove(query);
+            // the prefetcher has not reached the query, so it must skip it
+            if (future == null && nextPrefetch < lazyQueries.size())
+                sentEarly.add(query);
+        }
+        if (future == null)
+            return query.getUpdateRequestPayload();
+        prefetchNext();
+        try {
+            return future.get();
+        } catch (InterruptedException | ExecutionException e) {
+            logger.error("Couldn't prefetch INSERT query " + query.getInsertFile());
+            e.printStackTrace();
+            throw new RuntimeException();
+        }
+    }
+
+    /**
+     * Stops the prefetcher and releases all payloads.
+     */
+    public void close() {
+        if (prefetcher != null)
+            prefetcher.shutdownNow();
+        payloads.clear();
+        prefetched.clear();
+        synchronized (this) {
+            sentEarly.clear();
+        }
+    }
+}
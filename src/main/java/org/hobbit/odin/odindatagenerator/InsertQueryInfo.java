@@ -1,7 +1,6 @@
 package org.hobbit.odin.odindatagenerator;
 
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
@@ -9,18 +8,15 @@ import java.util.ArrayList;
 
 import org.apache.commons.io.Charsets;
 import org.apache.commons.io.FileUtils;
-import org.apache.jena.atlas.io.IndentedWriter;
 import org.apache.jena.graph.Node;
 import org.apache.jena.graph.NodeFactory;
 import org.apache.jena.rdf.model.Model;
-import org.apache.jena.rdf.model.ModelFactory;
 import org.apache.jena.rdf.model.StmtIterator;
-import org.apache.jena.riot.RDFDataMgr;
 import org.apache.jena.sparql.modify.request.QuadAcc;
 import org.apache.jena.sparql.modify.request.UpdateDeleteInsert;
-import org.apache.jena.update.UpdateFactory;
-import org.apache.jena.update.UpdateRequest;
 import org.apache.log4j.Logger;
+import org.hobbit.core.rabbit.RabbitMQUtils;
+import org.hobbit.odin.util.SaturationCodec;
 
 /**
  * Insert Query class. Responsible for creating and storing an INSERT SPARQL
@@ -45,8 +41,28 @@ public class InsertQueryInfo {
     private long modelSize = 0l;
     /* Location file where the model is stored */
     private String modelFile = null;
+    /* Triples of the query, kept until the SELECT query of the stream */
+    private EncodedTriples triples = null;
+    /* Whether the payload reserves space for a time stamp of the saturation mode */
+    private boolean stampReserved = false;
 
     /* Getters and Setters */
+    public boolean isStampReserved() {
+        return stampReserved;
+    }
+
+    public void setStampReserved(boolean stampReserved) {
+        this.stampReserved = stampReserved;
+    }
+
+    public EncodedTriples getTriples() {
+        return triples;
+    }
+
+    public void setTriples(EncodedTriples triples) {
+        this.triples = triples;
+    }
+
     public String getModelFile() {
         return modelFile;
     }
@@ -94,8 +110,8 @@ public class InsertQueryInfo {
 
     /**
      * Creates an INSERT SPARQL query given a set of rdf files. All files are
-     * loaded into a Jena Model and then the Model is converted into an Update
-     * Request. Finally the query is stored into a file using UTF-8 encoding.
+     * loaded into a set of triples and then the triples are written as an
+     * INSERT DATA query into a file using UTF-8 encoding.
      * 
      * @param files,
      *            the set of input files
@@ -105,65 +121,85 @@ public class InsertQueryInfo {
      *            the ID of the query
      */
     public void createInsertQuery(ArrayList<String> files, String outputFolder, int insertCounter, String graphName) {
+        createInsertQuery(files, outputFolder, insertCounter, graphName, new TermDictionary());
+    }
+
+    /**
+     * Creates an INSERT SPARQL query given a set of rdf files. All files are
+     * loaded as ids of a term dictionary, shared by all INSERT and SELECT
+     * queries of a Data Generator, and the triples are converted back into
+     * Jena triples only when the model file and the query are stored using
+     * UTF-8 encoding. The query is written by an Insert Data Writer, one
+     * triple at a time.
+     * 
+     * @param files,
+     *            the set of input files
+     * @param outputFolder,
+     *            the folder to store the query
+     * @param insertCounter,
+     *            the ID of the query
+     * @param graphName,
+     *            the name of the graph the triples are inserted into
+     * @param dictionary,
+     *            the term dictionary of the Data Generator
+     */
+    public void createInsertQuery(ArrayList<String> files, String outputFolder, int insertCounter, String graphName,
+            TermDictionary dictionary) {
+        createInsertQuery(files, outputFolder, insertCounter, graphName, dictionary, new ModelPersister(false));
+    }
+
+    /**
+     * Creates an INSERT SPARQL query given a set of rdf files, as described
+     * above. The triples of the query are kept in memory for the SELECT query
+     * of its stream and the model file is written by a model persister.
+     * 
+     * @param files,
+     *            the set of input files
+     * @param outputFolder,
+     *            the folder to store the query
+     * @param insertCounter,
+     *            the ID of the query
+     * @param graphName,
+     *            the name of the graph the triples are inserted into
+     * @param dictionary,
+     *            the term dictionary of the Data Generator
+     * @param persister,
+     *            the model persister, or null if the model is not stored
+     */
+    public void createInsertQuery(ArrayList<String> files, String outputFolder, int insertCounter, String graphName,
+            TermDictionary dictionary, ModelPersister persister) {
         outputFolder = outputFolder + "insertQueries/";
         File newFolder = new File(outputFolder);
         if (!newFolder.exists())
             newFolder.mkdir();
 
-        Model completeModel = ModelFactory.createDefaultModel();
+        EncodedTriples completeModel = new EncodedTriples(dictionary);
         // create model from the files with the same dilatation factor
         for (String file : files) {
-            Model model = RDFDataMgr.loadModel(file);
-            completeModel.add(model);
+            completeModel.read(file);
         }
-        // save model for the select query
-        modelFile = outputFolder + "model" + insertCounter + ".ttl";
         if(completeModel.size() == 0){
             logger.info("Model with size 0 at "+insertCounter);
             
         }
-        OutputStream o = null;
-        try {
-            o = new FileOutputStream(modelFile);
-            completeModel.write(o, "ttl");
-        } catch (FileNotFoundException e1) {
-            logger.error("Couldn't write model in " + modelFile);
-            e1.printStackTrace();
-            throw new RuntimeException();
-        }
-        try {
-            o.close();
-        } catch (IOException e1) {
-            logger.error("Couldn't close file " + modelFile);
-            e1.printStackTrace();
-            throw new RuntimeException();
+        // keep model for the select query
+        this.triples = completeModel;
+        modelFile = null;
+        if (persister != null) {
+            modelFile = outputFolder + "model" + insertCounter + ".ttl";
+            persister.persist(completeModel, modelFile);
         }
 
-        // create insert query
-        String str = getUpdateQueryFromDiff(ModelFactory.createDefaultModel(), completeModel, graphName);
-        UpdateRequest insertQuery = UpdateFactory.create(str);
-        // save to output
-        OutputStream outStream = null;
+        // stream the insert query into its file
         String fileName = outputFolder + "insertQuery" + insertCounter + ".sparql";
-        try {
-            outStream = new FileOutputStream(fileName);
-        } catch (FileNotFoundException e) {
-            logger.error("Couldn't find file " + fileName);
-            e.printStackTrace();
-            throw new RuntimeException();
-        }
-
-        IndentedWriter out = new IndentedWriter(outStream);
-        insertQuery.output(out);
-
-        try {
-            outStream.close();
+        try (OutputStream outStream = new FileOutputStream(fileName)) {
+            InsertDataWriter.write(completeModel, graphName, outStream);
         } catch (IOException e) {
-            logger.error("Couldn't close file " + fileName);
+            logger.error("Couldn't write file " + fileName);
             e.printStackTrace();
             throw new RuntimeException();
         }
-        
+
         this.insertFile = fileName;
         this.modelSize = completeModel.size();
     }
@@ -231,4 +267,19 @@ public class InsertQueryInfo {
         return fileContent;
     }
 
+    /**
+     * Reads the INSERT SPARQL query from a file and serializes it into the
+     * byte array that is sent to the System Adapter. If a time stamp is
+     * reserved, the payload ends with an empty time stamp, which is written in
+     * place when the query is sent.
+     * 
+     * @return the serialized INSERT SPARQL query
+     */
+    public byte[] getUpdateRequestPayload() {
+        byte[] query = RabbitMQUtils.writeString(getUpdateRequestAsString());
+        if (stampReserved)
+            return RabbitMQUtils.writeByteArrays(new byte[][] { query, new byte[SaturationCodec.STAMP_SIZE] });
+        return RabbitMQUtils.writeByteArrays(new byte[][] { query });
+    }
+
 }
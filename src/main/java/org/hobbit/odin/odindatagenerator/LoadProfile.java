@@ -0,0 +1,122 @@
+package org.hobbit.odin.odindatagenerator;
+
+import java.io.IOException;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Load profile class. Defines how much faster than the original data each
+ * stream is sent: the delays of the INSERT and SELECT SPARQL queries of a
+ * stream are divided by the speedup of the stream. Streams are numbered from
+ * 1 and the first stream always keeps the original delays. With a load factor
+ * f and a load period p, the speedup of stream s is:
+ *
+ * CONSTANT: 1, i.e. all streams keep the original rate.
+ *
+ * LINEAR: 1 + (f - 1) * (s - 1), i.e. the rate grows by f - 1 times the
+ * original rate with every stream.
+ *
+ * STEP: f ^ floor((s - 1) / p), i.e. the rate is multiplied by f every p
+ * streams.
+ *
+ * BURST: f for every p-th stream and 1 for all others, i.e. short spikes of
+ * load on top of the original rate.
+ *
+ * EXPONENTIAL: f ^ (s - 1), i.e. the rate is multiplied by f with every
+ * stream. With f = 2 this is the original schedule of the benchmark.
+ *
+ * SATURATION: 1, i.e. the streams are created with the original rate and the
+ * rate is adjusted during the run by a {@link SaturationController}, until
+ * the highest rate the system keeps up with is found.
+ *
+ * @author Kleanthi Georgala (georgala@informatik.uni-leipzig.de)
+ * @version 1.0
+ *
+ */
+public enum LoadProfile {
+
+    CONSTANT, LINEAR, STEP, BURST, EXPONENTIAL, SATURATION;
+
+    protected static final Logger logger = Logger.getLogger(LoadProfile.class.getName());
+
+    /* Default load factor */
+    public static final double DEFAULT_FACTOR = 2.0;
+    /* Default load period */
+    public static final int DEFAULT_PERIOD = 4;
+
+    /**
+     * Factory function that returns the correct load profile given a name.
+     *
+     * @param name,
+     *            the name of the load profile
+     * @return the corresponding load profile
+     * @throws IOException
+     *             if the input name does not correspond to any valid load
+     *             profile
+     */
+    public static LoadProfile getLoadProfile(String name) throws IOException {
+        switch (name) {
+        case ("CONSTANT"):
+            return CONSTANT;
+        case ("LINEAR"):
+            return LINEAR;
+        case ("STEP"):
+            return STEP;
+        case ("BURST"):
+            return BURST;
+        case ("EXPONENTIAL"):
+            return EXPONENTIAL;
+        case ("SATURATION"):
+            return SATURATION;
+        default:
+            logger.error("Unknown load profile: " + name);
+            throw new IOException();
+        }
+
+    }
+
+    /**
+     * Returns the speedup of a stream.
+     *
+     * @param streamID,
+     *            the id of the stream, beginning with 1
+     * @param factor,
+     *            the load factor, at least 1
+     * @param period,
+     *            the load period in streams, at least 1
+     * @return the number the delays of the stream are divided by
+     */
+    public double getSpeedup(int streamID, double factor, int period) {
+        int stream = streamID - 1;
+        switch (this) {
+        case LINEAR:
+            return 1 + (factor - 1) * stream;
+        case STEP:
+            return Math.pow(factor, stream / period);
+        case BURST:
+            return (stream > 0 && streamID % period == 0) ? factor : 1.0;
+        case EXPONENTIAL:
+            return Math.pow(factor, stream);
+        default:
+            return 1.0;
+        }
+    }
+
+    /**
+     * Divides the delay of a query of a stream by the speedup of the stream.
+     *
+     * @param delay,
+     *            the original delay in milliseconds
+     * @param streamID,
+     *            the id of the stream, beginning with 1
+     * @param factor,
+     *            the load factor, at least 1
+     * @param period,
+     *            the load period in streams, at least 1
+     * @return the new delay in milliseconds
+     */
+    public long getDelay(long delay, int streamID, double factor, int period) {
+        return (long) (delay / getSpeedup(streamID, factor, period));
+    }
+
+}
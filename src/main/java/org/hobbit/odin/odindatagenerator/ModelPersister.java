@@ -0,0 +1,144 @@
+package org.hobbit.odin.odindatagenerator;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import org.apache.jena.graph.Triple;
+import org.apache.log4j.Logger;
+
+/**
+ * Model Persister class. Writes the models of the INSERT SPARQL queries into
+ * Turtle files. The SELECT SPARQL queries are created from the triples the
+ * INSERT queries keep in memory, so the files are only needed after the
+ * streams are created and an asynchronous persister writes them in a
+ * background thread, while the next queries are created. At most a fixed
+ * number of models wait to be written, so that the models kept for writing
+ * are bounded.
+ *
+ * @author Kleanthi Georgala (georgala@informatik.uni-leipzig.de)
+ * @version 1.0
+ *
+ */
+public class ModelPersister {
+    protected static final Logger logger = Logger.getLogger(ModelPersister.class.getName());
+    /* Default maximum number of models waiting to be written */
+    public static final int DEFAULT_PENDING = 8;
+
+    /* Thread writing the models, null if they are written by the caller */
+    private ExecutorService executor = null;
+    /* Models that are written or wait to be written */
+    private ArrayList<Future<?>> pending = new ArrayList<Future<?>>();
+    /* Permits of the models that may wait to be written */
+    private Semaphore permits = null;
+
+    /* Constructors */
+    public ModelPersister(boolean asynchronous) {
+        this(asynchronous, DEFAULT_PENDING);
+    }
+
+    public ModelPersister(boolean asynchronous, int maxPending) {
+        if (asynchronous) {
+            this.executor = Executors.newSingleThreadExecutor();
+            this.permits = new Semaphore(maxPending);
+        }
+    }
+
+    /* Getters */
+    public boolean isAsynchronous() {
+        return executor != null;
+    }
+
+    /**
+     * Writes a set of triples into a Turtle file. An asynchronous persister
+     * copies the triples and returns once they wait to be written.
+     *
+     * @param triples,
+     *            the triples to be written
+     * @param file,
+     *            the Turtle file
+     */
+    public void persist(EncodedTriples triples, String file) {
+        if (executor == null) {
+            write(triples, file);
+            return;
+        }
+        // terms are decoded by the caller, since the dictionary keeps growing
+        final ArrayList<Triple> copy = new ArrayList<Triple>(triples.size());
+        for (Triple triple : triples)
+            copy.add(triple);
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Interrupted while waiting to write " + file);
+            throw new RuntimeException();
+        }
+        try {
+            pending.add(executor.submit(() -> {
+                try {
+                    write(copy, file);
+                } finally {
+                    permits.release();
+                }
+            }));
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes a set of triples into a Turtle file.
+     *
+     * @param triples,
+     *            the triples to be written
+     * @param file,
+     *            the Turtle file
+     */
+    public static void write(Iterable<Triple> triples, String file) {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            EncodedTriples.write(triples, out);
+        } catch (IOException e) {
+            logger.error("Couldn't write model in " + file);
+            e.printStackTrace();
+            throw new RuntimeException();
+        }
+    }
+
+    /**
+     * Waits until all models are written and stops the background thread.
+     * Fails if any of the models could not be written.
+     */
+    public void await() {
+        if (executor == null)
+            return;
+        executor.shutdown();
+        RuntimeException failure = null;
+        for (Future<?> future : pending) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.error("Interrupted while waiting for models to be written.");
+                throw new RuntimeException();
+            } catch (ExecutionException e) {
+                if (failure == null)
+                    failure = new RuntimeException(e.getCause());
+            }
+        }
+        pending.clear();
+        if (failure != null) {
+            logger.error("Couldn't write the models of the INSERT queries.");
+            throw failure;
+        }
+    }
+
+}
@@ -3,12 +3,9 @@ package org.hobbit.odin.odindatagenerator;
 import java.io.*;
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.Map.Entry;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
@@ -19,6 +16,8 @@ import org.hobbit.core.rabbit.RabbitMQUtils;
 import org.hobbit.odin.mimicking.MimickingFactory;
 import org.hobbit.odin.mimicking.MimickingType;
 import org.hobbit.odin.util.OdinConstants;
+import org.hobbit.odin.util.SaturationCodec;
+import org.hobbit.odin.util.TimeStampCodec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,6 +45,52 @@ public class OdinDataGenerator extends AbstractDataGenerator {
     private String DATA_GENERATOR_OUTPUT_DATASET;
     /* Number of insert queries after a select query must be performed */
     private int DATA_GENERATOR_INSERT_QUERIES;
+    /* Number of threads used to pre-process the mimicking output */
+    private int preprocessingThreads = 1;
+    /* Memory budget of serialized INSERT queries in bytes, 0 reads on send */
+    private long insertPayloadBudget = 0l;
+    /* Serialized INSERT queries */
+    private InsertPayloadCache payloadCache = null;
+    /* Number of threads sending queries, 0 depends on the available cores */
+    private int dispatchThreads = 0;
+    /* Maximum number of queries waiting to be sent */
+    private int dispatchQueueSize = DispatchExecutor.DEFAULT_QUEUE_CAPACITY;
+    /* Maximum number of queries a sending thread takes at once */
+    private int dispatchBatchSize = DispatchExecutor.DEFAULT_BATCH_SIZE;
+    /* Store of the triples used to compute the expected answers */
+    private ReferenceStoreType referenceStoreType = ReferenceStoreType.TDB;
+    /* Way of computing the expected answers of the SELECT queries */
+    private ExpectedAnswerMode expectedAnswerMode = ExpectedAnswerMode.TDB;
+    /* Whether artifacts of previous runs with the same parameters are reused */
+    private boolean artifactCache = false;
+    /* Output folder of the streams, the mimicking output folder by default */
+    private String streamsDirectory = null;
+    /* Whether the models of the INSERT queries are stored into files */
+    private boolean persistModels = true;
+    /* Shape of the UNION of the SELECT queries */
+    private UnionShape unionShape = UnionShape.LEFT_DEEP;
+    /* Number of triples whose half is covered by the SELECT queries */
+    private int selectRequestedPatterns = SelectQueryInfo.DEFAULT_REQUESTED_PATTERNS;
+    /* Number of triples sampled for each SELECT query, 0 if all are used */
+    private int selectSampleSize = 0;
+    /* Maximum number of triple patterns of each SELECT query, 0 if unlimited */
+    private int selectMaxPatterns = 0;
+    /* Target number of answers of each SELECT query, 0 if unlimited */
+    private long selectTargetCardinality = 0l;
+    /* Speedup of the streams compared to the original data */
+    private LoadProfile loadProfile = LoadProfile.EXPONENTIAL;
+    /* Load factor of the load profile */
+    private double loadFactor = LoadProfile.DEFAULT_FACTOR;
+    /* Load period of the load profile, in streams */
+    private int loadPeriod = LoadProfile.DEFAULT_PERIOD;
+    /* Target acknowledgement latency of the saturation mode, 0 for the select delay */
+    private long saturationLatency = 0l;
+    /* Additive increase of the speedup of the saturation mode */
+    private double saturationIncrease = SaturationController.DEFAULT_INCREASE;
+    /* Multiplicative decrease of the speedup of the saturation mode */
+    private double saturationDecrease = SaturationController.DEFAULT_DECREASE;
+    /* Rate controller of the saturation mode, null in all other modes */
+    private volatile SaturationController saturation = null;
     /* Initial select query delay */
     private long initialSelectDelay = 1000l;
     private String defaultGraph = null;
@@ -71,8 +116,6 @@ public class OdinDataGenerator extends AbstractDataGenerator {
 
     // private int insertCounter = 0;
     // private int selectCounter = 0;
-    /* Byte array for the Task Generator */
-    private byte[] task;
 
     /* Setters and getters */
     public TreeMap<Integer, Stream> getStreams() {
@@ -123,6 +166,178 @@ public class OdinDataGenerator extends AbstractDataGenerator {
         DATA_GENERATOR_INSERT_QUERIES = dATA_GENERATOR_INSERT_QUERIES;
     }
 
+    public int getPreprocessingThreads() {
+        return preprocessingThreads;
+    }
+
+    public void setPreprocessingThreads(int preprocessingThreads) {
+        this.preprocessingThreads = preprocessingThreads;
+    }
+
+    public long getInsertPayloadBudget() {
+        return insertPayloadBudget;
+    }
+
+    public void setInsertPayloadBudget(long insertPayloadBudget) {
+        this.insertPayloadBudget = insertPayloadBudget;
+    }
+
+    public InsertPayloadCache getPayloadCache() {
+        return payloadCache;
+    }
+
+    public int getDispatchThreads() {
+        return dispatchThreads;
+    }
+
+    public void setDispatchThreads(int dispatchThreads) {
+        this.dispatchThreads = dispatchThreads;
+    }
+
+    public int getDispatchQueueSize() {
+        return dispatchQueueSize;
+    }
+
+    public void setDispatchQueueSize(int dispatchQueueSize) {
+        this.dispatchQueueSize = dispatchQueueSize;
+    }
+
+    public int getDispatchBatchSize() {
+        return dispatchBatchSize;
+    }
+
+    public void setDispatchBatchSize(int dispatchBatchSize) {
+        this.dispatchBatchSize = dispatchBatchSize;
+    }
+
+    public ReferenceStoreType getReferenceStoreType() {
+        return referenceStoreType;
+    }
+
+    public void setReferenceStoreType(ReferenceStoreType referenceStoreType) {
+        this.referenceStoreType = referenceStoreType;
+    }
+
+    public ExpectedAnswerMode getExpectedAnswerMode() {
+        return expectedAnswerMode;
+    }
+
+    public void setExpectedAnswerMode(ExpectedAnswerMode expectedAnswerMode) {
+        this.expectedAnswerMode = expectedAnswerMode;
+    }
+
+    public boolean isArtifactCache() {
+        return artifactCache;
+    }
+
+    public void setArtifactCache(boolean artifactCache) {
+        this.artifactCache = artifactCache;
+    }
+
+    public UnionShape getUnionShape() {
+        return unionShape;
+    }
+
+    public void setUnionShape(UnionShape unionShape) {
+        this.unionShape = unionShape;
+    }
+
+    public int getSelectRequestedPatterns() {
+        return selectRequestedPatterns;
+    }
+
+    public void setSelectRequestedPatterns(int selectRequestedPatterns) {
+        this.selectRequestedPatterns = selectRequestedPatterns;
+    }
+
+    public int getSelectSampleSize() {
+        return selectSampleSize;
+    }
+
+    public void setSelectSampleSize(int selectSampleSize) {
+        this.selectSampleSize = selectSampleSize;
+    }
+
+    public int getSelectMaxPatterns() {
+        return selectMaxPatterns;
+    }
+
+    public void setSelectMaxPatterns(int selectMaxPatterns) {
+        this.selectMaxPatterns = selectMaxPatterns;
+    }
+
+    public long getSelectTargetCardinality() {
+        return selectTargetCardinality;
+    }
+
+    public void setSelectTargetCardinality(long selectTargetCardinality) {
+        this.selectTargetCardinality = selectTargetCardinality;
+    }
+
+    public LoadProfile getLoadProfile() {
+        return loadProfile;
+    }
+
+    public void setLoadProfile(LoadProfile loadProfile) {
+        this.loadProfile = loadProfile;
+    }
+
+    public double getLoadFactor() {
+        return loadFactor;
+    }
+
+    public void setLoadFactor(double loadFactor) {
+        this.loadFactor = loadFactor;
+    }
+
+    public int getLoadPeriod() {
+        return loadPeriod;
+    }
+
+    public void setLoadPeriod(int loadPeriod) {
+        this.loadPeriod = loadPeriod;
+    }
+
+    public long getSaturationLatency() {
+        return saturationLatency;
+    }
+
+    public void setSaturationLatency(long saturationLatency) {
+        this.saturationLatency = saturationLatency;
+    }
+
+    public double getSaturationIncrease() {
+        return saturationIncrease;
+    }
+
+    public void setSaturationIncrease(double saturationIncrease) {
+        this.saturationIncrease = saturationIncrease;
+    }
+
+    public double getSaturationDecrease() {
+        return saturationDecrease;
+    }
+
+    public void setSaturationDecrease(double saturationDecrease) {
+        this.saturationDecrease = saturationDecrease;
+    }
+
+    public boolean isPersistModels() {
+        return persistModels;
+    }
+
+    public void setPersistModels(boolean persistModels) {
+        this.persistModels = persistModels;
+    }
+
+    public String getStreamsDirectory() {
+        return (streamsDirectory == null) ? getDATA_GENERATOR_OUTPUT_DATASET() : streamsDirectory;
+    }
+
+    public void setStreamsDirectory(String streamsDirectory) {
+        this.streamsDirectory = streamsDirectory;
+    }
+
     public boolean isFlag() {
         return flag;
     }
@@ -179,11 +394,20 @@ public class OdinDataGenerator extends AbstractDataGenerator {
 
         @Override
         public void run() {
-            // retrieve insert query
-            String insert = this.insertQuery.getUpdateRequestAsString();
-            // serialize insert query into a byte array and send it to the
-            // system adapter
-            sentToSystemAdapter(RabbitMQUtils.writeByteArrays(new byte[][] { RabbitMQUtils.writeString(insert) }));
+            // retrieve the serialized insert query and send it to the system
+            // adapter
+            byte[] data = null;
+            if (payloadCache != null)
+                data = payloadCache.getPayload(this.insertQuery);
+            else
+                data = this.insertQuery.getUpdateRequestPayload();
+            SaturationController controller = saturation;
+            if (controller != null && this.insertQuery.isStampReserved()) {
+                // the system adapter returns the time stamp in its feedback
+                SaturationCodec.writeStamp(data, getGeneratorId(), System.currentTimeMillis());
+                controller.recordSent(this.insertQuery.getModelSize());
+            }
+            sentToSystemAdapter(data);
         }
 
         /**
@@ -233,27 +457,21 @@ public class OdinDataGenerator extends AbstractDataGenerator {
 
         @Override
         public void run() {
-
-            String select = this.selectQuery.getSelectQueryAsString();
-            byte[] expectedAnswers = this.selectQuery.getExpectedAnswers();
-            // select query, modelsize, begin point, end point, answers
-            byte[][] answers = new byte[4][];
-            answers[0] = RabbitMQUtils.writeString(select);
-            answers[1] = RabbitMQUtils.writeString(String.valueOf(this.modelSize));
-            answers[2] = RabbitMQUtils.writeString(String.valueOf(this.beginPoint));
-            answers[3] = expectedAnswers;
-            setTask(RabbitMQUtils.writeByteArrays(answers));
-
-            sentToTaskGenerator();
+            // the task is assembled by each thread, since SELECT queries of
+            // overlapping streams may be sent at the same time
+            sentToTaskGenerator(this.selectQuery.getTaskPayload(this.modelSize, this.beginPoint));
         }
 
         /**
          * Sends SELECT SPARQL as a byte array to the Task Generator.
+         * 
+         * @param data,
+         *            the byte array to send to the Task Generator
          */
-        public void sentToTaskGenerator() {
+        public void sentToTaskGenerator(byte[] data) {
             if (isFlag() == true) {
                 try {
-                    sendDataToTaskGenerator(getTask());
+                    sendDataToTaskGenerator(data);
                 } catch (IOException e) {
                     e.printStackTrace();
                     LOGGER.error("Couldn't send data to task generator.");
@@ -273,13 +491,28 @@ public class OdinDataGenerator extends AbstractDataGenerator {
         this.internalInit();
 
         this.defaultGraph = "http://www.graph" + this.getGeneratorId() + ".com/";
-        LOGGER.info("Invoking mimicking algorithm: " + this.getDATA_GENERATOR_DATASET_NAME());
-        // call mimicking algorithm
-        runMimicking();
-
-        LOGGER.info("Divinding data based on the original generation time stamps.");
-        // divide data into files based on their generation time stamp
-        divideData();
+        ArtifactCache cache = null;
+        String preprocessingKey = null;
+        if (isArtifactCache()) {
+            cache = new ArtifactCache(getDATA_GENERATOR_OUTPUT_DATASET());
+            preprocessingKey = ArtifactCache.hash(getDATA_GENERATOR_DATASET_NAME(), getDATA_GENERATOR_POPULATION(),
+                    getDATA_GENERATOR_SEED(), this.getGeneratorId());
+        }
+        if (cache != null && cache.isPreprocessingValid(preprocessingKey)) {
+            LOGGER.info(this.getGeneratorId() + " Reusing mimicking output of " + getDATA_GENERATOR_OUTPUT_DATASET());
+        } else {
+            if (cache != null)
+                cache.clear();
+            LOGGER.info("Invoking mimicking algorithm: " + this.getDATA_GENERATOR_DATASET_NAME());
+            // call mimicking algorithm
+            runMimicking();
+
+            LOGGER.info("Divinding data based on the original generation time stamps.");
+            // divide data into files based on their generation time stamp
+            divideData();
+            if (cache != null)
+                cache.setPreprocessing(preprocessingKey);
+        }
 
         LOGGER.info("Assigning set of triples to time stamps.");
         TreeMap<Long, String> files = assignFilesToTimeStamps();
@@ -292,16 +525,78 @@ public class OdinDataGenerator extends AbstractDataGenerator {
 
         minMaxTimestampMutex.acquire();
 
-        // convert old time stamps to new time stamps
-        LOGGER.info(this.getGeneratorId() + " Converting time stamps to benchmark interval.");
-        Map<Long, ArrayList<String>> insertList = convertTimeStampsToNewInterval(files);
-        // divide insert queries into streams
-        LOGGER.info(this.getGeneratorId() + " Creating streams..");
-        createStreams(insertList);
+        String streamsKey = null;
+        if (cache != null) {
+            // the streams depend on the overall min and max time stamps too
+            streamsKey = ArtifactCache.hash(preprocessingKey, getBenchmarkEndPoint(),
+                    getDATA_GENERATOR_INSERT_QUERIES(), datasetBeginPoint, datasetEndPoint, this.getGeneratorId(),
+                    defaultGraph, initialSelectDelay, getReferenceStoreType(), getExpectedAnswerMode(),
+                    getUnionShape(), getSelectRequestedPatterns(), getSelectSampleSize(), getSelectMaxPatterns(),
+                    getSelectTargetCardinality(), getLoadProfile(), getLoadFactor(), getLoadPeriod());
+            setStreamsDirectory(cache.getStreamsDirectory(streamsKey));
+            TreeMap<Integer, Stream> cached = cache.loadStreams(streamsKey);
+            if (cached != null) {
+                LOGGER.info(this.getGeneratorId() + " Reusing streams of " + getStreamsDirectory());
+                setStreams(cached);
+            }
+        }
+        if (cache == null || streams.isEmpty()) {
+            if (cache != null)
+                cache.clearStreams(streamsKey);
+            // convert old time stamps to new time stamps
+            LOGGER.info(this.getGeneratorId() + " Converting time stamps to benchmark interval.");
+            Map<Long, ArrayList<String>> insertList = convertTimeStampsToNewInterval(files);
+            // divide insert queries into streams
+            LOGGER.info(this.getGeneratorId() + " Creating streams..");
+            createStreams(insertList);
+            if (cache != null)
+                cache.saveStreams(streamsKey, streams);
+        }
+        // the saturation mode writes the time each INSERT query is sent into
+        // its payload, without copying it
+        if (getLoadProfile() == LoadProfile.SATURATION) {
+            for (Stream stream : streams.values()) {
+                for (InsertQueryInfo insertQuery : stream.getInsertQueries())
+                    insertQuery.setStampReserved(true);
+            }
+        }
+        // serialize insert queries before the benchmark begins
+        preloadInsertQueries();
+        // serialize select queries and their reference sets
+        preloadSelectQueries();
         LOGGER.info(this.getGeneratorId() + " Initialization is over.");
 
     }
 
+    /**
+     * Serializes the INSERT SPARQL queries of all streams in order of sending,
+     * up to the memory budget of serialized queries. Remaining queries are
+     * serialized in the background while the benchmark runs.
+     */
+    public void preloadInsertQueries() {
+        if (getInsertPayloadBudget() <= 0)
+            return;
+        ArrayList<InsertQueryInfo> queries = new ArrayList<InsertQueryInfo>();
+        for (Stream stream : streams.values())
+            queries.addAll(stream.getInsertQueries());
+        payloadCache = new InsertPayloadCache(getInsertPayloadBudget());
+        payloadCache.preload(queries);
+    }
+
+    /**
+     * Serializes the SELECT SPARQL query and reads the reference set of all
+     * streams, so that sending a SELECT query does not read any file.
+     */
+    public void preloadSelectQueries() {
+        long bytes = 0l;
+        for (Stream stream : streams.values()) {
+            SelectQueryInfo selectQuery = stream.getSelectQuery();
+            selectQuery.preparePayload();
+            bytes += selectQuery.getPayloadSize();
+        }
+        LOGGER.info(this.getGeneratorId() + " Prepared " + streams.size() + " SELECT queries (" + bytes + " bytes)");
+    }
+
     public void createOutputDirectory(String name) {
         setDATA_GENERATOR_OUTPUT_DATASET(name);
         if (!getDATA_GENERATOR_OUTPUT_DATASET().endsWith("/"))
@@ -323,8 +618,11 @@ public class OdinDataGenerator extends AbstractDataGenerator {
                 }
             }
         }
+        // with the artifact cache, runs that only differ in the number of
+        // insert queries share the mimicking output
+        String insertQueries = isArtifactCache() ? "" : "_" + this.getDATA_GENERATOR_INSERT_QUERIES();
         setDATA_GENERATOR_OUTPUT_DATASET(getDATA_GENERATOR_OUTPUT_DATASET() + this.getDATA_GENERATOR_DATASET_NAME()
-                + "_" + this.getDATA_GENERATOR_POPULATION() + "_" + this.getDATA_GENERATOR_INSERT_QUERIES() + "/input_"
+                + "_" + this.getDATA_GENERATOR_POPULATION() + insertQueries + "/input_"
                 + String.valueOf(Integer.valueOf(getDATA_GENERATOR_SEED())) + "/");
         success = false;
         directory = new File(getDATA_GENERATOR_OUTPUT_DATASET());
@@ -392,6 +690,138 @@ public class OdinDataGenerator extends AbstractDataGenerator {
         }
         setBenchmarkEndPoint(Long.parseLong(env.get(OdinConstants.GENERATOR_BENCHMARK_DURATION)));
 
+        /* number of pre-processing threads, optional */
+        if (env.containsKey(OdinConstants.GENERATOR_PREPROCESSING_THREADS)) {
+            int threads = Integer.parseInt(env.get(OdinConstants.GENERATOR_PREPROCESSING_THREADS));
+            // non-positive values use all available cores
+            if (threads <= 0)
+                threads = Runtime.getRuntime().availableProcessors();
+            setPreprocessingThreads(threads);
+        }
+
+        /* memory budget of serialized insert queries in MB, optional */
+        if (env.containsKey(OdinConstants.GENERATOR_INSERT_PAYLOAD_BUDGET)) {
+            long budget = Long.parseLong(env.get(OdinConstants.GENERATOR_INSERT_PAYLOAD_BUDGET));
+            setInsertPayloadBudget(budget * 1024l * 1024l);
+        }
+
+        /* number of threads sending queries, optional */
+        if (env.containsKey(OdinConstants.GENERATOR_DISPATCH_THREADS)) {
+            setDispatchThreads(Integer.parseInt(env.get(OdinConstants.GENERATOR_DISPATCH_THREADS)));
+        }
+
+        /* maximum number of queries waiting to be sent, optional */
+        if (env.containsKey(OdinConstants.GENERATOR_DISPATCH_QUEUE_SIZE)) {
+            setDispatchQueueSize(Integer.parseInt(env.get(OdinConstants.GENERATOR_DISPATCH_QUEUE_SIZE)));
+        }
+
+        /* maximum number of queries a sending thread takes at once, optional */
+        if (env.containsKey(OdinConstants.GENERATOR_DISPATCH_BATCH_SIZE)) {
+            setDispatchBatchSize(Integer.parseInt(env.get(OdinConstants.GENERATOR_DISPATCH_BATCH_SIZE)));
+        }
+
+        /* store of the reference set, optional */
+        if (env.containsKey(OdinConstants.GENERATOR_REFERENCE_STORE)) {
+            try {
+                setReferenceStoreType(
+                        ReferenceStoreType.getReferenceStoreType(env.get(OdinConstants.GENERATOR_REFERENCE_STORE)));
+            } catch (IOException e) {
+                LOGGER.error("Couldn't get \"" + OdinConstants.GENERATOR_REFERENCE_STORE
+                        + "\" from the properties. Aborting.");
+                throw new RuntimeException();
+            }
+        }
+
+        /* way of computing the expected answers, optional */
+        if (env.containsKey(OdinConstants.GENERATOR_EXPECTED_ANSWERS)) {
+            try {
+                setExpectedAnswerMode(
+                        ExpectedAnswerMode.getExpectedAnswerMode(env.get(OdinConstants.GENERATOR_EXPECTED_ANSWERS)));
+            } catch (IOException e) {
+                LOGGER.error("Couldn't get \"" + OdinConstants.GENERATOR_EXPECTED_ANSWERS
+                        + "\" from the properties. Aborting.");
+                throw new RuntimeException();
+            }
+        }
+
+        /* reuse of artifacts of previous runs, optional */
+        if (env.containsKey(OdinConstants.GENERATOR_ARTIFACT_CACHE)) {
+            setArtifactCache(Boolean.parseBoolean(env.get(OdinConstants.GENERATOR_ARTIFACT_CACHE)));
+        }
+
+        /* storage of the models of the insert queries, optional */
+        if (env.containsKey(OdinConstants.GENERATOR_PERSIST_MODELS)) {
+            setPersistModels(Boolean.parseBoolean(env.get(OdinConstants.GENERATOR_PERSIST_MODELS)));
+        }
+
+        /* shape of the union of the select queries, optional */
+        if (env.containsKey(OdinConstants.GENERATOR_UNION_SHAPE)) {
+            try {
+                setUnionShape(UnionShape.getUnionShape(env.get(OdinConstants.GENERATOR_UNION_SHAPE)));
+            } catch (IOException e) {
+                LOGGER.error("Couldn't get \"" + OdinConstants.GENERATOR_UNION_SHAPE
+                        + "\" from the properties. Aborting.");
+                throw new RuntimeException();
+            }
+        }
+
+        /* number of requested patterns of the select queries, optional */
+        if (env.containsKey(OdinConstants.GENERATOR_SELECT_REQUESTED_PATTERNS)) {
+            setSelectRequestedPatterns(Integer.parseInt(env.get(OdinConstants.GENERATOR_SELECT_REQUESTED_PATTERNS)));
+        }
+
+        /* sample size of the select queries, optional */
+        if (env.containsKey(OdinConstants.GENERATOR_SELECT_SAMPLE_SIZE)) {
+            setSelectSampleSize(Integer.parseInt(env.get(OdinConstants.GENERATOR_SELECT_SAMPLE_SIZE)));
+        }
+
+        /* maximum number of triple patterns of the select queries, optional */
+        if (env.containsKey(OdinConstants.GENERATOR_SELECT_MAX_PATTERNS)) {
+            setSelectMaxPatterns(Integer.parseInt(env.get(OdinConstants.GENERATOR_SELECT_MAX_PATTERNS)));
+        }
+
+        /* target cardinality of the select queries, optional */
+        if (env.containsKey(OdinConstants.GENERATOR_SELECT_TARGET_CARDINALITY)) {
+            setSelectTargetCardinality(
+                    Long.parseLong(env.get(OdinConstants.GENERATOR_SELECT_TARGET_CARDINALITY)));
+        }
+
+        /* load profile of the streams, optional */
+        if (env.containsKey(OdinConstants.GENERATOR_LOAD_PROFILE)) {
+            try {
+                setLoadProfile(LoadProfile.getLoadProfile(env.get(OdinConstants.GENERATOR_LOAD_PROFILE)));
+            } catch (IOException e) {
+                LOGGER.error("Couldn't get \"" + OdinConstants.GENERATOR_LOAD_PROFILE
+                        + "\" from the properties. Aborting.");
+                throw new RuntimeException();
+            }
+        }
+
+        /* load factor of the load profile, optional */
+        if (env.containsKey(OdinConstants.GENERATOR_LOAD_FACTOR)) {
+            setLoadFactor(Double.parseDouble(env.get(OdinConstants.GENERATOR_LOAD_FACTOR)));
+        }
+
+        /* load period of the load profile, optional */
+        if (env.containsKey(OdinConstants.GENERATOR_LOAD_PERIOD)) {
+            setLoadPeriod(Integer.parseInt(env.get(OdinConstants.GENERATOR_LOAD_PERIOD)));
+        }
+
+        /* target latency of the saturation mode, optional */
+        if (env.containsKey(OdinConstants.GENERATOR_SATURATION_LATENCY)) {
+            setSaturationLatency(Long.parseLong(env.get(OdinConstants.GENERATOR_SATURATION_LATENCY)));
+        }
+
+        /* additive increase of the saturation mode, optional */
+        if (env.containsKey(OdinConstants.GENERATOR_SATURATION_INCREASE)) {
+            setSaturationIncrease(Double.parseDouble(env.get(OdinConstants.GENERATOR_SATURATION_INCREASE)));
+        }
+
+        /* multiplicative decrease of the saturation mode, optional */
+        if (env.containsKey(OdinConstants.GENERATOR_SATURATION_DECREASE)) {
+            setSaturationDecrease(Double.parseDouble(env.get(OdinConstants.GENERATOR_SATURATION_DECREASE)));
+        }
+
         /* output folder of mimicking */
         if (!env.containsKey(OdinConstants.GENERATOR_MIMICKING_OUTPUT)) {
             LOGGER.error(
@@ -513,6 +943,7 @@ public class OdinDataGenerator extends AbstractDataGenerator {
         DataProcessor dataProcessor = null;
         dataProcessor = new DataProcessor(getDATA_GENERATOR_OUTPUT_DATASET(), getDATA_GENERATOR_DATASET_NAME(),
                 this.getGeneratorId());
+        dataProcessor.setThreads(getPreprocessingThreads());
         dataProcessor.divideData();
     }
 
@@ -573,13 +1004,38 @@ public class OdinDataGenerator extends AbstractDataGenerator {
      *            files
      */
     public void createStreams(Map<Long, ArrayList<String>> insertList) {
+        ReferenceSet reference = new ReferenceSet(getStreamsDirectory() + "TDB",
+                getReferenceStoreType(), getExpectedAnswerMode(), getPreprocessingThreads());
+        try {
+            createStreams(insertList, reference);
+        } finally {
+            // the threads of the SELECT queries are stopped even if the
+            // streams could not be created
+            reference.shutdown();
+        }
+    }
+
+    /**
+     * Creates streams of triple data as described above, loading the triples
+     * into a given reference set.
+     * 
+     * @param insertList,
+     *            the map of unique time stamps and their corresponding triple
+     *            files
+     * @param reference,
+     *            the reference set of the SELECT queries
+     */
+    private void createStreams(Map<Long, ArrayList<String>> insertList, ReferenceSet reference) {
 
         long originalPreviousTS = 0l;
         long newPreviousTS = 0l;
         // stream IDs begin with 1
         int streamID = 1;
         int iCounter = 1;
-        ReferenceSet reference = new ReferenceSet(getDATA_GENERATOR_OUTPUT_DATASET() + "TDB");
+        // terms of all INSERT and SELECT queries of the streams
+        TermDictionary dictionary = new TermDictionary();
+        // models of the INSERT queries are stored in the background
+        ModelPersister persister = isPersistModels() ? new ModelPersister(true) : null;
 
         int rest = insertList.size() % getDATA_GENERATOR_INSERT_QUERIES();
         int d = insertList.size() / getDATA_GENERATOR_INSERT_QUERIES();
@@ -589,10 +1045,12 @@ public class OdinDataGenerator extends AbstractDataGenerator {
             Long originalCurrentTS = entry.getKey();
             ArrayList<String> files = entry.getValue();
 
-            // insert triple into Jena TDB
-            reference.updateTDB(files, defaultGraph);
+            // insert triple into Jena TDB, committed by the SELECT query of
+            // the stream
+            reference.loadTDB(files, defaultGraph);
 
-            long delay = (long) ((originalCurrentTS - originalPreviousTS) / (Math.pow(2, (streamID - 1))));
+            long delay = getLoadProfile().getDelay(originalCurrentTS - originalPreviousTS, streamID,
+                    getLoadFactor(), getLoadPeriod());
             // last stream must have 0 delay
             if (d > 1) { // if there is only one stream, keep original delays
                 if (rest == 0) {
@@ -615,7 +1073,8 @@ public class OdinDataGenerator extends AbstractDataGenerator {
             long newCurrentTS = newPreviousTS + delay;
 
             InsertQueryInfo insert = new InsertQueryInfo(newCurrentTS, delay);
-            insert.createInsertQuery(files, getDATA_GENERATOR_OUTPUT_DATASET(), iCounter, this.defaultGraph);
+            insert.createInsertQuery(files, getStreamsDirectory(), iCounter, this.defaultGraph, dictionary,
+                    persister);
 
             originalPreviousTS = originalCurrentTS;
             newPreviousTS = newCurrentTS;
@@ -636,7 +1095,8 @@ public class OdinDataGenerator extends AbstractDataGenerator {
 
                 // create the select query of the stream
                 SelectQueryInfo selectQuery = new SelectQueryInfo();
-                long selectQueryDelay = (long) (this.initialSelectDelay / Math.pow(2, (streamID - 1)));
+                long selectQueryDelay = getLoadProfile().getDelay(this.initialSelectDelay, streamID,
+                        getLoadFactor(), getLoadPeriod());
                 if (d > 1) { // if there is only one stream, keep original
                              // delays
                     if (rest == 0) {
@@ -660,14 +1120,24 @@ public class OdinDataGenerator extends AbstractDataGenerator {
                 selectQuery.setDelay(selectQueryDelay);
                 // set its time stamp
                 selectQuery.setTimeStamp(selectQueryTS);
+                selectQuery.setUnionShape(getUnionShape());
+                selectQuery.setMaxRequestedPatterns(getSelectRequestedPatterns());
+                selectQuery.setMaxPatterns(getSelectMaxPatterns());
+                selectQuery.setTargetCardinality(getSelectTargetCardinality());
+                selectQuery.setSampleSize(getSelectSampleSize());
+                // each stream draws its own sample
+                selectQuery.setSampleSeed(Long.parseLong(getDATA_GENERATOR_SEED()) * 31 + streamID);
                 // create the select query given the last insert query of the
                 // current batch
-                selectQuery.createSelectQuery(insertQueries, getDATA_GENERATOR_OUTPUT_DATASET(), streamID,
-                        defaultGraph);
-                // create a reference set for this select query
-
-                String resultSetFile = reference.queryTDB(selectQuery.getSelectQueryAsString(),
-                        getDATA_GENERATOR_OUTPUT_DATASET(), streamID);
+                selectQuery.createSelectQuery(insertQueries, getStreamsDirectory(), streamID,
+                        defaultGraph, dictionary);
+                // the triples of the INSERT queries are no longer needed
+                for (InsertQueryInfo insertQuery : insertQueries)
+                    insertQuery.setTriples(null);
+                // create a reference set for this select query, performed in
+                // the background while the next streams are loaded
+                String resultSetFile = reference.submitQuery(selectQuery.getSelectQueryAsString(),
+                        getStreamsDirectory(), streamID);
                 // store the reference set location
                 selectQuery.setAnswersFile(resultSetFile);
                 // add select query to the stream
@@ -687,6 +1157,12 @@ public class OdinDataGenerator extends AbstractDataGenerator {
             iCounter++;
 
         }
+        reference.commit();
+        reference.awaitQueries();
+        if (persister != null)
+            persister.await();
+        reference.logStatistics();
+        LOGGER.info(this.getGeneratorId() + " Number of distinct terms: " + dictionary.size());
     }
 
     @Override
@@ -698,13 +1174,18 @@ public class OdinDataGenerator extends AbstractDataGenerator {
             minMaxTimestampMutex.release();
         } else if (OdinConstants.BULK_LOAD_FROM_CONTROLLER == command) {
             bulkLoadMutex.release();
+        } else if (OdinConstants.FEEDBACK_FROM_SYSTEM_ADAPTER == command) {
+            SaturationController controller = saturation;
+            if (controller != null)
+                controller.onFeedback(data, getGeneratorId(), System.currentTimeMillis());
         }
         super.receiveCommand(command, data);
 
     }
 
     /**
-     * Assigns a set of files to a unique time stamp.
+     * Assigns a set of files to a unique time stamp. Time stamps are converted
+     * into microseconds.
      * 
      * @return a map where the keys are the unique time stamps and the values
      *         are a set of files that include triples that were generated at
@@ -713,6 +1194,7 @@ public class OdinDataGenerator extends AbstractDataGenerator {
     public TreeMap<Long, String> assignFilesToTimeStamps() {
 
         TreeMap<Long, String> files = new TreeMap<Long, String>();
+        TimeStampCodec codec = TimeStampCodec.getCodec();
 
         BufferedReader TSVFile = null;
         try {
@@ -722,24 +1204,12 @@ public class OdinDataGenerator extends AbstractDataGenerator {
                 try {
                     String timeStamp = dataRow.split("\t")[0];
                     String fileName = dataRow.split("\t")[1];
-                    SimpleDateFormat df = null;
-
-                    if (this.getDATA_GENERATOR_DATASET_NAME().equals("TWIG"))
-                        df = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
-                    else if (this.getDATA_GENERATOR_DATASET_NAME().equals("TT"))
-                        df = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSSSS");
-                    else if (this.getDATA_GENERATOR_DATASET_NAME().equals("OBS"))
-                        df = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
-                    else
-                        df = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSSSS");
-                    Date date = df.parse(timeStamp);
-
-                    long newTimeStamp = date.getTime();
+                    long newTimeStamp = codec.toMicros(timeStamp);
                     files.put(newTimeStamp, fileName);
                     dataRow = TSVFile.readLine();
-                } catch (IOException | ParseException e) {
+                } catch (IOException | DateTimeParseException e) {
                     e.printStackTrace();
-                    if (e instanceof ParseException)
+                    if (e instanceof DateTimeParseException)
                         LOGGER.error(this.getGeneratorId() + " Couldn't parse date in " + dataRow);
                     else
                         LOGGER.error(this.getGeneratorId() + " Couldn't read next line ");
@@ -780,9 +1250,28 @@ public class OdinDataGenerator extends AbstractDataGenerator {
         //////////////////////////////////////////////////////////////////////////////////
 
         LOGGER.info("Data Generator " + this.getGeneratorId() + " is running..");
-        int poolSize = streams.values().size() + streams.size();
-        ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+        int poolSize = dispatchThreads;
+        // non-positive values use two threads per core, but never more than
+        // two threads per stream
+        if (poolSize <= 0)
+            poolSize = Math.max(1, Math.min(2 * Runtime.getRuntime().availableProcessors(),
+                    streams.values().size() + streams.size()));
+        DispatchExecutor executor = new DispatchExecutor(poolSize, dispatchQueueSize, dispatchBatchSize);
         LOGGER.info(this.getGeneratorId() + ": number of streams: " + streams.size());
+        // each query is sent at the sum of the delays of all queries before
+        // it, measured from the beginning of the loop
+        DeadlineScheduler scheduler = new DeadlineScheduler();
+        long deadline = 0l;
+        SaturationController controller = null;
+        if (getLoadProfile() == LoadProfile.SATURATION) {
+            // by default, INSERT queries must be acknowledged before the
+            // SELECT query of their stream is sent
+            long latency = (getSaturationLatency() > 0) ? getSaturationLatency() : this.initialSelectDelay;
+            controller = new SaturationController(latency, getSaturationIncrease(), getSaturationDecrease());
+            controller.start(System.currentTimeMillis());
+            saturation = controller;
+        }
+        scheduler.start();
         // for each time stamp
         for (Entry<Integer, Stream> entry : streams.entrySet()) {
 
@@ -798,7 +1287,8 @@ public class OdinDataGenerator extends AbstractDataGenerator {
                 InsertQueryInfo currentInsertQuery = insertQueries.get(i);
                 InsertThread insertThread = new InsertThread(currentInsertQuery);
                 //LOGGER.info("Delay for I " + currentInsertQuery.getDelay());
-                Thread.sleep(currentInsertQuery.getDelay());
+                deadline += getDelayNanos(controller, currentInsertQuery.getDelay());
+                scheduler.awaitDeadline(deadline);
                 if (i == 0) {
                     streamBeginPoint = System.currentTimeMillis();
                 }
@@ -811,26 +1301,59 @@ public class OdinDataGenerator extends AbstractDataGenerator {
             long modelSize = stream.getStreamModelSize();
             SelectThread selectThread = new SelectThread(selectQuery, modelSize, streamBeginPoint);
             LOGGER.info("Delay for S " + selectQuery.getDelay());
-            Thread.sleep(selectQuery.getDelay());
+            deadline += getDelayNanos(controller, selectQuery.getDelay());
+            scheduler.awaitDeadline(deadline);
             executor.execute(selectThread);
 
         }
+        scheduler.logStatistics("Data Generator " + this.getGeneratorId());
         executor.shutdown();
         executor.awaitTermination(2, TimeUnit.HOURS);
+        executor.logStatistics("Data Generator " + this.getGeneratorId());
+        if (payloadCache != null)
+            payloadCache.close();
+        if (controller != null) {
+            saturation = null;
+            reportSaturation(controller);
+        }
         LOGGER.info("Data Generator " + this.getGeneratorId() + " is done.");
 
     }
 
-    public void setDatasetBeginPoint(long datasetBeginPoint) {
-        this.datasetBeginPoint = datasetBeginPoint;
+    /**
+     * Returns the delay of a query in nanoseconds, divided by the speedup of
+     * the saturation mode if it is enabled.
+     * 
+     * @param controller,
+     *            the rate controller of the saturation mode, or null
+     * @param delay,
+     *            the delay of the query in milliseconds
+     * @return the delay in nanoseconds
+     */
+    private long getDelayNanos(SaturationController controller, long delay) {
+        if (controller == null)
+            return TimeUnit.MILLISECONDS.toNanos(delay);
+        return controller.getDelayNanos(delay);
     }
 
-    public byte[] getTask() {
-        return task;
+    /**
+     * Sends the rates of the feedback windows the system kept up with to the
+     * Benchmark Controller.
+     * 
+     * @param controller,
+     *            the rate controller of the saturation mode
+     */
+    private void reportSaturation(SaturationController controller) throws IOException {
+        controller.logStatistics("Data Generator " + this.getGeneratorId());
+        if (controller.getHealthyWindows() + controller.getUnhealthyWindows() == 0)
+            LOGGER.error("Data Generator " + this.getGeneratorId()
+                    + " received no feedback from the System Adapter. The saturation ceiling is 0.");
+        sendToCmdQueue(OdinConstants.SATURATION_RATES_FROM_DATAGENERATOR,
+                SaturationCodec.createRates(controller.getRates()));
     }
 
-    public void setTask(byte[] task) {
-        this.task = task;
+    public void setDatasetBeginPoint(long datasetBeginPoint) {
+        this.datasetBeginPoint = datasetBeginPoint;
     }
 
     public void setDefaultGraph(String string) {
@@ -1,25 +1,54 @@
 package org.hobbit.odin.odindatagenerator;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.output.ByteArrayOutputStream;
+import org.apache.jena.graph.Triple;
 import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.query.Query;
 import org.apache.jena.query.QueryExecution;
 import org.apache.jena.query.QueryExecutionFactory;
+import org.apache.jena.query.QueryFactory;
 import org.apache.jena.query.ReadWrite;
 import org.apache.jena.query.ResultSet;
+import org.apache.jena.query.ResultSetFactory;
 import org.apache.jena.query.ResultSetFormatter;
-import org.apache.jena.rdf.model.Model;
+import org.apache.jena.query.ResultSetRewindable;
 import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFLib;
+import org.apache.jena.riot.system.StreamRDFWrapper;
+import org.apache.jena.sparql.core.DatasetDescription;
+import org.apache.jena.sparql.core.DynamicDatasets;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.resultset.ResultSetCompare;
 import org.apache.jena.tdb.TDBFactory;
 import org.apache.log4j.Logger;
 
 /**
  * Reference Set class. Responsible for creating a Jena TDB, for updating it and
- * for retrieving a result set upon performing a SELECT SPARQL query.
+ * for retrieving a result set upon performing a SELECT SPARQL query. Triples
+ * are parsed straight into an open WRITE transaction, which is committed only
+ * when a SELECT SPARQL query is performed, so that each stream is loaded with
+ * a single transaction. The triples are kept either in a Jena TDB on disk or
+ * in a transactional in-memory dataset. The expected answers are computed by
+ * the SELECT SPARQL query against the dataset, by an Expected Answer Engine
+ * that indexes the loaded triples, or by both for cross-checking. Optionally,
+ * SELECT SPARQL queries are performed by a pool of threads, each on a READ
+ * transaction begun before the next commit, while the loading thread
+ * continues with the next streams.
  * 
  * @author Kleanthi Georgala (georgala@informatik.uni-leipzig.de)
  * @version 1.0
@@ -30,40 +59,183 @@ public class ReferenceSet {
     private String TDBDirectory = null;
     /* Name of the Jena Dataset */
     private Dataset dataset = null;
+    /* Type of the Jena Dataset */
+    private ReferenceStoreType storeType = ReferenceStoreType.TDB;
+    /* Way of computing the expected answers */
+    private ExpectedAnswerMode answerMode = ExpectedAnswerMode.TDB;
+    /* Index of the loaded triples, null if answers are computed by the TDB */
+    private ExpectedAnswerEngine engine = null;
     protected static final Logger logger = Logger.getLogger(ReferenceSet.class.getName());
+    /* Stream of triples into the graph of the open transaction */
+    private StreamRDF loader = null;
+    /* Name of the graph of the open transaction */
+    private String loaderGraph = null;
+    /* Number of loaded triples */
+    private long loadedTriples = 0l;
+    /* Time spent loading and committing triples in nanoseconds */
+    private long loadNanos = 0l;
+    /* Number of commits */
+    private int commits = 0;
+    /* Threads performing SELECT queries, null if performed by the caller */
+    private ExecutorService queryPool = null;
+    /* SELECT queries submitted to the pool */
+    private ArrayList<Future<String>> pendingQueries = new ArrayList<Future<String>>();
+    /* SELECT queries whose READ transaction has not begun yet */
+    private ArrayList<CountDownLatch> pendingSnapshots = new ArrayList<CountDownLatch>();
 
-    /* Constructor */
+    /* Constructors */
     public ReferenceSet(String directory) {
+        this(directory, ReferenceStoreType.TDB);
+    }
+
+    public ReferenceSet(String directory, ReferenceStoreType storeType) {
+        this(directory, storeType, ExpectedAnswerMode.TDB);
+    }
+
+    public ReferenceSet(String directory, ReferenceStoreType storeType, ExpectedAnswerMode answerMode) {
+        this(directory, storeType, answerMode, 1);
+    }
+
+    public ReferenceSet(String directory, ReferenceStoreType storeType, ExpectedAnswerMode answerMode,
+            int queryThreads) {
         this.TDBDirectory = directory;
-        this.dataset = TDBFactory.createDataset(this.TDBDirectory);
+        this.storeType = storeType;
+        this.answerMode = answerMode;
+        if (storeType == ReferenceStoreType.MEMORY)
+            this.dataset = DatasetFactory.createTxnMem();
+        else
+            this.dataset = TDBFactory.createDataset(this.TDBDirectory);
+        // the engine must return literals as the store does
+        if (answerMode != ExpectedAnswerMode.TDB)
+            this.engine = new ExpectedAnswerEngine(storeType == ReferenceStoreType.TDB);
+        if (queryThreads > 1)
+            this.queryPool = Executors.newFixedThreadPool(queryThreads);
+
+    }
+
+    /* Getters */
+    public ReferenceStoreType getStoreType() {
+        return storeType;
+    }
+
+    public ExpectedAnswerMode getAnswerMode() {
+        return answerMode;
+    }
+
+    public long getLoadedTriples() {
+        return loadedTriples;
+    }
 
+    public long getLoadNanos() {
+        return loadNanos;
+    }
+
+    public int getCommits() {
+        return commits;
     }
 
     /**
-     * Updates the Jena TDB by inserting new triples to the KB.
+     * Updates the Jena TDB by inserting new triples to the KB and commits
+     * them.
      * 
      * @param files,
      *            the set of new files to be added
+     * @param graphName,
+     *            the name of the graph
      */
     public void updateTDB(ArrayList<String> files, String graphName) {
-        dataset.begin(ReadWrite.WRITE);
+        loadTDB(files, graphName);
+        commit();
+    }
+
+    /**
+     * Parses new triples into the graph of the open WRITE transaction, which is
+     * begun if necessary. The triples are visible to queries after the next
+     * commit.
+     * 
+     * @param files,
+     *            the set of new files to be added
+     * @param graphName,
+     *            the name of the graph
+     */
+    public void loadTDB(ArrayList<String> files, String graphName) {
+        long start = System.nanoTime();
+        if (loader != null && !graphName.equals(loaderGraph))
+            commit();
+        if (loader == null) {
+            dataset.begin(ReadWrite.WRITE);
+            StreamRDF graph = StreamRDFLib.graph(dataset.getNamedModel(graphName).getGraph());
+            loader = new StreamRDFWrapper(graph) {
+                @Override
+                public void triple(Triple triple) {
+                    loadedTriples++;
+                    if (engine != null)
+                        engine.add(graphName, triple);
+                    super.triple(triple);
+                }
+            };
+            loaderGraph = graphName;
+        }
         try {
-            Model tdb = dataset.getNamedModel(graphName);
             // read the input files
-            for (String file : files) {
-                Model m = RDFDataMgr.loadModel(file);
-                tdb.add(m);
-            }
+            for (String file : files)
+                RDFDataMgr.parse(loader, file);
+        } catch (RuntimeException e) {
+            logger.error("Couldn't load files into the Jena TDB.");
+            abort();
+            throw e;
+        }
+        loadNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * Commits the open WRITE transaction, if any.
+     */
+    public void commit() {
+        if (loader == null)
+            return;
+        // submitted queries must not see the triples of this commit
+        awaitSnapshots();
+        long start = System.nanoTime();
+        try {
             dataset.commit();
-            tdb.close();
+            commits++;
+        } finally {
+            dataset.end();
+            loader = null;
+            loaderGraph = null;
+        }
+        loadNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * Aborts the open WRITE transaction.
+     */
+    private void abort() {
+        try {
+            dataset.abort();
         } finally {
             dataset.end();
+            loader = null;
+            loaderGraph = null;
         }
     }
 
+    /**
+     * Logs the number of loaded triples and the load rate.
+     */
+    public void logStatistics() {
+        long millis = TimeUnit.NANOSECONDS.toMillis(loadNanos);
+        double rate = (loadNanos == 0) ? 0.0d : loadedTriples * 1e9d / loadNanos;
+        logger.info("Loaded " + loadedTriples + " triples into the " + storeType + " reference store with "
+                + commits + " commits in " + millis + " ms (" + (long) rate + " triples/s).");
+    }
+
     /**
      * Performs a SELECT SPARQL against the current Jena TDB. It stores the
-     * result set to a file.
+     * result set to a file. In INDEX mode, the query is answered by the
+     * Expected Answer Engine instead, unless the engine does not support it.
+     * In CROSS_CHECK mode, both answers are computed and must be equal.
      * 
      * @param selectQuery,
      *            the SELECT SPARQL query to be performed
@@ -74,33 +246,181 @@ public class ReferenceSet {
      * @return the name of the file that the reference set is stored
      */
     public String queryTDB(String selectQuery, String outputFolder, int streamID) {
+        String fileName = answersFile(outputFolder, streamID);
+        // the query must see all triples loaded so far
+        commit();
+        Query query = QueryFactory.create(selectQuery);
+        List<Binding> answers = answerByEngine(query, streamID);
+        return performQuery(query, answers, fileName, streamID, null);
+    }
+
+    /**
+     * Submits a SELECT SPARQL query that is performed against the triples
+     * loaded so far, while the caller continues loading triples. The result
+     * set is stored to a file once the query is performed. If no pool of
+     * threads is used, the query is performed immediately.
+     * 
+     * @param selectQuery,
+     *            the SELECT SPARQL query to be performed
+     * @param outputFolder,
+     *            the output folder to store the result set
+     * @param streamID,
+     *            the ID of the stream the SELECT query belongs to
+     * @return the name of the file that the reference set will be stored
+     */
+    public String submitQuery(String selectQuery, String outputFolder, int streamID) {
+        if (queryPool == null)
+            return queryTDB(selectQuery, outputFolder, streamID);
+        String fileName = answersFile(outputFolder, streamID);
+        commit();
+        Query query = QueryFactory.create(selectQuery);
+        // the index keeps changing, so the engine answers right away
+        List<Binding> answers = answerByEngine(query, streamID);
+        CountDownLatch snapshot = null;
+        if (answerMode != ExpectedAnswerMode.INDEX || answers == null) {
+            snapshot = new CountDownLatch(1);
+            pendingSnapshots.add(snapshot);
+        }
+        CountDownLatch begun = snapshot;
+        pendingQueries.add(queryPool.submit(() -> performQuery(query, answers, fileName, streamID, begun)));
+        return fileName;
+    }
+
+    /**
+     * Waits until all submitted SELECT queries are performed and stops the
+     * pool of threads.
+     */
+    public void awaitQueries() {
+        if (queryPool == null)
+            return;
+        try {
+            for (Future<String> query : pendingQueries)
+                query.get();
+        } catch (InterruptedException | ExecutionException e) {
+            logger.error("Couldn't compute the expected answers of a SELECT query.");
+            e.printStackTrace();
+            throw new RuntimeException();
+        } finally {
+            shutdown();
+        }
+    }
+
+    /**
+     * Stops the pool of threads without waiting for the submitted SELECT
+     * queries. Does nothing if the queries were already awaited.
+     */
+    public void shutdown() {
+        if (queryPool == null)
+            return;
+        pendingQueries.clear();
+        queryPool.shutdownNow();
+        queryPool = null;
+    }
+
+    /**
+     * Waits until all submitted SELECT queries have begun their READ
+     * transaction.
+     */
+    private void awaitSnapshots() {
+        try {
+            for (CountDownLatch snapshot : pendingSnapshots)
+                snapshot.await();
+        } catch (InterruptedException e) {
+            logger.error("Interrupted while waiting for SELECT queries.");
+            throw new RuntimeException();
+        }
+        pendingSnapshots.clear();
+    }
+
+    /**
+     * Returns the name of the file that stores the reference set of a stream
+     * and creates its folder if necessary.
+     * 
+     * @param outputFolder,
+     *            the output folder to store the result set
+     * @param streamID,
+     *            the ID of the stream the SELECT query belongs to
+     * @return the name of the file
+     */
+    private String answersFile(String outputFolder, int streamID) {
         outputFolder = outputFolder + "expectedResults/";
         File newFolder = new File(outputFolder);
         if (!newFolder.exists())
             newFolder.mkdir();
-        String fileName = outputFolder + "expectedResults" + streamID + ".sparql";
-        
-        dataset.begin(ReadWrite.READ);
-        ResultSet rs = null;
-        try (QueryExecution qExec = QueryExecutionFactory.create(selectQuery, dataset)) {
-            rs = qExec.execSelect();
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            ResultSetFormatter.outputAsJSON(outputStream, rs);
-            try {
-                FileUtils.writeByteArrayToFile(new File(fileName), outputStream.toByteArray());
-            } catch (IOException e) {
-                logger.error("Couldn't write byte array to file: " + fileName);
-                e.printStackTrace();
-                try {
-                    outputStream.close();
-                } catch (IOException e1) {
-                    logger.error("Can't close ByteArrayOutputStream");
-                    e1.printStackTrace();
+        return outputFolder + "expectedResults" + streamID + ".sparql";
+    }
+
+    /**
+     * Computes the answers of a SELECT SPARQL query with the Expected Answer
+     * Engine.
+     * 
+     * @param query,
+     *            the SELECT SPARQL query
+     * @param streamID,
+     *            the ID of the stream the SELECT query belongs to
+     * @return the answers, or null if there is no engine or the query is not
+     *         supported
+     */
+    private List<Binding> answerByEngine(Query query, int streamID) {
+        if (engine == null)
+            return null;
+        List<Binding> answers = engine.answer(query);
+        if (answers == null)
+            logger.info("SELECT query of stream " + streamID
+                    + " is not supported by the expected answer engine. Performing it against the reference store.");
+        return answers;
+    }
+
+    /**
+     * Stores the answers of a SELECT SPARQL query to a file, performing the
+     * query against the dataset unless the answers of the Expected Answer
+     * Engine are used.
+     * 
+     * @param query,
+     *            the SELECT SPARQL query
+     * @param answers,
+     *            the answers of the Expected Answer Engine, or null
+     * @param fileName,
+     *            the name of the file
+     * @param streamID,
+     *            the ID of the stream the SELECT query belongs to
+     * @param snapshot,
+     *            released once the READ transaction has begun, or null
+     * @return the name of the file
+     */
+    private String performQuery(Query query, List<Binding> answers, String fileName, int streamID,
+            CountDownLatch snapshot) {
+        if (answerMode == ExpectedAnswerMode.INDEX && answers != null) {
+            writeAnswers(fileName, ExpectedAnswerEngine.toResultSet(query, answers));
+            return fileName;
+        }
+
+        try {
+            dataset.begin(ReadWrite.READ);
+        } finally {
+            if (snapshot != null)
+                snapshot.countDown();
+        }
+        Dataset target = dataset;
+        // only the query engine of the Jena TDB reads the FROM clauses
+        if (storeType == ReferenceStoreType.MEMORY && query.hasDatasetDescription())
+            target = DynamicDatasets.dynamicDataset(DatasetDescription.create(query), dataset, false);
+        try (QueryExecution qExec = QueryExecutionFactory.create(query, target)) {
+            ResultSet rs = qExec.execSelect();
+            if (answerMode == ExpectedAnswerMode.CROSS_CHECK && answers != null) {
+                ResultSetRewindable expected = ResultSetFactory.copyResults(rs);
+                ResultSetRewindable received = ResultSetFactory
+                        .copyResults(ExpectedAnswerEngine.toResultSet(query, answers));
+                if (!ResultSetCompare.equalsByTerm(expected, received)) {
+                    logger.error("Expected answers of the SELECT query of stream " + streamID
+                            + " differ between the reference store (" + expected.size()
+                            + " answers) and the expected answer engine (" + received.size() + " answers).");
                     throw new RuntimeException();
                 }
-                throw new RuntimeException();
+                expected.reset();
+                rs = expected;
             }
-            
+            writeAnswers(fileName, rs);
         } finally {
             dataset.end();
         }
@@ -108,4 +428,22 @@ public class ReferenceSet {
         return fileName;
     }
 
+    /**
+     * Writes a result set as SPARQL JSON to a file.
+     * 
+     * @param fileName,
+     *            the name of the file
+     * @param rs,
+     *            the result set
+     */
+    private void writeAnswers(String fileName, ResultSet rs) {
+        try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(fileName))) {
+            ResultSetFormatter.outputAsJSON(outputStream, rs);
+        } catch (IOException e) {
+            logger.error("Couldn't write result set to file: " + fileName);
+            e.printStackTrace();
+            throw new RuntimeException();
+        }
+    }
+
 }
@@ -0,0 +1,47 @@
+package org.hobbit.odin.odindatagenerator;
+
+import java.io.IOException;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Reference store type class. Defines where the Reference Set keeps the
+ * triples it uses to compute the expected answers of the SELECT SPARQL
+ * queries: TDB keeps them in a Jena TDB on disk, MEMORY keeps them in a
+ * transactional in-memory dataset that is lost when the Data Generator stops.
+ *
+ * @author Kleanthi Georgala (georgala@informatik.uni-leipzig.de)
+ * @version 1.0
+ *
+ */
+public enum ReferenceStoreType {
+
+    TDB, MEMORY;
+
+    protected static final Logger logger = Logger.getLogger(ReferenceStoreType.class.getName());
+
+    /**
+     * Factory function that returns the correct reference store type given a
+     * name.
+     *
+     * @param name,
+     *            the name of the reference store
+     * @return the corresponding reference store type
+     * @throws IOException
+     *             if the input name does not correspond to any valid reference
+     *             store
+     */
+    public static ReferenceStoreType getReferenceStoreType(String name) throws IOException {
+        switch (name) {
+        case ("TDB"):
+            return TDB;
+        case ("MEMORY"):
+            return MEMORY;
+        default:
+            logger.error("Unknown reference store: " + name);
+            throw new IOException();
+        }
+
+    }
+
+}
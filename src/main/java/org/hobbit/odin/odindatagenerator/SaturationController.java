@@ -0,0 +1,221 @@
+package org.hobbit.odin.odindatagenerator;
+
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+import org.hobbit.odin.util.SaturationCodec;
+
+/**
+ * Saturation Controller class. Adjusts the rate a Data Generator sends its
+ * queries at during the run, in order to find the highest rate the system
+ * keeps up with. The delays of all queries are divided by a speedup, which is
+ * controlled with Additive Increase Multiplicative Decrease (AIMD) from the
+ * feedback the System Adapter sends to all Data Generators at the end of
+ * each feedback window: the number of INSERT queries of the Data Generator it
+ * acknowledged and their acknowledgement latency, i.e. the time between
+ * sending a query and the end of its execution. The latency includes the
+ * time the queries waited in the queue of the System Adapter and is measured
+ * as a round trip, so that the clocks of the Data Generator and the System
+ * Adapter need not agree (see {@link SaturationCodec}): the time the feedback
+ * is received minus the time it was sent, plus the mean time between
+ * sending and acknowledging each query. The feedback is delayed by its
+ * delivery only.
+ *
+ * A feedback window is healthy if the mean latency does not exceed the target
+ * latency divided by the speedup, i.e. the delay of the SELECT queries at the
+ * current speedup, and the System Adapter acknowledged some queries. A window
+ * without acknowledgements is unhealthy if queries of the Data Generator are
+ * still in flight, i.e. sent but not acknowledged, and idle otherwise. Idle
+ * windows do not change the speedup. An INSERT query acknowledged later than the
+ * SELECT query of its stream is sent is not seen by it and lowers its recall,
+ * so healthy windows keep the recall of the SELECT queries at 1. After a
+ * healthy window the speedup grows by the increase, otherwise it is
+ * multiplied by the decrease. The rate, in triples per second, that the Data
+ * Generator sent during each healthy window is kept by the number of the
+ * window, so that the Benchmark Controller can add the rates of all Data
+ * Generators in the same window. The ceiling is the highest of these rates.
+ *
+ * @author Kleanthi Georgala (georgala@informatik.uni-leipzig.de)
+ * @version 1.0
+ *
+ */
+public class SaturationController {
+    protected static final Logger logger = Logger.getLogger(SaturationController.class.getName());
+    /* Default additive increase of the speedup */
+    public static final double DEFAULT_INCREASE = 0.25;
+    /* Default multiplicative decrease of the speedup */
+    public static final double DEFAULT_DECREASE = 0.5;
+    /* Minimum speedup, so that a saturated system is never waited for forever */
+    public static final double MIN_SPEEDUP = 1.0 / 64;
+
+    /* Target latency at speedup 1 in milliseconds */
+    private long targetLatency = 0l;
+    /* Additive increase of the speedup */
+    private double increase = DEFAULT_INCREASE;
+    /* Multiplicative decrease of the speedup */
+    private double decrease = DEFAULT_DECREASE;
+    /* Number the delays of the queries are divided by */
+    private volatile double speedup = 1.0;
+    /* Number of triples of all INSERT queries sent */
+    private AtomicLong triplesSent = new AtomicLong();
+    /* Number of INSERT queries sent */
+    private AtomicLong queriesSent = new AtomicLong();
+    /* Number of INSERT queries acknowledged */
+    private long queriesAcknowledged = 0l;
+    /* Number of triples sent at the end of the previous feedback window */
+    private long windowTriples = 0l;
+    /* End of the previous feedback window in milliseconds */
+    private long windowEnd = 0l;
+    /* Highest rate of a healthy window in triples per second */
+    private double ceiling = 0.0;
+    /* Map with keys healthy windows and values their rates in triples per second */
+    private TreeMap<Long, Double> rates = new TreeMap<Long, Double>();
+    /* Number of healthy windows */
+    private int healthyWindows = 0;
+    /* Number of unhealthy windows */
+    private int unhealthyWindows = 0;
+
+    /* Constructors */
+    public SaturationController(long targetLatency) {
+        this.targetLatency = targetLatency;
+    }
+
+    public SaturationController(long targetLatency, double increase, double decrease) {
+        this.targetLatency = targetLatency;
+        this.increase = increase;
+        this.decrease = decrease;
+    }
+
+    /* Getters */
+    public double getSpeedup() {
+        return speedup;
+    }
+
+    public synchronized double getCeiling() {
+        return ceiling;
+    }
+
+    public synchronized TreeMap<Long, Double> getRates() {
+        return new TreeMap<Long, Double>(rates);
+    }
+
+    public synchronized int getHealthyWindows() {
+        return healthyWindows;
+    }
+
+    public synchronized int getUnhealthyWindows() {
+        return unhealthyWindows;
+    }
+
+    public long getTriplesSent() {
+        return triplesSent.get();
+    }
+
+    /**
+     * Starts the first feedback window.
+     *
+     * @param now,
+     *            the current time in milliseconds
+     */
+    public synchronized void start(long now) {
+        this.windowEnd = now;
+        this.windowTriples = triplesSent.get();
+    }
+
+    /**
+     * Divides the delay of a query by the current speedup.
+     *
+     * @param delay,
+     *            the delay of the query in milliseconds
+     * @return the new delay in nanoseconds
+     */
+    public long getDelayNanos(long delay) {
+        return (long) (TimeUnit.MILLISECONDS.toNanos(delay) / speedup);
+    }
+
+    /**
+     * Records that an INSERT query was sent.
+     *
+     * @param triples,
+     *            the number of triples of the query
+     */
+    public void recordSent(long triples) {
+        triplesSent.addAndGet(triples);
+        queriesSent.incrementAndGet();
+    }
+
+    /**
+     * Adjusts the speedup given the feedback of the System Adapter for the
+     * window that ends now.
+     *
+     * @param window,
+     *            the number of the window
+     * @param acknowledged,
+     *            the number of INSERT queries acknowledged during the window
+     * @param latency,
+     *            the mean acknowledgement latency of the window in
+     *            milliseconds
+     * @param now,
+     *            the current time in milliseconds
+     * @return false if the window was unhealthy, true otherwise
+     */
+    public synchronized boolean onFeedback(long window, long acknowledged, long latency, long now) {
+        long triples = triplesSent.get();
+        double seconds = (now - windowEnd) / 1000.0;
+        double rate = (seconds > 0) ? (triples - windowTriples) / seconds : 0.0;
+        this.windowEnd = now;
+        this.windowTriples = triples;
+
+        queriesAcknowledged += acknowledged;
+        // the system is idle
+        if (acknowledged == 0 && queriesAcknowledged >= queriesSent.get())
+            return true;
+        boolean healthy = acknowledged > 0 && latency * speedup <= targetLatency;
+        if (healthy) {
+            healthyWindows++;
+            rates.put(window, rate);
+            if (rate > ceiling)
+                ceiling = rate;
+            speedup = speedup + increase;
+        } else {
+            unhealthyWindows++;
+            speedup = Math.max(MIN_SPEEDUP, speedup * decrease);
+        }
+        return healthy;
+    }
+
+    /**
+     * Adjusts the speedup given a feedback message of the System Adapter.
+     *
+     * @param data,
+     *            the feedback message
+     * @param generatorId,
+     *            the id of the Data Generator
+     * @param now,
+     *            the current time of the Data Generator in milliseconds
+     * @return false if the window was unhealthy, true otherwise
+     */
+    public boolean onFeedback(byte[] data, int generatorId, long now) {
+        long[] feedback = SaturationCodec.readFeedback(data, generatorId);
+        long acknowledged = feedback[2];
+        long latency = 0l;
+        // the differences of the two clocks cancel out
+        if (acknowledged > 0)
+            latency = Math.max(0l, now - feedback[1] + feedback[3] / acknowledged);
+        return onFeedback(feedback[0], acknowledged, latency, now);
+    }
+
+    /**
+     * Logs the statistics of the run.
+     *
+     * @param name,
+     *            the name of the Data Generator
+     */
+    public synchronized void logStatistics(String name) {
+        logger.info(name + " saturation: ceiling " + ceiling + " triples/s, final speedup " + speedup + ", "
+                + healthyWindows + " healthy and " + unhealthyWindows + " unhealthy feedback windows");
+    }
+
+}
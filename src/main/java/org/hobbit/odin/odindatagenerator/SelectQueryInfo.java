@@ -6,14 +6,14 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeSet;
@@ -28,16 +28,15 @@ import org.apache.jena.graph.Triple;
 import org.apache.jena.query.Query;
 import org.apache.jena.query.QueryFactory;
 import org.apache.jena.rdf.model.Model;
-import org.apache.jena.rdf.model.ModelFactory;
 import org.apache.jena.rdf.model.Statement;
 import org.apache.jena.rdf.model.StmtIterator;
 import org.apache.jena.sparql.algebra.Op;
 import org.apache.jena.sparql.algebra.OpAsQuery;
 import org.apache.jena.sparql.algebra.op.OpBGP;
-import org.apache.jena.sparql.algebra.op.OpUnion;
 import org.apache.jena.sparql.core.BasicPattern;
 import org.apache.jena.sparql.core.Var;
 import org.apache.log4j.Logger;
+import org.hobbit.core.rabbit.RabbitMQUtils;
 
 /**
  * Select Query class. Responsible for creating and storing a SELECT SPARQL
@@ -51,7 +50,19 @@ import org.apache.log4j.Logger;
 public class SelectQueryInfo {
 
     protected static final Logger logger = Logger.getLogger(SelectQueryInfo.class.getName());
-    private int maxRequestedPatterns = 4000;
+    /* Default number of triples whose half is covered by the query */
+    public static final int DEFAULT_REQUESTED_PATTERNS = 4000;
+
+    /* Number of triples whose half is covered by the query */
+    private int maxRequestedPatterns = DEFAULT_REQUESTED_PATTERNS;
+    /* Number of triples sampled from the stream, 0 if all are used */
+    private int sampleSize = 0;
+    /* Seed of the sample */
+    private long sampleSeed = 0l;
+    /* Maximum number of triple patterns of the query, 0 if unlimited */
+    private int maxPatterns = 0;
+    /* Target number of answers of the query, 0 if unlimited */
+    private long targetCardinality = 0l;
 
     /* Time stamp of executing the SELECT query */
     private long timeStamp;
@@ -63,28 +74,48 @@ public class SelectQueryInfo {
     private String selectQueryFile = null;
     /* Location file where the reference set is stored */
     private String answersFile = null;
+    /* Shape of the UNION of the basic graph patterns of the query */
+    private UnionShape unionShape = UnionShape.LEFT_DEEP;
+    /* Serialized SELECT query sent to the Task Generator, null if not prepared */
+    private byte[] queryPayload = null;
+    /* Serialized reference set sent to the Task Generator, null if not prepared */
+    private byte[] answersPayload = null;
     /*
      * Triple patterns keys: triple patterns, values: keys: id of triple, value:
      * node converted into variable
      */
     HashMap<Triple, HashMap<Integer, Node>> tps = new HashMap<Triple, HashMap<Integer, Node>>();
 
-    /* Triples ids */
-    HashSet<Integer> quadCounter = new HashSet<Integer>();
+    /* Number of triples, triple ids range from 1 to this number */
+    int quadCounter = 0;
     /* Triples ids covered in the SELECT query */
-    Set<Integer> triplesCovered = new TreeSet<Integer>();
+    BitSet triplesCovered = new BitSet();
+    /* Number of triples covered in the SELECT query */
+    int coveredCounter = 0;
     /* Variables counter */
     int variableCounter = 0;
     /* Variables */
     HashMap<String, HashSet<Node>> variables = new HashMap<String, HashSet<Node>>();
+    /* Map with keys the answers of each variable and values its name */
+    HashMap<HashSet<Node>, String> variableNames = new HashMap<HashSet<Node>, String>();
+    /* Number of triple patterns of the query */
+    int patternCounter = 0;
+    /* Estimated number of answers of the query */
+    long estimatedCardinality = 0l;
 
     /* Setters and Getters */
     public Set<Integer> getTriplesCovered() {
-        return triplesCovered;
+        Set<Integer> ids = new TreeSet<Integer>();
+        for (int id = triplesCovered.nextSetBit(0); id >= 0; id = triplesCovered.nextSetBit(id + 1))
+            ids.add(id);
+        return ids;
     }
 
     public void setTriplesCovered(Set<Integer> triplesCovered) {
-        this.triplesCovered = triplesCovered;
+        this.triplesCovered = new BitSet();
+        for (Integer id : triplesCovered)
+            this.triplesCovered.set(id);
+        this.coveredCounter = this.triplesCovered.cardinality();
     }
 
     public int getVariableCounter() {
@@ -127,6 +158,62 @@ public class SelectQueryInfo {
         this.timeStamp = timeStamp;
     }
 
+    public UnionShape getUnionShape() {
+        return unionShape;
+    }
+
+    public void setUnionShape(UnionShape unionShape) {
+        this.unionShape = unionShape;
+    }
+
+    public int getMaxRequestedPatterns() {
+        return maxRequestedPatterns;
+    }
+
+    public void setMaxRequestedPatterns(int maxRequestedPatterns) {
+        this.maxRequestedPatterns = maxRequestedPatterns;
+    }
+
+    public int getSampleSize() {
+        return sampleSize;
+    }
+
+    public void setSampleSize(int sampleSize) {
+        this.sampleSize = sampleSize;
+    }
+
+    public long getSampleSeed() {
+        return sampleSeed;
+    }
+
+    public void setSampleSeed(long sampleSeed) {
+        this.sampleSeed = sampleSeed;
+    }
+
+    public int getMaxPatterns() {
+        return maxPatterns;
+    }
+
+    public void setMaxPatterns(int maxPatterns) {
+        this.maxPatterns = maxPatterns;
+    }
+
+    public long getTargetCardinality() {
+        return targetCardinality;
+    }
+
+    public void setTargetCardinality(long targetCardinality) {
+        this.targetCardinality = targetCardinality;
+    }
+
+    public int getPatternCounter() {
+        return patternCounter;
+    }
+
+    public long getEstimatedCardinality() {
+        return estimatedCardinality;
+    }
+
     /* Constructors */
     public SelectQueryInfo() {
     }
@@ -136,11 +223,15 @@ public class SelectQueryInfo {
         this.timeStamp = ts;
         this.selectQueryFile = file;
         this.answersFile = null;
-        this.quadCounter = new HashSet<Integer>();
-        this.triplesCovered = new TreeSet<Integer>();
+        this.quadCounter = 0;
+        this.triplesCovered = new BitSet();
+        this.coveredCounter = 0;
         this.variableCounter = 0;
         this.tps = new HashMap<Triple, HashMap<Integer, Node>>();
         this.variables = new HashMap<String, HashSet<Node>>();
+        this.variableNames = new HashMap<HashSet<Node>, String>();
+        this.patternCounter = 0;
+        this.estimatedCardinality = 0l;
     }
 
     /**
@@ -175,6 +266,51 @@ public class SelectQueryInfo {
         return data;
     }
 
+    /**
+     * Serializes the SELECT SPARQL query and reads its reference set before
+     * the benchmark begins, so that sending the query to the Task Generator
+     * neither parses the query nor reads any file.
+     */
+    public void preparePayload() {
+        this.queryPayload = RabbitMQUtils.writeString(getSelectQueryAsString());
+        this.answersPayload = getExpectedAnswers();
+    }
+
+    public boolean isPayloadPrepared() {
+        return queryPayload != null && answersPayload != null;
+    }
+
+    public long getPayloadSize() {
+        if (!isPayloadPrepared())
+            return 0l;
+        return queryPayload.length + answersPayload.length;
+    }
+
+    /**
+     * Creates the byte array sent to the Task Generator: the SELECT query, the
+     * size of its stream, the begin point of its stream and its reference set.
+     * The query and the reference set are read from their files if the
+     * payload was not prepared. Each call returns a new byte array, so that
+     * SELECT queries of overlapping streams can be sent concurrently.
+     * 
+     * @param modelSize,
+     *            the number of triples of all INSERT queries of the stream
+     * @param beginPoint,
+     *            the time the first INSERT query of the stream was sent
+     * @return the serialized task
+     */
+    public byte[] getTaskPayload(long modelSize, long beginPoint) {
+        byte[] query = this.queryPayload;
+        byte[] answers = this.answersPayload;
+        if (query == null || answers == null) {
+            query = RabbitMQUtils.writeString(getSelectQueryAsString());
+            answers = getExpectedAnswers();
+        }
+        // select query, modelsize, begin point, answers
+        return RabbitMQUtils.writeByteArrays(new byte[][] { query, RabbitMQUtils.writeString(String.valueOf(modelSize)),
+                RabbitMQUtils.writeString(String.valueOf(beginPoint)), answers });
+    }
+
     /**
      * Iterates over the statements of a model and converts each original triple
      * into a new triple by changing one element of the original triple, at a
@@ -194,51 +330,155 @@ public class SelectQueryInfo {
         while (it.hasNext()) {
             counter++;
             Statement statement = it.next();
-            Triple triple = statement.asTriple();
-            Node subject = triple.getSubject();
-            Node predicate = triple.getPredicate();
-            Node object = triple.getObject();
-
-            // create one triple pattern for each triple Node
-            Triple newTriple = null;
+            addTriplePatterns(counter, statement.asTriple());
+        }
 
-            // for subject:
-            Node subjectVariable = NodeFactory.createVariable("?");
-            newTriple = new Triple(subjectVariable, predicate, object);
+    }
 
-            if (!tps.containsKey(newTriple)) {
-                tps.put(newTriple, new HashMap<Integer, Node>());
-            }
-            HashMap<Integer, Node> temp = tps.get(newTriple);
-            temp.put(counter, subject);
-            tps.put(newTriple, temp);
-            //////////////////////////////
-            // for predicate:
-            Node predicateVariable = NodeFactory.createVariable("?");
-            newTriple = new Triple(subject, predicateVariable, object);
-
-            if (!tps.containsKey(newTriple)) {
-                tps.put(newTriple, new HashMap<Integer, Node>());
-            }
-            temp = tps.get(newTriple);
-            temp.put(counter, predicate);
-            tps.put(newTriple, temp);
-            //////////////////////////////
-            // for object:
-            Node objectVariable = NodeFactory.createVariable("?");
-            newTriple = new Triple(subject, predicate, objectVariable);
-
-            if (!tps.containsKey(newTriple)) {
-                tps.put(newTriple, new HashMap<Integer, Node>());
+    /**
+     * Converts each triple of a set of triples encoded by a term dictionary
+     * into triple patterns, as createTriplePatterns does for a model. The
+     * constants of the triple patterns are the terms of the dictionary, so
+     * that equal terms are kept once.
+     * 
+     * If a sample size is set and the stream has more triples, only a sample
+     * of this size is converted: the triples with the smallest hashes of the
+     * sample seed and their terms, in order of their hashes. The same triples
+     * and seed always give the same sample and query, whatever the order the
+     * triples were written in by the pre-processing threads.
+     * 
+     * @param triples,
+     *            the triples to be transformed into triple patterns
+     */
+    public void createTriplePatterns(EncodedTriples triples) {
+        if (sampleSize <= 0 || triples.size() <= sampleSize) {
+            for (int index = 0; index < triples.size(); index++) {
+                addTriplePatterns(index + 1, triples.getTriple(index));
             }
-            temp = tps.get(newTriple);
-            temp.put(counter, object);
-            tps.put(newTriple, temp);
-            //////////////////////////////
-            this.quadCounter.add(counter);
+            return;
+        }
+        int[] sample = sample(triples, sampleSize, sampleSeed);
+        for (int index = 0; index < sample.length; index++) {
+            addTriplePatterns(index + 1, triples.getTriple(sample[index]));
+        }
+        logger.info("Sampled " + sample.length + " out of " + triples.size() + " triples");
+    }
 
+    /**
+     * Draws a uniform sample of triples that does not depend on their order:
+     * the triples with the smallest hashes of the seed and their terms.
+     * Blank nodes are hashed by their labels.
+     * 
+     * @param triples,
+     *            the triples
+     * @param sampleSize,
+     *            the number of sampled triples, smaller than the number of
+     *            triples
+     * @param seed,
+     *            the seed of the hash
+     * @return the positions of the sampled triples in ascending order of
+     *         their hashes
+     */
+    static int[] sample(EncodedTriples triples, int sampleSize, long seed) {
+        TermDictionary dictionary = triples.getDictionary();
+        long[] keys = new long[triples.size()];
+        for (int index = 0; index < triples.size(); index++) {
+            long key = hash(seed ^ 0xcbf29ce484222325l, dictionary.decode(triples.getSubject(index)));
+            key = hash(key, dictionary.decode(triples.getPredicate(index)));
+            keys[index] = mix(hash(key, dictionary.decode(triples.getObject(index))));
+        }
+        long[] sorted = keys.clone();
+        Arrays.sort(sorted);
+        long threshold = sorted[sampleSize - 1];
+        Integer[] sample = new Integer[sampleSize];
+        int counter = 0;
+        for (int index = 0; index < keys.length && counter < sampleSize; index++) {
+            if (keys[index] < threshold)
+                sample[counter++] = index;
+        }
+        for (int index = 0; index < keys.length && counter < sampleSize; index++) {
+            if (keys[index] == threshold)
+                sample[counter++] = index;
         }
+        Arrays.sort(sample, (a, b) -> Long.compare(keys[a], keys[b]));
+        int[] positions = new int[sampleSize];
+        for (int index = 0; index < sampleSize; index++)
+            positions[index] = sample[index];
+        return positions;
+    }
+
+    /* FNV-1a hash of the lexical form of a term, continued from a hash */
+    private static long hash(long hash, Node node) {
+        String term = node.toString();
+        for (int i = 0; i < term.length(); i++) {
+            hash ^= term.charAt(i);
+            hash *= 0x100000001b3l;
+        }
+        // separates the terms of a triple
+        hash ^= 0xff;
+        return hash * 0x100000001b3l;
+    }
 
+    /* Final mix of a hash, so that all bits depend on the seed and terms */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdl;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53l;
+        return hash ^ (hash >>> 33);
+    }
+
+    /**
+     * Converts a triple into three triple patterns, one for each of its
+     * elements, and adds them to the map of triple patterns.
+     * 
+     * @param counter,
+     *            the id of the triple
+     * @param triple,
+     *            the triple to be transformed into triple patterns
+     */
+    private void addTriplePatterns(int counter, Triple triple) {
+        Node subject = triple.getSubject();
+        Node predicate = triple.getPredicate();
+        Node object = triple.getObject();
+
+        // create one triple pattern for each triple Node
+        Triple newTriple = null;
+
+        // for subject:
+        Node subjectVariable = NodeFactory.createVariable("?");
+        newTriple = new Triple(subjectVariable, predicate, object);
+
+        if (!tps.containsKey(newTriple)) {
+            tps.put(newTriple, new HashMap<Integer, Node>());
+        }
+        HashMap<Integer, Node> temp = tps.get(newTriple);
+        temp.put(counter, subject);
+        tps.put(newTriple, temp);
+        //////////////////////////////
+        // for predicate:
+        Node predicateVariable = NodeFactory.createVariable("?");
+        newTriple = new Triple(subject, predicateVariable, object);
+
+        if (!tps.containsKey(newTriple)) {
+            tps.put(newTriple, new HashMap<Integer, Node>());
+        }
+        temp = tps.get(newTriple);
+        temp.put(counter, predicate);
+        tps.put(newTriple, temp);
+        //////////////////////////////
+        // for object:
+        Node objectVariable = NodeFactory.createVariable("?");
+        newTriple = new Triple(subject, predicate, objectVariable);
+
+        if (!tps.containsKey(newTriple)) {
+            tps.put(newTriple, new HashMap<Integer, Node>());
+        }
+        temp = tps.get(newTriple);
+        temp.put(counter, object);
+        tps.put(newTriple, temp);
+        //////////////////////////////
+        this.quadCounter = counter;
     }
 
     /**
@@ -254,38 +494,10 @@ public class SelectQueryInfo {
      * @return the new triple
      */
     public Triple createSubjectPattern(Triple triple, HashMap<Integer, Node> list) {
-
-        HashSet<Integer> ids = new HashSet<Integer>(list.keySet());
-        Set<Integer> intersection = new HashSet<Integer>(this.triplesCovered);
-        intersection.retainAll(ids);
-
-        // all new triples
-        if (intersection.isEmpty()) {
-            HashSet<Node> answers = new HashSet<Node>(list.values());
-
-            String var = null;
-            if (!variables.containsValue(answers)) {
-                variables.put("x" + variableCounter, answers);
-                this.variableCounter++;
-            }
-            for (Entry<String, HashSet<Node>> entry : variables.entrySet()) {
-                HashSet<Node> tempAnswers = entry.getValue();
-                if (tempAnswers.equals(answers)) {
-                    var = entry.getKey();
-                    break;
-                }
-            }
-
-            Triple newPattern = Triple.create(Var.alloc(var), triple.getPredicate(), triple.getObject());
-            this.triplesCovered.addAll(list.keySet());
-            return newPattern;
-        } else {
-            // all triples are covered
-            // or
-            // there is some overlap
+        String var = coverTriples(list);
+        if (var == null)
             return null;
-        }
-
+        return Triple.create(Var.alloc(var), triple.getPredicate(), triple.getObject());
     }
 
     /**
@@ -301,38 +513,10 @@ public class SelectQueryInfo {
      * @return the new triple
      */
     public Triple createPredicatePattern(Triple triple, HashMap<Integer, Node> list) {
-
-        HashSet<Integer> ids = new HashSet<Integer>(list.keySet());
-        Set<Integer> intersection = new HashSet<Integer>(this.triplesCovered);
-        intersection.retainAll(ids);
-
-        // all new triples
-        if (intersection.isEmpty()) {
-            HashSet<Node> answers = new HashSet<Node>(list.values());
-
-            String var = null;
-            if (!variables.containsValue(answers)) {
-                variables.put("x" + variableCounter, answers);
-                this.variableCounter++;
-            }
-            for (Entry<String, HashSet<Node>> entry : variables.entrySet()) {
-                HashSet<Node> tempAnswers = entry.getValue();
-                if (tempAnswers.equals(answers)) {
-                    var = entry.getKey();
-                    break;
-                }
-            }
-
-            Triple newPattern = Triple.create(triple.getSubject(), Var.alloc(var), triple.getObject());
-            this.triplesCovered.addAll(list.keySet());
-            return newPattern;
-        } else {
-            // all triples are covered
-            // or
-            // there is some overlap
+        String var = coverTriples(list);
+        if (var == null)
             return null;
-        }
-
+        return Triple.create(triple.getSubject(), Var.alloc(var), triple.getObject());
     }
 
     /**
@@ -348,149 +532,182 @@ public class SelectQueryInfo {
      * @return the new triple
      */
     public Triple createObjectPattern(Triple triple, HashMap<Integer, Node> list) {
+        String var = coverTriples(list);
+        if (var == null)
+            return null;
+        return Triple.create(triple.getSubject(), triple.getPredicate(), Var.alloc(var));
+    }
 
-        HashSet<Integer> ids = new HashSet<Integer>(list.keySet());
-        Set<Integer> intersection = new HashSet<Integer>(this.triplesCovered);
-        intersection.retainAll(ids);
-
+    /**
+     * Marks the triples of a triple pattern as covered, if none of them is
+     * already covered, and returns the name of the variable whose answers are
+     * the converted nodes of the triples. A new variable is created if no
+     * variable has the same answers.
+     * 
+     * @param list,
+     *            a map that contains the ids of the original triples and the
+     *            corresponding answer
+     * @return the name of the variable, or null if some of the triples are
+     *         already covered
+     */
+    private String coverTriples(HashMap<Integer, Node> list) {
+        // all triples are covered or there is some overlap
+        for (Integer id : list.keySet()) {
+            if (this.triplesCovered.get(id))
+                return null;
+        }
         // all new triples
-        if (intersection.isEmpty()) {
-            HashSet<Node> answers = new HashSet<Node>(list.values());
-
-            String var = null;
-            if (!variables.containsValue(answers)) {
-                variables.put("x" + variableCounter, answers);
-                this.variableCounter++;
-            }
-            for (Entry<String, HashSet<Node>> entry : variables.entrySet()) {
-                HashSet<Node> tempAnswers = entry.getValue();
-                if (tempAnswers.equals(answers)) {
-                    var = entry.getKey();
-                    break;
-                }
-            }
+        HashSet<Node> answers = new HashSet<Node>(list.values());
+        String var = variableNames.get(answers);
+        if (var == null) {
+            // a new variable adds its answers to the answers of the query
+            if (targetCardinality > 0 && variableCounter > 0
+                    && estimatedCardinality + answers.size() > targetCardinality)
+                return null;
+            estimatedCardinality += answers.size();
+            var = "x" + variableCounter;
+            variables.put(var, answers);
+            variableNames.put(answers, var);
+            this.variableCounter++;
+        }
+        for (Integer id : list.keySet())
+            this.triplesCovered.set(id);
+        this.coveredCounter += list.size();
+        this.patternCounter++;
+        return var;
+    }
 
-            Triple newPattern = Triple.create(triple.getSubject(), triple.getPredicate(), Var.alloc(var));
-            this.triplesCovered.addAll(list.keySet());
-            return newPattern;
-        } else {
-            // all triples are covered
-            // or
-            // there is some overlap
-            return null;
+    /**
+     * Candidate triple pattern of the SELECT query. Keeps the size and the
+     * String representation of the triple pattern, so that they are computed
+     * once per triple pattern instead of once per comparison.
+     */
+    private static class Candidate implements Comparable<Candidate> {
+        /* Triple pattern */
+        private Entry<Triple, HashMap<Integer, Node>> entry;
+        /* Number of triples of the triple pattern */
+        private int size;
+        /* String representation of the triple pattern */
+        private String label;
+        /* Position of the triple pattern in the map of triple patterns */
+        private int ordinal;
+
+        public Candidate(Entry<Triple, HashMap<Integer, Node>> entry, int ordinal) {
+            this.entry = entry;
+            this.size = entry.getValue().size();
+            this.label = entry.getKey().toString();
+            this.ordinal = ordinal;
         }
 
+        @Override
+        public int compareTo(Candidate o) {
+            int com = Integer.compare(o.size, this.size);
+            if (com == 0)
+                com = o.label.compareTo(this.label);
+            // keep the order of equal triple patterns as a stable sort does
+            if (com == 0)
+                com = Integer.compare(this.ordinal, o.ordinal);
+            return com;
+        }
     }
 
     /**
      * Orders the map of triple patterns based on the frequency in the original
      * model. To secure the deterministic nature of the function, if two triple
      * patterns have the same frequency, the function compares the String
-     * representation of the triple patterns.
+     * representation of the triple patterns. The triple patterns are ordered
+     * lazily in a heap, since the SELECT query usually includes only a small
+     * part of them.
      * 
-     * @return an ordered map of triples patterns based on their frequency
+     * @return an iterator over the triple patterns ordered by their frequency
      */
-    private Map<Triple, HashMap<Integer, Node>> sortBySizeOfValues() {
-
-        List<Entry<Triple, HashMap<Integer, Node>>> list = new LinkedList<Entry<Triple, HashMap<Integer, Node>>>(
-                tps.entrySet());
-
-        // Sorting the list based on values
-        Collections.sort(list, new Comparator<Entry<Triple, HashMap<Integer, Node>>>() {
-            public int compare(Entry<Triple, HashMap<Integer, Node>> o1, Entry<Triple, HashMap<Integer, Node>> o2) {
-                String tp1 = o1.getKey().toString();
-                String tp2 = o2.getKey().toString();
-                HashMap<Integer, Node> list1 = o1.getValue();
-                HashMap<Integer, Node> list2 = o2.getValue();
-                Integer length1 = list1.size();
-                Integer length2 = list2.size();
-                int com = length2.compareTo(length1);
-                if (com == 0) {
-                    return tp2.compareTo(tp1);
-                } else
-                    return length2.compareTo(length1);
-            }
-        });
+    private Iterator<Entry<Triple, HashMap<Integer, Node>>> sortBySizeOfValues() {
 
-        // Maintaining insertion order with the help of LinkedList
-        Map<Triple, HashMap<Integer, Node>> sortedMap = new LinkedHashMap<Triple, HashMap<Integer, Node>>();
-        for (Entry<Triple, HashMap<Integer, Node>> entry : list) {
-            sortedMap.put(entry.getKey(), entry.getValue());
+        ArrayList<Candidate> candidates = new ArrayList<Candidate>(tps.size());
+        for (Entry<Triple, HashMap<Integer, Node>> entry : tps.entrySet()) {
+            candidates.add(new Candidate(entry, candidates.size()));
         }
+        // the heap is built in linear time
+        final PriorityQueue<Candidate> heap = new PriorityQueue<Candidate>(candidates);
+
+        return new Iterator<Entry<Triple, HashMap<Integer, Node>>>() {
+            @Override
+            public boolean hasNext() {
+                return !heap.isEmpty();
+            }
 
-        return sortedMap;
+            @Override
+            public Entry<Triple, HashMap<Integer, Node>> next() {
+                if (heap.isEmpty())
+                    throw new NoSuchElementException();
+                return heap.poll().entry;
+            }
+        };
     }
 
     /**
-     * Creates a SELECT SPARQL query given a set of INSERT SPARQL queries (as a
-     * UTF-8 encoded String) and stores it into a file. This method uses a Least
-     * General Generalization (LGG) technique. The aim of this function is
-     * three-fold: create a SELECT query that (1) includes the least number of
-     * triple patterns, (2) checks if at least 50% of the original inserted
-     * triples have been successfully added to the triple store and (3)
-     * retrieves the smallest possible answer set.
+     * Selects the triple patterns of the SELECT SPARQL query given the model of
+     * its INSERT SPARQL queries. The triple patterns are grouped by their
+     * variable, in the order the variables are created.
      * 
-     * Initially, it converts each original triple of the INSERT SPARQL queries
-     * into a new triple by changing one element of the original triple, at a
-     * time, to a temporary node with label "?". Then, it places each new triple
-     * into a map (tps) that has as keys the new triples and as values another
-     * map that has as keys the ids of the original triples and as values the
-     * element of the triple that was covered into a variable. Secondly, it
-     * orders the map of triple patterns based on the frequency in the original
-     * model.
+     * @param model,
+     *            the model of the INSERT queries of the stream
+     * @return a map with keys the variables and values their triple patterns
+     */
+    public LinkedHashMap<Node, HashSet<Triple>> selectTriplePatterns(Model model) {
+        createTriplePatterns(model);
+        return selectTriplePatterns();
+    }
+
+    /**
+     * Selects the triple patterns of the SELECT SPARQL query given the triples
+     * of its INSERT SPARQL queries encoded by a term dictionary.
      * 
-     * Finally, once the ordered map of the triples is received, it creates a
-     * SELECT SPARQL query including at least half of most frequent triples of
-     * the initial INSERT queries.
+     * @param triples,
+     *            the triples of the INSERT queries of the stream
+     * @return a map with keys the variables and values their triple patterns
+     */
+    public LinkedHashMap<Node, HashSet<Triple>> selectTriplePatterns(EncodedTriples triples) {
+        createTriplePatterns(triples);
+        return selectTriplePatterns();
+    }
+
+    /**
+     * Selects the triple patterns of the SELECT SPARQL query from the map of
+     * triple patterns. Let n be the number of converted triples, i.e. the
+     * number of triples of the stream or the sample size if the stream was
+     * sampled. The triple patterns are selected until they cover at least
+     * min(n, maxRequestedPatterns) / 2 of the converted triples, with the
+     * following exceptions:
      * 
-     * Note that, all triple patterns with different variable names are connect
-     * with each other in the SELECT query using the UNION clause.
+     * (1) if a maximum number of triple patterns is set, the selection stops
+     * once the query has that many triple patterns, even if fewer triples are
+     * covered.
      * 
+     * (2) if a target cardinality is set, a triple pattern that introduces a
+     * new variable is skipped if the answers of the new variable would make
+     * the estimated answers of the query exceed the target. The estimate is
+     * the sum of the answers of all variables, an upper bound of the answers
+     * of the query over the converted triples. The first variable is never
+     * skipped, so that the query is never empty. If the stream was sampled,
+     * the triple patterns may have more answers over the whole stream.
      * 
-     * @param insertQueries,
-     *            a set of UTF-8 encoded String representations of the INSERT
-     *            queries
-     * @param outputFolder,
-     *            the output folder to store the SELECT query
-     * @param streamCounter,
-     *            the ID of the stream that the SELECT query belongs to
-     * @param graphName,
-     *            the name of the graph that the select query will be performed
-     *            against
+     * @return a map with keys the variables and values their triple patterns
      */
+    private LinkedHashMap<Node, HashSet<Triple>> selectTriplePatterns() {
 
-    public void createSelectQuery(ArrayList<InsertQueryInfo> insertQueries, String outputFolder, int streamCounter,
-            String graphName) {
-
-        outputFolder = outputFolder + "selectQueries/";
-        File newFolder = new File(outputFolder);
-        if (!newFolder.exists())
-            newFolder.mkdir();
-
-        Model model = ModelFactory.createDefaultModel();
-        for (InsertQueryInfo insertQuery : insertQueries) {
-            String fileName = insertQuery.getModelFile();
-            Model tempModel = ModelFactory.createDefaultModel();
-            tempModel.read(fileName);
-            model.add(tempModel);
-        }
-        logger.info("Finished reading the model");
-        // logger.info("Size of model: " + model.size());
-        // logger.info("Read all files");
-        createTriplePatterns(model);
-        // logger.info("Created triple patterns");
-
-        Map<Triple, HashMap<Integer, Node>> sortedTps = sortBySizeOfValues();
+        Iterator<Entry<Triple, HashMap<Integer, Node>>> sortedTps = sortBySizeOfValues();
         logger.info("Finished sorting triples");
         LinkedHashMap<Node, HashSet<Triple>> triples = new LinkedHashMap<Node, HashSet<Triple>>();
 
-        // int tpCovered = (int) this.quadCounter.size() / 2;
-        int tpCovered = (int) Math.min(this.quadCounter.size(), maxRequestedPatterns) / 2;
+        // int tpCovered = (int) this.quadCounter / 2;
+        int tpCovered = (int) Math.min(this.quadCounter, maxRequestedPatterns) / 2;
 
-        // logger.info("quadCounter: " + this.quadCounter.size());
+        // logger.info("quadCounter: " + this.quadCounter);
         // logger.info("tpCovered: " + tpCovered);
 
-        for (Map.Entry<Triple, HashMap<Integer, Node>> entry : sortedTps.entrySet()) {
+        while (sortedTps.hasNext()) {
+            Entry<Triple, HashMap<Integer, Node>> entry = sortedTps.next();
             Triple key = entry.getKey();
             HashMap<Integer, Node> value = entry.getValue();
             // logger.info("\n\n");
@@ -537,22 +754,108 @@ public class SelectQueryInfo {
 
             }
 
-            HashSet<Integer> ids = new HashSet<Integer>(this.triplesCovered);
-            HashSet<Integer> intersection = new HashSet<Integer>(this.quadCounter);
-            intersection.retainAll(ids);
-
-            int currentCovered = tpCovered - intersection.size();
+            int currentCovered = tpCovered - this.coveredCounter;
 
             // logger.info("Total must be covered: " + tpCovered + " Covered: "
-            // + intersection.size() + " Remaining: "
+            // + this.coveredCounter + " Remaining: "
             // + currentCovered);
 
             if (currentCovered <= 0)
                 break;
+            if (maxPatterns > 0 && this.patternCounter >= maxPatterns)
+                break;
 
         }
+        return triples;
+    }
+
+    /**
+     * Creates a SELECT SPARQL query given a set of INSERT SPARQL queries (as a
+     * UTF-8 encoded String) and stores it into a file. This method uses a Least
+     * General Generalization (LGG) technique. The aim of this function is
+     * three-fold: create a SELECT query that (1) includes the least number of
+     * triple patterns, (2) checks if at least 50% of the original inserted
+     * triples have been successfully added to the triple store and (3)
+     * retrieves the smallest possible answer set.
+     * 
+     * Initially, it converts each original triple of the INSERT SPARQL queries
+     * into a new triple by changing one element of the original triple, at a
+     * time, to a temporary node with label "?". Then, it places each new triple
+     * into a map (tps) that has as keys the new triples and as values another
+     * map that has as keys the ids of the original triples and as values the
+     * element of the triple that was covered into a variable. Secondly, it
+     * orders the map of triple patterns based on the frequency in the original
+     * model.
+     * 
+     * Finally, once the ordered map of the triples is received, it creates a
+     * SELECT SPARQL query including at least half of most frequent triples of
+     * the initial INSERT queries, up to the number of requested patterns. For
+     * very large streams, the triples can be sampled and the query can be
+     * bounded by a maximum number of triple patterns and a target number of
+     * answers, as described in selectTriplePatterns.
+     * 
+     * Note that, all triple patterns with different variable names are connect
+     * with each other in the SELECT query using the UNION clause, in the shape
+     * defined by the union shape of the query.
+     * 
+     * 
+     * @param insertQueries,
+     *            a set of UTF-8 encoded String representations of the INSERT
+     *            queries
+     * @param outputFolder,
+     *            the output folder to store the SELECT query
+     * @param streamCounter,
+     *            the ID of the stream that the SELECT query belongs to
+     * @param graphName,
+     *            the name of the graph that the select query will be performed
+     *            against
+     */
+
+    public void createSelectQuery(ArrayList<InsertQueryInfo> insertQueries, String outputFolder, int streamCounter,
+            String graphName) {
+        createSelectQuery(insertQueries, outputFolder, streamCounter, graphName, new TermDictionary());
+    }
+
+    /**
+     * Creates a SELECT SPARQL query given a set of INSERT SPARQL queries, as
+     * described above, reading the triples of the INSERT queries as ids of
+     * the term dictionary of the Data Generator. The triples kept in memory by
+     * the INSERT queries are used, and their model files are read only if
+     * they are not kept.
+     * 
+     * @param insertQueries,
+     *            a set of UTF-8 encoded String representations of the INSERT
+     *            queries
+     * @param outputFolder,
+     *            the output folder to store the SELECT query
+     * @param streamCounter,
+     *            the ID of the stream that the SELECT query belongs to
+     * @param graphName,
+     *            the name of the graph that the select query will be performed
+     *            against
+     * @param dictionary,
+     *            the term dictionary of the Data Generator
+     */
+    public void createSelectQuery(ArrayList<InsertQueryInfo> insertQueries, String outputFolder, int streamCounter,
+            String graphName, TermDictionary dictionary) {
+
+        outputFolder = outputFolder + "selectQueries/";
+        File newFolder = new File(outputFolder);
+        if (!newFolder.exists())
+            newFolder.mkdir();
+
+        EncodedTriples model = new EncodedTriples(dictionary);
+        for (InsertQueryInfo insertQuery : insertQueries) {
+            // use the triples kept by the INSERT query instead of its file
+            if (insertQuery.getTriples() != null)
+                model.addAll(insertQuery.getTriples());
+            else
+                model.read(insertQuery.getModelFile());
+        }
+        logger.info("Finished reading the model");
+        LinkedHashMap<Node, HashSet<Triple>> triples = selectTriplePatterns(model);
 
-        Op op = null;
+        ArrayList<Op> ops = new ArrayList<Op>(triples.size());
         BasicPattern pattern = null;
         for (Entry<Node, HashSet<Triple>> entry : triples.entrySet()) {
             HashSet<Triple> value = entry.getValue();
@@ -560,8 +863,9 @@ public class SelectQueryInfo {
             for (Triple triple : value) {
                 pattern.add(triple);
             }
-            op = OpUnion.create(op, new OpBGP(pattern));
+            ops.add(new OpBGP(pattern));
         }
+        Op op = unionShape.union(ops);
 
         Query q = OpAsQuery.asQuery(op); // Convert to a query
         q.addGraphURI(graphName);
@@ -0,0 +1,130 @@
+package org.hobbit.odin.odindatagenerator;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.rdf.model.StmtIterator;
+import org.apache.log4j.Logger;
+
+/**
+ * Sub-Graph Extractor class. Indexes the statements of a source model by
+ * subject and by object once, and computes the in-link and out-link closure
+ * of an event resource iteratively (breadth first) over these indexes. The
+ * closures are identical to the ones computed by the recursive
+ * {@link DataProcessor#getInLinks(RDFNode, Model, Model)} and
+ * {@link DataProcessor#getOutLinks(org.apache.jena.rdf.model.Resource, Model, Model)},
+ * but the cost of each closure is proportional to its size.
+ *
+ * @author Kleanthi Georgala (georgala@informatik.uni-leipzig.de)
+ * @version 1.0
+ *
+ */
+public class SubGraphExtractor {
+    protected static final Logger logger = Logger.getLogger(SubGraphExtractor.class.getName());
+    /* Source model */
+    private Model model = null;
+    /* Map with keys the subjects and values their outgoing statements */
+    private HashMap<Node, ArrayList<Statement>> subjectIndex = new HashMap<Node, ArrayList<Statement>>();
+    /* Map with keys the objects and values their incoming statements */
+    private HashMap<Node, ArrayList<Statement>> objectIndex = new HashMap<Node, ArrayList<Statement>>();
+
+    /* Constructor */
+    public SubGraphExtractor(Model model) {
+        this.model = model;
+        StmtIterator it = model.listStatements();
+        while (it.hasNext()) {
+            Statement s = it.next();
+            addToIndex(subjectIndex, s.getSubject().asNode(), s);
+            addToIndex(objectIndex, s.getObject().asNode(), s);
+        }
+        logger.debug("Indexed " + model.size() + " statements with " + subjectIndex.size() + " subjects and "
+                + objectIndex.size() + " objects.");
+    }
+
+    /* Getters */
+    public Model getModel() {
+        return model;
+    }
+
+    private static void addToIndex(HashMap<Node, ArrayList<Statement>> index, Node node, Statement statement) {
+        ArrayList<Statement> statements = index.get(node);
+        if (statements == null) {
+            statements = new ArrayList<Statement>();
+            index.put(node, statements);
+        }
+        statements.add(statement);
+    }
+
+    /**
+     * Returns the sub-model that includes all inlinks and corresponding nodes
+     * with root a predefined resource, i.e. all statements whose object is the
+     * root or any node that reaches the root.
+     *
+     * @param resource,
+     *            the root resource
+     * @return the sub-model
+     */
+    public Model getInLinks(RDFNode resource) {
+        Model newModel = ModelFactory.createDefaultModel();
+        HashSet<Node> visited = new HashSet<Node>();
+        ArrayDeque<Node> queue = new ArrayDeque<Node>();
+        visited.add(resource.asNode());
+        queue.add(resource.asNode());
+
+        while (!queue.isEmpty()) {
+            ArrayList<Statement> statements = objectIndex.get(queue.poll());
+            if (statements == null)
+                continue;
+            newModel.add(statements);
+            for (Statement s : statements) {
+                Node subject = s.getSubject().asNode();
+                if (visited.add(subject))
+                    queue.add(subject);
+            }
+        }
+        return newModel;
+    }
+
+    /**
+     * Returns the sub-model that includes all outlinks and corresponding nodes
+     * with root a predefined resource, i.e. all statements whose subject is
+     * the root or any resource reachable from the root. Links of connection
+     * data (nextConnection) are included but not followed.
+     *
+     * @param resource,
+     *            the root resource
+     * @return the sub-model
+     */
+    public Model getOutLinks(RDFNode resource) {
+        Model newModel = ModelFactory.createDefaultModel();
+        HashSet<Node> visited = new HashSet<Node>();
+        ArrayDeque<Node> queue = new ArrayDeque<Node>();
+        visited.add(resource.asNode());
+        queue.add(resource.asNode());
+
+        while (!queue.isEmpty()) {
+            ArrayList<Statement> statements = subjectIndex.get(queue.poll());
+            if (statements == null)
+                continue;
+            newModel.add(statements);
+            for (Statement s : statements) {
+                if (!s.getObject().isResource())
+                    continue;
+                // for connections data only
+                if (s.getPredicate().getURI().contains("nextConnection"))
+                    continue;
+                Node object = s.getObject().asNode();
+                if (visited.add(object))
+                    queue.add(object);
+            }
+        }
+        return newModel;
+    }
+}
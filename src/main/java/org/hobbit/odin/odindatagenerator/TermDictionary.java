@@ -0,0 +1,78 @@
+package org.hobbit.odin.odindatagenerator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import org.apache.jena.graph.Node;
+import org.apache.log4j.Logger;
+
+/**
+ * Term Dictionary class. Maps the RDF terms of the triples of a Data Generator
+ * to dense int ids, starting from 0, so that the triples of the INSERT and
+ * SELECT SPARQL queries can be kept as ids and all of them share a single Node
+ * instance for each distinct IRI, literal and blank node. The dictionary is
+ * not thread-safe and is used by the thread that creates the streams.
+ *
+ * @author Kleanthi Georgala (georgala@informatik.uni-leipzig.de)
+ * @version 1.0
+ *
+ */
+public class TermDictionary {
+    protected static final Logger logger = Logger.getLogger(TermDictionary.class.getName());
+
+    /* Map with keys the terms and values their ids */
+    private HashMap<Node, Integer> ids = new HashMap<Node, Integer>();
+    /* Terms in order of their ids */
+    private ArrayList<Node> terms = new ArrayList<Node>();
+
+    /* Getters */
+    public int size() {
+        return terms.size();
+    }
+
+    /**
+     * Returns the id of a term. A new id is assigned to terms that are not in
+     * the dictionary.
+     *
+     * @param node,
+     *            the term
+     * @return the id of the term
+     */
+    public int encode(Node node) {
+        Integer id = ids.get(node);
+        if (id == null) {
+            id = terms.size();
+            ids.put(node, id);
+            terms.add(node);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the term of an id.
+     *
+     * @param id,
+     *            the id of the term
+     * @return the term
+     */
+    public Node decode(int id) {
+        if (id < 0 || id >= terms.size()) {
+            logger.error("Unknown term id: " + id);
+            throw new RuntimeException();
+        }
+        return terms.get(id);
+    }
+
+    /**
+     * Returns the shared instance of a term, so that equal terms read from
+     * different files are kept once.
+     *
+     * @param node,
+     *            the term
+     * @return the instance of the term kept in the dictionary
+     */
+    public Node intern(Node node) {
+        return terms.get(encode(node));
+    }
+
+}
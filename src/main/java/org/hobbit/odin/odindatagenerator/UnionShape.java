@@ -0,0 +1,76 @@
+package org.hobbit.odin.odindatagenerator;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.jena.sparql.algebra.Op;
+import org.apache.jena.sparql.algebra.op.OpUnion;
+import org.apache.log4j.Logger;
+
+/**
+ * Union shape class. Defines how the basic graph patterns of a SELECT SPARQL
+ * query are connected with UNION: LEFT_DEEP nests each UNION into the left
+ * side of the next one, so that the depth of the query grows with the number
+ * of basic graph patterns, BALANCED splits them into two halves at every UNION,
+ * so that the depth grows with the logarithm of their number. Both shapes keep
+ * the order of the basic graph patterns and have the same answers.
+ *
+ * @author Kleanthi Georgala (georgala@informatik.uni-leipzig.de)
+ * @version 1.0
+ *
+ */
+public enum UnionShape {
+
+    LEFT_DEEP, BALANCED;
+
+    protected static final Logger logger = Logger.getLogger(UnionShape.class.getName());
+
+    /**
+     * Factory function that returns the correct union shape given a name.
+     *
+     * @param name,
+     *            the name of the union shape
+     * @return the corresponding union shape
+     * @throws IOException
+     *             if the input name does not correspond to any valid union
+     *             shape
+     */
+    public static UnionShape getUnionShape(String name) throws IOException {
+        switch (name) {
+        case ("LEFT_DEEP"):
+            return LEFT_DEEP;
+        case ("BALANCED"):
+            return BALANCED;
+        default:
+            logger.error("Unknown union shape: " + name);
+            throw new IOException();
+        }
+
+    }
+
+    /**
+     * Connects a list of algebra expressions with UNION.
+     *
+     * @param ops,
+     *            the algebra expressions
+     * @return the UNION of the expressions, or null if the list is empty
+     */
+    public Op union(List<Op> ops) {
+        if (ops.isEmpty())
+            return null;
+        if (this == BALANCED)
+            return union(ops, 0, ops.size());
+        Op op = null;
+        for (Op current : ops)
+            op = OpUnion.create(op, current);
+        return op;
+    }
+
+    private static Op union(List<Op> ops, int from, int to) {
+        if (to - from == 1)
+            return ops.get(from);
+        int middle = (from + to) >>> 1;
+        return OpUnion.create(union(ops, from, middle), union(ops, middle, to));
+    }
+
+}
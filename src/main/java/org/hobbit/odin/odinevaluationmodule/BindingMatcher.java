@@ -0,0 +1,242 @@
+package org.hobbit.odin.odinevaluationmodule;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Binding Matcher class. Indexes the received bindings of a task by a hash of
+ * their canonical keys (see {@link ResultValue#getKey()}), so that each
+ * expected binding is matched by hash lookups instead of a scan over all
+ * received bindings. Every candidate found by hash is verified with the
+ * equality of the bindings, so an expected binding is matched if and only if
+ * at least one received binding is equal to it, exactly as with a nested loop.
+ *
+ * Expected bindings that include blank nodes, or whose doubles span too many
+ * buckets, are compared against all received bindings with the same
+ * variables.
+ *
+ * Bindings are read from {@link ResultTable}s, the hash of a binding is the
+ * sum of the hashes of its variable/key pairs and does not depend on the
+ * columns of the tables.
+ *
+ * @author Kleanthi Georgala (georgala@informatik.uni-leipzig.de)
+ * @version 1.0
+ *
+ */
+public class BindingMatcher {
+    /* Maximum number of keys probed for one expected binding */
+    public static final int MAX_PROBES = 1024;
+    /* Number of neighbouring buckets probed for each double value */
+    private static final int BUCKET_RANGE = 2;
+    /* End of a chain of rows */
+    private static final int NONE = -1;
+
+    /* Received bindings */
+    private ResultTable received;
+    /* Map with keys hashes of bindings and values their first received row */
+    private HashMap<Long, Integer> index = new HashMap<Long, Integer>();
+    /* Next received row with the same hash */
+    private int[] nextInIndex;
+    /* Map with keys hashes of sets of variables and values their first row */
+    private HashMap<Long, Integer> signatures = new HashMap<Long, Integer>();
+    /* Next received row with the same variables hash */
+    private int[] nextInSignature;
+
+    /* Expected table the alignment was computed for */
+    private ResultTable aligned = null;
+    /* Received column of each expected column */
+    private int[] alignment = null;
+
+    /* Constructors */
+    public BindingMatcher(ResultTable receivedAnswers) {
+        this.received = receivedAnswers;
+        this.nextInIndex = new int[received.size()];
+        this.nextInSignature = new int[received.size()];
+        // rows are prepended to their chains, so chains are built backwards
+        for (int row = received.size() - 1; row >= 0; row--) {
+            long signature = 0;
+            long hash = 0;
+            boolean indexed = true;
+            for (int cell = received.getRowStart(row); cell < received.getRowEnd(row); cell++) {
+                String variable = received.getVariable(received.getCellColumn(cell));
+                signature += variableHash(variable);
+                byte kind = received.getCellKind(cell);
+                if (kind == ResultTable.STRING) {
+                    hash += cellHash(variable, kind, received.getCellString(cell).hashCode());
+                } else if (kind == ResultTable.DOUBLE && hasBucket(received.getCellDouble(cell))) {
+                    hash += cellHash(variable, kind, ResultValue.getBucket(received.getCellDouble(cell)));
+                } else {
+                    // bindings without key can only be matched by blank nodes
+                    indexed = false;
+                }
+            }
+            Integer first = signatures.put(signature, row);
+            nextInSignature[row] = (first == null) ? NONE : first;
+            nextInIndex[row] = NONE;
+            if (indexed) {
+                first = index.put(hash, row);
+                nextInIndex[row] = (first == null) ? NONE : first;
+            }
+        }
+    }
+
+    public BindingMatcher(List<HashMap<String, ResultValue>> receivedAnswers) {
+        this(ResultTable.fromBindings(receivedAnswers));
+    }
+
+    /**
+     * Checks if any received binding is equal to an expected binding.
+     *
+     * @param expectedBinding,
+     *            the expected binding
+     * @return true if a received binding is equal to the expected binding
+     */
+    public boolean matches(HashMap<String, ResultValue> expectedBinding) {
+        return matches(ResultTable.fromBindings(Collections.singletonList(expectedBinding)), 0);
+    }
+
+    /**
+     * Checks if any received binding is equal to an expected binding.
+     *
+     * @param expected,
+     *            the table of the expected binding
+     * @param row,
+     *            the row of the expected binding
+     * @return true if a received binding is equal to the expected binding
+     */
+    public boolean matches(ResultTable expected, int row) {
+        align(expected);
+        int start = expected.getRowStart(row);
+        int cells = expected.getRowEnd(row) - start;
+        long hash = 0;
+        // hashes of the candidate buckets of each double value
+        long[][] candidates = new long[cells][];
+        long probes = 1;
+        for (int i = 0; i < cells; i++) {
+            int cell = start + i;
+            String variable = expected.getVariable(expected.getCellColumn(cell));
+            byte kind = expected.getCellKind(cell);
+            // blank nodes are equal to every non-null value
+            if (kind == ResultTable.BLANK_NODE)
+                return scan(expected, row);
+            if (kind == ResultTable.STRING) {
+                hash += cellHash(variable, kind, expected.getCellString(cell).hashCode());
+                continue;
+            }
+            double value = expected.getCellDouble(cell);
+            // zero and non finite doubles are not equal to any value
+            if (!hasBucket(value))
+                return false;
+            long bucket = ResultValue.getBucket(value) >> 1;
+            long sign = ResultValue.getBucket(value) & 1l;
+            candidates[i] = new long[2 * BUCKET_RANGE + 1];
+            for (int j = 0; j < candidates[i].length; j++)
+                candidates[i][j] = cellHash(variable, kind, ((bucket + j - BUCKET_RANGE) << 1) | sign);
+            probes *= candidates[i].length;
+        }
+        if (probes > MAX_PROBES)
+            return scan(expected, row);
+
+        // probe every combination of candidate buckets
+        int[] positions = new int[cells];
+        while (true) {
+            long key = hash;
+            for (int i = 0; i < cells; i++) {
+                if (candidates[i] != null)
+                    key += candidates[i][positions[i]];
+            }
+            Integer first = index.get(key);
+            for (int other = (first == null) ? NONE : first; other != NONE; other = nextInIndex[other]) {
+                if (equalBindings(expected, row, other))
+                    return true;
+            }
+            int i = 0;
+            while (i < cells && (candidates[i] == null || ++positions[i] == candidates[i].length)) {
+                positions[i] = 0;
+                i++;
+            }
+            if (i == cells)
+                return false;
+        }
+    }
+
+    /**
+     * Compares an expected binding against all received bindings with the
+     * same variables.
+     *
+     * @param expected,
+     *            the table of the expected binding
+     * @param row,
+     *            the row of the expected binding
+     * @return true if a received binding is equal to the expected binding
+     */
+    private boolean scan(ResultTable expected, int row) {
+        long signature = 0;
+        for (int cell = expected.getRowStart(row); cell < expected.getRowEnd(row); cell++)
+            signature += variableHash(expected.getVariable(expected.getCellColumn(cell)));
+        Integer first = signatures.get(signature);
+        for (int other = (first == null) ? NONE : first; other != NONE; other = nextInSignature[other]) {
+            if (equalBindings(expected, row, other))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks if an expected binding is equal to a received binding, as done by
+     * the equality of the corresponding maps of {@link ResultValue}s: both
+     * bindings must have the same variables and every expected value must be
+     * equal to the received value of the same variable.
+     */
+    private boolean equalBindings(ResultTable expected, int row, int receivedRow) {
+        int receivedStart = received.getRowStart(receivedRow);
+        int receivedEnd = received.getRowEnd(receivedRow);
+        if (expected.getRowEnd(row) - expected.getRowStart(row) != receivedEnd - receivedStart)
+            return false;
+        for (int cell = expected.getRowStart(row); cell < expected.getRowEnd(row); cell++) {
+            int column = alignment[expected.getCellColumn(cell)];
+            int receivedCell = receivedStart;
+            while (receivedCell < receivedEnd && received.getCellColumn(receivedCell) != column)
+                receivedCell++;
+            if (receivedCell == receivedEnd || !ResultTable.equalValues(expected, cell, received, receivedCell))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Maps the columns of an expected table to the columns of the received
+     * table.
+     */
+    private void align(ResultTable expected) {
+        if (aligned == expected && alignment.length == expected.getVariables().size())
+            return;
+        aligned = expected;
+        alignment = new int[expected.getVariables().size()];
+        for (int column = 0; column < alignment.length; column++)
+            alignment[column] = received.getColumn(expected.getVariable(column));
+    }
+
+    private static boolean hasBucket(double d) {
+        return d != 0.0d && !Double.isNaN(d) && !Double.isInfinite(d);
+    }
+
+    private static long variableHash(String variable) {
+        return mix(variable.hashCode());
+    }
+
+    private static long cellHash(String variable, byte kind, long key) {
+        return mix(mix(variable.hashCode() * 31l + kind) + key);
+    }
+
+    /* Finalizer of MurmurHash3 */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdl;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53l;
+        h ^= h >>> 33;
+        return h;
+    }
+}
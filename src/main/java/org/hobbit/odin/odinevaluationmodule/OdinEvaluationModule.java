@@ -1,20 +1,26 @@
 package org.hobbit.odin.odinevaluationmodule;
 
-import java.io.ByteArrayInputStream;
-import java.io.InputStream;
+import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.jena.datatypes.xsd.XSDDatatype;
 import org.apache.jena.query.QuerySolution;
 import org.apache.jena.query.ResultSet;
-import org.apache.jena.query.ResultSetFactory;
 import org.apache.jena.rdf.model.Literal;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
@@ -46,11 +52,11 @@ public class OdinEvaluationModule extends AbstractEvaluationModule {
     /* Final evaluation model */
     private Model finalModel = ModelFactory.createDefaultModel();
     /* Number of total true positives */
-    private int totalTruePositives = 0;
+    private LongAdder totalTruePositives = new LongAdder();
     /* Number of total fasl positives */
-    private int totalFalsePositives = 0;
+    private LongAdder totalFalsePositives = new LongAdder();
     /* Number of total false negatives */
-    private int totalFalseNegatives = 0;
+    private LongAdder totalFalseNegatives = new LongAdder();
 
     /* Number of total recall */
     private double sumRecall = 0;
@@ -61,7 +67,7 @@ public class OdinEvaluationModule extends AbstractEvaluationModule {
     /*
      * Number of triples inserted into a triple store before recall felt below 1
      */
-    private double sumStreamModel = 0;
+    private DoubleAdder sumStreamModel = new DoubleAdder();
     /*
      * Sum of stream intervals before recall felt below 1
      */
@@ -71,13 +77,31 @@ public class OdinEvaluationModule extends AbstractEvaluationModule {
      */
     private double sumTaskDelay = 0;
     /* Number of tasks */
-    private int taskCounter = 0;
-    private int delayCounter = 0;
+    private LongAdder taskCounter = new LongAdder();
+    private LongAdder delayCounter = new LongAdder();
     /*
      * Map with keys the unique time stamps that tasks were sent to the System
-     * Adapter and as values the corresponding tasks
+     * Adapter and as values the corresponding tasks, in order of arrival
      */
-    private TreeMap<Long, ArrayList<TaskEvaluation>> tasks = new TreeMap<Long, ArrayList<TaskEvaluation>>();
+    private ConcurrentSkipListMap<Long, ConcurrentSkipListMap<Long, TaskEvaluation>> tasks = new ConcurrentSkipListMap<Long, ConcurrentSkipListMap<Long, TaskEvaluation>>();
+    /*
+     * Map with keys the arrival number of tasks and values their recall,
+     * precision, stream interval and delay, which are not yet added to the
+     * sums. Floating point sums are built in order of arrival, so they do not
+     * depend on the order in which parallel evaluations finish
+     */
+    private ConcurrentSkipListMap<Long, double[]> pendingSums = new ConcurrentSkipListMap<Long, double[]>();
+    /* Arrival number of the next task */
+    private AtomicLong taskSequence = new AtomicLong();
+
+    /* Number of threads that evaluate tasks */
+    private int evaluationThreads = 1;
+    /* Thread pool of parallel evaluations */
+    private ExecutorService evaluationPool = null;
+    /* Limits the number of tasks waiting for evaluation */
+    private Semaphore evaluationWindow = null;
+    /* Parallel evaluations */
+    private ArrayList<Future<Void>> evaluations = new ArrayList<Future<Void>>();
 
     /* Property for micro-average-recall */
     private Property EVALUATION_MICRO_AVERAGE_RECALL = null;
@@ -97,6 +121,10 @@ public class OdinEvaluationModule extends AbstractEvaluationModule {
     private Property EVALUATION_MAX_TPS = null;
     /* Property for average triples-per-seconds */
     private Property EVALUATION_AVERAGE_TPS = null;
+    /* Property for the triples-per-second ceiling of the saturation mode */
+    private Property EVALUATION_SATURATION_TPS = null;
+    /* Triples-per-second ceiling of the saturation mode, -1 if not searched */
+    private double saturationTPS = -1;
 
     /* Property for task recall Cube Dataset */
     private Property EVALUATION_TASKS_EVALUATION_RECALL = null;
@@ -111,19 +139,27 @@ public class OdinEvaluationModule extends AbstractEvaluationModule {
 
     /* Setters and Getters */
     public TreeMap<Long, ArrayList<TaskEvaluation>> getTasks() {
-        return tasks;
+        TreeMap<Long, ArrayList<TaskEvaluation>> view = new TreeMap<Long, ArrayList<TaskEvaluation>>();
+        for (Entry<Long, ConcurrentSkipListMap<Long, TaskEvaluation>> entry : tasks.entrySet())
+            view.put(entry.getKey(), new ArrayList<TaskEvaluation>(entry.getValue().values()));
+        return view;
     }
 
     public void setTasks(TreeMap<Long, ArrayList<TaskEvaluation>> tasks) {
-        this.tasks = tasks;
+        this.tasks.clear();
+        for (Entry<Long, ArrayList<TaskEvaluation>> entry : tasks.entrySet()) {
+            for (TaskEvaluation task : entry.getValue())
+                addTask(entry.getKey(), taskSequence.getAndIncrement(), task);
+        }
     }
 
     public double getSumStreamModel() {
-        return sumStreamModel;
+        return sumStreamModel.sum();
     }
 
     public void setSumStreamModel(double sumStreamModel) {
-        this.sumStreamModel = sumStreamModel;
+        this.sumStreamModel.reset();
+        this.sumStreamModel.add(sumStreamModel);
     }
 
     public double getSumStreamInterval() {
@@ -151,27 +187,30 @@ public class OdinEvaluationModule extends AbstractEvaluationModule {
     }
 
     public int getTotalFalseNegatives() {
-        return totalFalseNegatives;
+        return totalFalseNegatives.intValue();
     }
 
     public void setTotalFalseNegatives(int totalFalseNegatives) {
-        this.totalFalseNegatives = totalFalseNegatives;
+        this.totalFalseNegatives.reset();
+        this.totalFalseNegatives.add(totalFalseNegatives);
     }
 
     public int getTotalFalsePositives() {
-        return totalFalsePositives;
+        return totalFalsePositives.intValue();
     }
 
     public void setTotalFalsePositives(int totalFalsePositives) {
-        this.totalFalsePositives = totalFalsePositives;
+        this.totalFalsePositives.reset();
+        this.totalFalsePositives.add(totalFalsePositives);
     }
 
     public int getTotalTruePositives() {
-        return totalTruePositives;
+        return totalTruePositives.intValue();
     }
 
     public void setTotalTruePositives(int totalTruePositives) {
-        this.totalTruePositives = totalTruePositives;
+        this.totalTruePositives.reset();
+        this.totalTruePositives.add(totalTruePositives);
     }
 
     public double getSumTaskDelay() {
@@ -183,11 +222,20 @@ public class OdinEvaluationModule extends AbstractEvaluationModule {
     }
 
     public int getTaskCounter() {
-        return taskCounter;
+        return taskCounter.intValue();
     }
 
     public void setTaskCounter(int taskCounter) {
-        this.taskCounter = taskCounter;
+        this.taskCounter.reset();
+        this.taskCounter.add(taskCounter);
+    }
+
+    public int getEvaluationThreads() {
+        return evaluationThreads;
+    }
+
+    public void setEvaluationThreads(int evaluationThreads) {
+        this.evaluationThreads = evaluationThreads;
     }
 
     public Property getEVALUATION_TASKS_EVALUATION_TPS() {
@@ -304,6 +352,22 @@ public class OdinEvaluationModule extends AbstractEvaluationModule {
         EVALUATION_AVERAGE_TPS = eVALUATION_AVERAGE_TPS;
     }
 
+    public Property getEVALUATION_SATURATION_TPS() {
+        return EVALUATION_SATURATION_TPS;
+    }
+
+    public void setEVALUATION_SATURATION_TPS(Property eVALUATION_SATURATION_TPS) {
+        EVALUATION_SATURATION_TPS = eVALUATION_SATURATION_TPS;
+    }
+
+    public double getSaturationTPS() {
+        return saturationTPS;
+    }
+
+    public void setSaturationTPS(double saturationTPS) {
+        this.saturationTPS = saturationTPS;
+    }
+
     public OdinEvaluationModule() {
     }
 
@@ -432,6 +496,25 @@ public class OdinEvaluationModule extends AbstractEvaluationModule {
         }
         setEVALUATION_TASKS_EVALUATION_DELAY(
                 this.finalModel.createProperty(env.get(OdinConstants.EVALUATION_TASKS_EVALUATION_DELAY)));
+
+        /* saturation TPS, optional */
+        if (env.containsKey(OdinConstants.EVALUATION_SATURATION_TPS)) {
+            setEVALUATION_SATURATION_TPS(
+                    this.finalModel.createProperty(env.get(OdinConstants.EVALUATION_SATURATION_TPS)));
+        }
+        /* value of the saturation TPS, only if the data generators searched for it */
+        if (env.containsKey(OdinConstants.EVALUATION_SATURATION_TPS_VALUE)) {
+            setSaturationTPS(Double.parseDouble(env.get(OdinConstants.EVALUATION_SATURATION_TPS_VALUE)));
+        }
+
+        /* number of evaluation threads, optional */
+        if (env.containsKey(OdinConstants.EVALUATION_THREADS)) {
+            int threads = Integer.parseInt(env.get(OdinConstants.EVALUATION_THREADS));
+            // non-positive values use all available cores
+            if (threads <= 0)
+                threads = Runtime.getRuntime().availableProcessors();
+            setEvaluationThreads(threads);
+        }
     }
 
     /**
@@ -476,6 +559,49 @@ public class OdinEvaluationModule extends AbstractEvaluationModule {
     @Override
     public void evaluateResponse(byte[] expectedData, byte[] receivedData, long taskSentTimestamp,
             long responseReceivedTimestamp) throws Exception {
+        long sequence = taskSequence.getAndIncrement();
+        if (getEvaluationThreads() <= 1) {
+            evaluateTask(sequence, expectedData, receivedData, taskSentTimestamp, responseReceivedTimestamp);
+            addPendingSums();
+            return;
+        }
+        if (evaluationPool == null) {
+            evaluationPool = Executors.newFixedThreadPool(getEvaluationThreads());
+            evaluationWindow = new Semaphore(2 * getEvaluationThreads());
+        }
+        // wait until a worker is available, so that received data is not
+        // buffered without bound
+        evaluationWindow.acquire();
+        evaluations.add(evaluationPool.submit(() -> {
+            try {
+                evaluateTask(sequence, expectedData, receivedData, taskSentTimestamp, responseReceivedTimestamp);
+            } finally {
+                evaluationWindow.release();
+            }
+            return null;
+        }));
+    }
+
+    /**
+     * Evaluates a task. Counters are updated atomically and the task
+     * evaluation is stored under its arrival number, so tasks can be evaluated
+     * in parallel.
+     * 
+     * @param sequence,
+     *            the arrival number of the task
+     * @param expectedData,
+     *            the expected data of the task
+     * @param receivedData,
+     *            the data received from the system
+     * @param taskSentTimestamp,
+     *            the time stamp the task was sent to the system
+     * @param responseReceivedTimestamp,
+     *            the time stamp the response was received
+     * @throws Exception
+     *             if the expected data can not be read
+     */
+    protected void evaluateTask(long sequence, byte[] expectedData, byte[] receivedData, long taskSentTimestamp,
+            long responseReceivedTimestamp) throws Exception {
 
         LOGGER.info("Evaluation of task begins.");
 
@@ -483,11 +609,10 @@ public class OdinEvaluationModule extends AbstractEvaluationModule {
         double delay = 0;
         if (responseReceivedTimestamp > 0) {
             delay = (responseReceivedTimestamp - taskSentTimestamp) / 1000d;
-            this.setSumTaskDelay(this.getSumTaskDelay() + delay);
-            ++this.delayCounter;
+            this.delayCounter.increment();
         }
 
-        this.setTaskCounter(this.getTaskCounter() + 1);
+        this.taskCounter.increment();
         // read expected data
         ByteBuffer expectedBuffer = ByteBuffer.wrap(expectedData);
         long modelSize = Long.valueOf(RabbitMQUtils.readString(expectedBuffer));
@@ -495,24 +620,24 @@ public class OdinEvaluationModule extends AbstractEvaluationModule {
         double streamBeginPoint = (double) Long.valueOf(RabbitMQUtils.readString(expectedBuffer)) / 1000l;
         double streamEndPoint = (double) Long.valueOf(RabbitMQUtils.readString(expectedBuffer)) / 1000l;
 
-        ArrayList<HashMap<String, ResultValue>> expectedAnswers = new ArrayList<HashMap<String, ResultValue>>();
-        InputStream inExpected = new ByteArrayInputStream(
-                RabbitMQUtils.readString(expectedBuffer).getBytes(StandardCharsets.UTF_8));
-        ResultSet expected = ResultSetFactory.fromJSON(inExpected);
-        expectedAnswers = this.getBindings(expected);
+        // the expected result set is read in place from the buffer
+        ResultTable expectedAnswers = new ResultTable();
+        if (expectedBuffer.remaining() > Integer.BYTES) {
+            int length = expectedBuffer.getInt();
+            expectedAnswers = SparqlJsonReader.read(expectedBuffer.array(),
+                    expectedBuffer.arrayOffset() + expectedBuffer.position(), length);
+            expectedBuffer.position(expectedBuffer.position() + length);
+        }
         LOGGER.info("Size of expected: "+expectedAnswers.size());
         ////////////////////////////////////////////////////////////////////////////////////////////////////
-        ArrayList<HashMap<String, ResultValue>> receivedAnswers = new ArrayList<HashMap<String, ResultValue>>();
-        InputStream inReceived = new ByteArrayInputStream(receivedData);
-        ResultSet received = null;
+        ResultTable receivedAnswers = new ResultTable();
         try {
-            received = ResultSetFactory.fromJSON(inReceived);
+            receivedAnswers = SparqlJsonReader.read(receivedData);
         } catch (Exception e) {
-            received = null;
+            receivedAnswers = new ResultTable();
             LOGGER.error(
                     "Evaluation module received results that are not in JSON format.\n Assigning empty results set to received results.");
         }
-        receivedAnswers = this.getBindings(received);
         LOGGER.info("Size of received: "+receivedAnswers.size());
         
         ////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -520,16 +645,10 @@ public class OdinEvaluationModule extends AbstractEvaluationModule {
         int falsePositives = 0;
         int falseNegatives = 0;
 
-        for (HashMap<String, ResultValue> expectedBinding : expectedAnswers) {
-            boolean tpFound = false;
-            for (HashMap<String, ResultValue> receivedBinding : receivedAnswers) {
-                
-                if (expectedBinding.equals(receivedBinding)) {
-                    tpFound = true;
-                    break;
-                }
-            }
-            if (tpFound == true)
+        // an expected binding is a TP if any received binding is equal to it
+        BindingMatcher matcher = new BindingMatcher(receivedAnswers);
+        for (int row = 0; row < expectedAnswers.size(); row++) {
+            if (matcher.matches(expectedAnswers, row) == true)
                 truePositives++;
             else
                 falseNegatives++;
@@ -544,17 +663,16 @@ public class OdinEvaluationModule extends AbstractEvaluationModule {
         
         if (Double.isNaN(precision) == true)
             precision = 0.0d;
-        this.setSumPrecision(this.getSumPrecision() + precision);
 
         if (Double.isNaN(recall) == true)
             recall = 0.0d;
-        this.setSumRecall(this.getSumRecall() + recall);
 
-        setSumStreamModel(getSumStreamModel() + modelSize);
-        setSumStreamInterval(getSumStreamInterval() + (streamEndPoint - streamBeginPoint));
-        setTotalFalseNegatives(getTotalFalseNegatives() + falseNegatives);
-        setTotalFalsePositives(getTotalFalsePositives() + falsePositives);
-        setTotalTruePositives(getTotalTruePositives() + truePositives);
+        this.sumStreamModel.add(modelSize);
+        this.totalFalseNegatives.add(falseNegatives);
+        this.totalFalsePositives.add(falsePositives);
+        this.totalTruePositives.add(truePositives);
+        this.pendingSums.put(sequence,
+                new double[] { recall, precision, streamEndPoint - streamBeginPoint, delay });
 
         LOGGER.info("recall "+recall);
         LOGGER.info("precision "+precision);
@@ -562,27 +680,73 @@ public class OdinEvaluationModule extends AbstractEvaluationModule {
         
         TaskEvaluation newEvaluation = new TaskEvaluation(recall, precision, tps, delay, receivedAnswers.size(),
                 expectedAnswers.size());
+        addTask(taskSentTimestamp, sequence, newEvaluation);
 
-        if (!getTasks().containsKey(taskSentTimestamp)) {
-            getTasks().put(taskSentTimestamp, new ArrayList<TaskEvaluation>());
+        LOGGER.info("Evaluation of task is over.");
+
+    }
+
+    private void addTask(long taskSentTimestamp, long sequence, TaskEvaluation task) {
+        tasks.computeIfAbsent(taskSentTimestamp, k -> new ConcurrentSkipListMap<Long, TaskEvaluation>())
+                .put(sequence, task);
+    }
+
+    /**
+     * Adds the recall, precision, stream interval and delay of all evaluated
+     * tasks to the corresponding sums, in order of arrival.
+     */
+    private synchronized void addPendingSums() {
+        while (!pendingSums.isEmpty()) {
+            double[] sums = pendingSums.pollFirstEntry().getValue();
+            this.setSumRecall(this.getSumRecall() + sums[0]);
+            this.setSumPrecision(this.getSumPrecision() + sums[1]);
+            this.setSumStreamInterval(this.getSumStreamInterval() + sums[2]);
+            this.setSumTaskDelay(this.getSumTaskDelay() + sums[3]);
         }
-        getTasks().get(taskSentTimestamp).add(newEvaluation);
+    }
 
-        LOGGER.info("Evaluation of task is over.");
+    /**
+     * Waits for all parallel evaluations to finish.
+     * 
+     * @throws Exception
+     *             if any evaluation failed
+     */
+    protected void awaitEvaluations() throws Exception {
+        if (evaluationPool == null)
+            return;
+        try {
+            for (Future<Void> evaluation : evaluations)
+                evaluation.get();
+        } catch (ExecutionException e) {
+            LOGGER.error("Exception while evaluating a task.", e.getCause());
+            throw (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+        } finally {
+            evaluations.clear();
+            evaluationPool.shutdown();
+            evaluationPool = null;
+        }
+        addPendingSums();
+    }
 
+    @Override
+    public void close() throws IOException {
+        if (evaluationPool != null)
+            evaluationPool.shutdownNow();
+        super.close();
     }
 
     @Override
     public Model summarizeEvaluation() throws Exception {
+        awaitEvaluations();
         LOGGER.info("Summary of Evaluation begins.");
-        LOGGER.info("ODIN Evaluation Module has evaluated " + this.taskCounter + " tasks");
+        LOGGER.info("ODIN Evaluation Module has evaluated " + this.getTaskCounter() + " tasks");
 
         if (this.experimentUri == null) {
             Map<String, String> env = System.getenv();
             this.experimentUri = env.get(Constants.HOBBIT_EXPERIMENT_URI_KEY);
         }
 
-        double averageTaskDelay = (double) this.getSumTaskDelay() / (double) this.delayCounter;
+        double averageTaskDelay = (double) this.getSumTaskDelay() / (double) this.delayCounter.sum();
         double averageTPS = (double) this.getSumStreamModel() / (double) this.getSumStreamInterval();
 
         // compute macro and micro averages KPIs
@@ -650,6 +814,11 @@ public class OdinEvaluationModule extends AbstractEvaluationModule {
         Literal averageTPSLiteral = finalModel.createTypedLiteral(averageTPS, XSDDatatype.XSDdouble);
         finalModel.add(experiment, EVALUATION_AVERAGE_TPS, averageTPSLiteral);
 
+        if (EVALUATION_SATURATION_TPS != null && this.saturationTPS >= 0) {
+            Literal saturationTPSLiteral = finalModel.createTypedLiteral(this.saturationTPS, XSDDatatype.XSDdouble);
+            finalModel.add(experiment, EVALUATION_SATURATION_TPS, saturationTPSLiteral);
+        }
+
         HashMap<String, Resource> evalResources = createCubeDatasets(experiment);
         addObservations(evalResources, experiment);
 
@@ -0,0 +1,279 @@
+package org.hobbit.odin.odinevaluationmodule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map.Entry;
+
+/**
+ * Result Table class. Compact representation of the bindings of a SELECT
+ * result set. Bindings are stored row by row in parallel arrays of cells: the
+ * column (variable) of each cell, the kind of its value, its double value and
+ * its string value. Each variable name is stored once.
+ *
+ * Values follow the semantics of {@link ResultValue}: URIs and literals that
+ * are not numbers are strings, numeric literals are doubles and blank nodes
+ * have no value.
+ *
+ * @author Kleanthi Georgala (georgala@informatik.uni-leipzig.de)
+ * @version 1.0
+ *
+ */
+public class ResultTable {
+    /* Kinds of cell values */
+    public static final byte BLANK_NODE = 1;
+    public static final byte STRING = 2;
+    public static final byte DOUBLE = 3;
+
+    /* Variable of each column */
+    private ArrayList<String> variables = new ArrayList<String>();
+    /* Map with keys the variables and values their columns */
+    private HashMap<String, Integer> columns = new HashMap<String, Integer>();
+
+    /* Number of rows */
+    private int rows = 0;
+    /* First cell of each row, the last entry is the number of cells */
+    private int[] rowStart = new int[] { 0 };
+    /* Number of cells */
+    private int cells = 0;
+    /* Column of each cell */
+    private int[] cellColumn = new int[16];
+    /* Kind of each cell */
+    private byte[] cellKind = new byte[16];
+    /* Double value of each cell */
+    private double[] cellDouble = new double[16];
+    /* String value of each cell */
+    private String[] cellString = new String[16];
+
+    /* Getters */
+    public int size() {
+        return rows;
+    }
+
+    public List<String> getVariables() {
+        return variables;
+    }
+
+    public String getVariable(int column) {
+        return variables.get(column);
+    }
+
+    public int getColumn(String variable) {
+        Integer column = columns.get(variable);
+        return column == null ? -1 : column;
+    }
+
+    public int getRowStart(int row) {
+        return rowStart[row];
+    }
+
+    public int getRowEnd(int row) {
+        return rowStart[row + 1];
+    }
+
+    public int getCellColumn(int cell) {
+        return cellColumn[cell];
+    }
+
+    public byte getCellKind(int cell) {
+        return cellKind[cell];
+    }
+
+    public double getCellDouble(int cell) {
+        return cellDouble[cell];
+    }
+
+    public String getCellString(int cell) {
+        return cellString[cell];
+    }
+
+    /**
+     * Returns the column of a variable, adding it if needed.
+     *
+     * @param variable,
+     *            the variable
+     * @return the column
+     */
+    public int addVariable(String variable) {
+        Integer column = columns.get(variable);
+        if (column == null) {
+            column = variables.size();
+            variables.add(variable);
+            columns.put(variable, column);
+        }
+        return column;
+    }
+
+    /**
+     * Adds a cell to the current row. A cell of the same column that was added
+     * to the current row before is replaced.
+     *
+     * @param column,
+     *            the column of the cell
+     * @param kind,
+     *            the kind of the value
+     * @param number,
+     *            the double value
+     * @param string,
+     *            the string value
+     */
+    public void addCell(int column, byte kind, double number, String string) {
+        int cell = rowStart[rows];
+        while (cell < cells && cellColumn[cell] != column)
+            cell++;
+        if (cell == cells) {
+            if (cells == cellColumn.length) {
+                int capacity = cells * 2;
+                cellColumn = Arrays.copyOf(cellColumn, capacity);
+                cellKind = Arrays.copyOf(cellKind, capacity);
+                cellDouble = Arrays.copyOf(cellDouble, capacity);
+                cellString = Arrays.copyOf(cellString, capacity);
+            }
+            cells++;
+        }
+        cellColumn[cell] = column;
+        cellKind[cell] = kind;
+        cellDouble[cell] = number;
+        cellString[cell] = string;
+    }
+
+    /**
+     * Adds a value to the current row.
+     *
+     * @param variable,
+     *            the variable of the value
+     * @param value,
+     *            the value
+     */
+    public void addValue(String variable, ResultValue value) {
+        int column = addVariable(variable);
+        Object object = value.getValue();
+        if (object == null)
+            addCell(column, BLANK_NODE, 0, null);
+        else if (object instanceof Double)
+            addCell(column, DOUBLE, (Double) object, null);
+        else
+            addCell(column, STRING, 0, (String) object);
+    }
+
+    /**
+     * Closes the current row and begins a new one.
+     */
+    public void endRow() {
+        if (rows + 2 > rowStart.length)
+            rowStart = Arrays.copyOf(rowStart, rowStart.length * 2 + 1);
+        rows++;
+        rowStart[rows] = cells;
+    }
+
+    /**
+     * Removes all cells whose variables are not part of a list of variables.
+     *
+     * @param keep,
+     *            the variables to keep
+     */
+    public void retainVariables(List<String> keep) {
+        boolean[] retained = new boolean[variables.size()];
+        boolean all = true;
+        for (int column = 0; column < variables.size(); column++) {
+            retained[column] = keep.contains(variables.get(column));
+            all &= retained[column];
+        }
+        for (String variable : keep)
+            addVariable(variable);
+        if (all)
+            return;
+        int cell = 0;
+        int row = 0;
+        for (int i = 0; i < cells; i++) {
+            while (row < rows && rowStart[row + 1] <= i) {
+                row++;
+                rowStart[row] = cell;
+            }
+            if (retained[cellColumn[i]]) {
+                cellColumn[cell] = cellColumn[i];
+                cellKind[cell] = cellKind[i];
+                cellDouble[cell] = cellDouble[i];
+                cellString[cell] = cellString[i];
+                cell++;
+            }
+        }
+        while (row < rows) {
+            row++;
+            rowStart[row] = cell;
+        }
+        Arrays.fill(cellString, cell, cells, null);
+        cells = cell;
+    }
+
+    /**
+     * Creates a table from a list of bindings.
+     *
+     * @param bindings,
+     *            the bindings
+     * @return the table
+     */
+    public static ResultTable fromBindings(List<HashMap<String, ResultValue>> bindings) {
+        ResultTable table = new ResultTable();
+        for (HashMap<String, ResultValue> binding : bindings) {
+            for (Entry<String, ResultValue> entry : binding.entrySet())
+                table.addValue(entry.getKey(), entry.getValue());
+            table.endRow();
+        }
+        return table;
+    }
+
+    /**
+     * Returns a row as a map with keys the variables and values the
+     * corresponding values.
+     *
+     * @param row,
+     *            the row
+     * @return the binding
+     */
+    public HashMap<String, ResultValue> getBinding(int row) {
+        HashMap<String, ResultValue> binding = new HashMap<String, ResultValue>();
+        for (int cell = rowStart[row]; cell < rowStart[row + 1]; cell++) {
+            ResultValue value = null;
+            if (cellKind[cell] == BLANK_NODE)
+                value = ResultValue.fromValue(null);
+            else if (cellKind[cell] == DOUBLE)
+                value = ResultValue.fromValue(cellDouble[cell]);
+            else
+                value = ResultValue.fromValue(cellString[cell]);
+            binding.put(variables.get(cellColumn[cell]), value);
+        }
+        return binding;
+    }
+
+    /**
+     * Compares an expected value with a received value as done by
+     * {@link ResultValue#equals(Object)}.
+     *
+     * @param expected,
+     *            the table of the expected value
+     * @param expectedCell,
+     *            the cell of the expected value
+     * @param received,
+     *            the table of the received value
+     * @param receivedCell,
+     *            the cell of the received value
+     * @return true if the values are equal
+     */
+    public static boolean equalValues(ResultTable expected, int expectedCell, ResultTable received,
+            int receivedCell) {
+        byte kind = expected.cellKind[expectedCell];
+        byte otherKind = received.cellKind[receivedCell];
+        if (kind == BLANK_NODE)
+            return otherKind != BLANK_NODE;
+        if (kind == DOUBLE) {
+            if (otherKind != DOUBLE)
+                return false;
+            double value = expected.cellDouble[expectedCell];
+            return Math.abs(received.cellDouble[receivedCell] - value) < (ResultValue.DOUBLE_TOLERANCE
+                    * Math.abs(value));
+        }
+        return otherKind == STRING && expected.cellString[expectedCell].equals(received.cellString[receivedCell]);
+    }
+}
@@ -1,14 +1,18 @@
 package org.hobbit.odin.odinevaluationmodule;
 
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
-import java.util.TimeZone;
-
 import javax.xml.bind.DatatypeConverter;
 
 import org.apache.jena.rdf.model.RDFNode;
+import org.hobbit.odin.util.TimeStampCodec;
 
 public class ResultValue {
+    /* Relative tolerance under which two double values are equal */
+    public static final double DOUBLE_TOLERANCE = 0.0001d;
+    /* Width of the logarithmic buckets of double values */
+    public static final double DOUBLE_BUCKET_WIDTH = Math.log1p(DOUBLE_TOLERANCE);
+    /* Hash code of all double values */
+    private static final int DOUBLE_HASH_CODE = 0x5bd1e995;
+
     Object value;
 
     public Object getValue() {
@@ -30,21 +34,47 @@ public class ResultValue {
         if (!v.isLiteral()) {
             this.value = (String) v.asResource().getURI();
         } else {
+            this.value = parseLiteral(v.asLiteral().getLexicalForm());
+        }
+    }
 
-            try {
-                this.value = (Double) DatatypeConverter.parseDouble(v.asLiteral().getLexicalForm());
-            } catch (Exception e) {
-                try {
-                    Calendar cal = DatatypeConverter.parseDateTime(v.asLiteral().getLexicalForm());
-                    long temp = cal.getTimeInMillis();
-                    SimpleDateFormat df = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSSSS");
-                    df.setTimeZone(TimeZone.getTimeZone("GMT"));
-                    this.value = (String) df.format(temp);
-                } catch (Exception e1) {
-                    this.value = (String) DatatypeConverter.parseString(v.asLiteral().getLexicalForm());
-                }
-            }
+    private ResultValue() {
+    }
+
+    /**
+     * Creates a value from an already parsed value.
+     * 
+     * @param value,
+     *            a String, a Double or null for blank nodes
+     * @return the value
+     */
+    static ResultValue fromValue(Object value) {
+        ResultValue resultValue = new ResultValue();
+        resultValue.value = value;
+        return resultValue;
+    }
 
+    /**
+     * Parses the lexical form of a literal. Numbers are converted into
+     * doubles, date/time values are normalized into GMT with microseconds and
+     * all other literals are kept as strings.
+     * 
+     * @param lexicalForm,
+     *            the lexical form of the literal
+     * @return a Double or a String
+     */
+    public static Object parseLiteral(String lexicalForm) {
+        try {
+            return (Double) DatatypeConverter.parseDouble(lexicalForm);
+        } catch (Exception e) {
+            // date/time values are normalized into GMT with microseconds
+            String dateTime = null;
+            if (TimeStampCodec.isTemporal(lexicalForm))
+                dateTime = TimeStampCodec.getCodec().normalize(lexicalForm);
+            if (dateTime != null)
+                return dateTime;
+            else
+                return (String) DatatypeConverter.parseString(lexicalForm);
         }
     }
 
@@ -64,7 +94,7 @@ public class ResultValue {
             return other.value != null;
         } else {
             if (other.value instanceof Double && value instanceof Double) {
-                if (Math.abs((Double) other.value - (Double) value) < (0.0001d * (Double) Math.abs((Double) value))) {
+                if (Math.abs((Double) other.value - (Double) value) < (DOUBLE_TOLERANCE * (Double) Math.abs((Double) value))) {
                     return true;
                 } else
                     return false;
@@ -75,4 +105,55 @@ public class ResultValue {
         return false;
     }
 
+    /**
+     * Returns the hash code of the value. Strings and URIs hash by their
+     * content. Doubles are equal within a relative tolerance, so they share one
+     * hash code; use {@link #getKey()} to index them. Values of blank nodes
+     * (null) are equal to every other value and can not be hashed
+     * consistently.
+     */
+    @Override
+    public int hashCode() {
+        if (value instanceof String)
+            return value.hashCode();
+        if (value instanceof Double)
+            return DOUBLE_HASH_CODE;
+        return 0;
+    }
+
+    /**
+     * Returns the canonical key of the value. Strings and URIs are their own
+     * key. A double value is mapped to the logarithmic bucket of its absolute
+     * value and its sign; a double equal to it always falls within two buckets
+     * of that key (see {@link #getBucket(double)}).
+     * 
+     * @return the canonical key or null if the value can not be equal to any
+     *         other value by key (blank nodes, zero and non finite doubles)
+     */
+    public Object getKey() {
+        if (value instanceof Double) {
+            double d = (Double) value;
+            if (d == 0.0d || Double.isNaN(d) || Double.isInfinite(d))
+                return null;
+            return getBucket(d);
+        }
+        return value;
+    }
+
+    /**
+     * Returns the logarithmic bucket of a non zero, finite double value. Two
+     * values equal under {@link #equals(Object)} have the same sign and their
+     * logarithms differ by less than log(1/(1-DOUBLE_TOLERANCE)), which is
+     * slightly more than one bucket width, so their buckets differ by at most
+     * two. The sign is stored in the lowest bit.
+     * 
+     * @param d,
+     *            the double value
+     * @return the bucket
+     */
+    public static long getBucket(double d) {
+        long bucket = (long) Math.floor(Math.log(Math.abs(d)) / DOUBLE_BUCKET_WIDTH);
+        return (bucket << 1) | (d < 0 ? 1l : 0l);
+    }
+
 }
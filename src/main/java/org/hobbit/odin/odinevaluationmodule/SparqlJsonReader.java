@@ -0,0 +1,448 @@
+package org.hobbit.odin.odinevaluationmodule;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+/**
+ * SPARQL JSON Reader class. Reads a SELECT result set in the SPARQL 1.1 Query
+ * Results JSON Format directly from a byte array into a {@link ResultTable},
+ * without building an intermediate String, Jena ResultSet or list of maps.
+ * Variable names of the bindings are compared with the variables already seen
+ * on the raw bytes, so each name is decoded once.
+ *
+ * Values are converted exactly as done by {@link ResultValue}: URIs are kept as
+ * strings, the lexical forms of literals are parsed by
+ * {@link ResultValue#parseLiteral(String)} and blank nodes have no value. Only
+ * the variables of the head are kept.
+ *
+ * @author Kleanthi Georgala (georgala@informatik.uni-leipzig.de)
+ * @version 1.0
+ *
+ */
+public class SparqlJsonReader {
+    /* Member names of the format */
+    private static final byte[] HEAD = bytes("head");
+    private static final byte[] VARS = bytes("vars");
+    private static final byte[] RESULTS = bytes("results");
+    private static final byte[] BINDINGS = bytes("bindings");
+    private static final byte[] TYPE = bytes("type");
+    private static final byte[] VALUE = bytes("value");
+    /* Term types of the format */
+    private static final byte[] URI = bytes("uri");
+    private static final byte[] LITERAL = bytes("literal");
+    private static final byte[] TYPED_LITERAL = bytes("typed-literal");
+    private static final byte[] BNODE = bytes("bnode");
+
+    /* Input */
+    private byte[] data;
+    /* Current position */
+    private int position;
+    /* End of the input */
+    private int end;
+    /* Start and end of the last string read without escapes */
+    private int stringStart;
+    private int stringEnd;
+    /* Last member name read, if it included escapes */
+    private String escapedName;
+
+    /* Output */
+    private ResultTable table = new ResultTable();
+    /* Raw bytes of the variable of each column of the table */
+    private ArrayList<byte[]> columnBytes = new ArrayList<byte[]>();
+
+    /* Constructor */
+    private SparqlJsonReader(byte[] data, int offset, int length) {
+        this.data = data;
+        this.position = offset;
+        this.end = offset + length;
+    }
+
+    /**
+     * Reads a result set.
+     *
+     * @param data,
+     *            the UTF-8 encoded result set
+     * @return the bindings of the result set
+     * @throws IOException
+     *             if the input is not a SELECT result set in JSON format
+     */
+    public static ResultTable read(byte[] data) throws IOException {
+        return read(data, 0, data.length);
+    }
+
+    /**
+     * Reads a result set from a part of a byte array.
+     *
+     * @param data,
+     *            the input
+     * @param offset,
+     *            the beginning of the UTF-8 encoded result set
+     * @param length,
+     *            the length of the result set in bytes
+     * @return the bindings of the result set
+     * @throws IOException
+     *             if the input is not a SELECT result set in JSON format
+     */
+    public static ResultTable read(byte[] data, int offset, int length) throws IOException {
+        try {
+            return new SparqlJsonReader(data, offset, length).readResultSet();
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Unexpected end of result set.", e);
+        }
+    }
+
+    private ResultTable readResultSet() throws IOException {
+        ArrayList<String> variables = null;
+        boolean results = false;
+        expect('{');
+        if (nextMember('}', true)) {
+            do {
+                readName();
+                if (nameIs(HEAD)) {
+                    variables = readHead();
+                } else if (nameIs(RESULTS)) {
+                    readResults();
+                    results = true;
+                } else {
+                    skipValue();
+                }
+            } while (nextMember('}', false));
+        }
+        skipWhitespace();
+        if (position != end)
+            throw error("Unexpected content after result set");
+        if (variables == null)
+            throw error("No head in result set");
+        if (!results)
+            throw error("No results in result set");
+        table.retainVariables(variables);
+        return table;
+    }
+
+    private ArrayList<String> readHead() throws IOException {
+        ArrayList<String> variables = new ArrayList<String>();
+        expect('{');
+        if (nextMember('}', true)) {
+            do {
+                readName();
+                if (nameIs(VARS)) {
+                    expect('[');
+                    if (nextMember(']', true)) {
+                        do {
+                            variables.add(readString());
+                        } while (nextMember(']', false));
+                    }
+                } else {
+                    skipValue();
+                }
+            } while (nextMember('}', false));
+        }
+        return variables;
+    }
+
+    private void readResults() throws IOException {
+        expect('{');
+        if (nextMember('}', true)) {
+            do {
+                readName();
+                if (nameIs(BINDINGS)) {
+                    expect('[');
+                    if (nextMember(']', true)) {
+                        do {
+                            readBinding();
+                        } while (nextMember(']', false));
+                    }
+                } else {
+                    skipValue();
+                }
+            } while (nextMember('}', false));
+        }
+    }
+
+    private void readBinding() throws IOException {
+        expect('{');
+        if (nextMember('}', true)) {
+            do {
+                int column = readColumn();
+                expect(':');
+                readTerm(column);
+            } while (nextMember('}', false));
+        }
+        table.endRow();
+    }
+
+    private void readTerm(int column) throws IOException {
+        byte[] type = null;
+        String value = null;
+        expect('{');
+        if (nextMember('}', true)) {
+            do {
+                readName();
+                if (nameIs(TYPE)) {
+                    if (!readRawString())
+                        throw error("Unknown term type");
+                    type = termType();
+                } else if (nameIs(VALUE)) {
+                    value = readString();
+                } else {
+                    skipValue();
+                }
+            } while (nextMember('}', false));
+        }
+        if (type == null || value == null)
+            throw error("Incomplete term");
+        if (type == BNODE) {
+            table.addCell(column, ResultTable.BLANK_NODE, 0, null);
+        } else if (type == URI) {
+            table.addCell(column, ResultTable.STRING, 0, value);
+        } else {
+            Object literal = ResultValue.parseLiteral(value);
+            if (literal instanceof Double)
+                table.addCell(column, ResultTable.DOUBLE, (Double) literal, null);
+            else
+                table.addCell(column, ResultTable.STRING, 0, (String) literal);
+        }
+    }
+
+    private byte[] termType() throws IOException {
+        if (rawEquals(URI))
+            return URI;
+        if (rawEquals(LITERAL) || rawEquals(TYPED_LITERAL))
+            return LITERAL;
+        if (rawEquals(BNODE))
+            return BNODE;
+        throw error("Unknown term type");
+    }
+
+    /**
+     * Reads the name of a variable of a binding and returns its column.
+     */
+    private int readColumn() throws IOException {
+        if (readRawString()) {
+            for (int column = 0; column < columnBytes.size(); column++) {
+                if (rawEquals(columnBytes.get(column)))
+                    return column;
+            }
+            String variable = new String(data, stringStart, stringEnd - stringStart, StandardCharsets.UTF_8);
+            int column = table.addVariable(variable);
+            columnBytes.add(bytes(variable));
+            return column;
+        }
+        String variable = readEscapedString();
+        int column = table.addVariable(variable);
+        if (column == columnBytes.size())
+            columnBytes.add(bytes(variable));
+        return column;
+    }
+
+    /**
+     * Reads a member name and the following colon.
+     */
+    private void readName() throws IOException {
+        if (readRawString())
+            escapedName = null;
+        else
+            escapedName = readEscapedString();
+        expect(':');
+    }
+
+    /**
+     * Checks if the last member name read is equal to a name.
+     */
+    private boolean nameIs(byte[] name) {
+        if (escapedName == null)
+            return rawEquals(name);
+        return escapedName.equals(new String(name, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Moves to the next element of an object or array.
+     *
+     * @param close,
+     *            the closing character
+     * @param first,
+     *            true if no element was read yet
+     * @return true if there is another element
+     */
+    private boolean nextMember(char close, boolean first) throws IOException {
+        skipWhitespace();
+        if (current() == close) {
+            position++;
+            return false;
+        }
+        if (!first)
+            expect(',');
+        return true;
+    }
+
+    /**
+     * Reads a string that includes no escapes, and stores its bounds. The
+     * position is left at the beginning of the string if it includes escapes.
+     *
+     * @return true if the string was read
+     */
+    private boolean readRawString() throws IOException {
+        expect('"');
+        int start = position;
+        while (true) {
+            byte b = current();
+            if (b == '"') {
+                stringStart = start;
+                stringEnd = position;
+                position++;
+                return true;
+            }
+            if (b == '\\') {
+                position = start - 1;
+                return false;
+            }
+            position++;
+        }
+    }
+
+    private boolean rawEquals(byte[] bytes) {
+        if (stringEnd - stringStart != bytes.length)
+            return false;
+        for (int i = 0; i < bytes.length; i++) {
+            if (data[stringStart + i] != bytes[i])
+                return false;
+        }
+        return true;
+    }
+
+    private String readString() throws IOException {
+        if (readRawString())
+            return new String(data, stringStart, stringEnd - stringStart, StandardCharsets.UTF_8);
+        return readEscapedString();
+    }
+
+    private String readEscapedString() throws IOException {
+        expect('"');
+        StringBuilder builder = new StringBuilder();
+        int start = position;
+        while (true) {
+            byte b = current();
+            if (b == '"') {
+                builder.append(new String(data, start, position - start, StandardCharsets.UTF_8));
+                position++;
+                return builder.toString();
+            }
+            if (b != '\\') {
+                position++;
+                continue;
+            }
+            builder.append(new String(data, start, position - start, StandardCharsets.UTF_8));
+            position++;
+            byte escape = next();
+            switch (escape) {
+            case '"':
+            case '\\':
+            case '/':
+                builder.append((char) escape);
+                break;
+            case 'b':
+                builder.append('\b');
+                break;
+            case 'f':
+                builder.append('\f');
+                break;
+            case 'n':
+                builder.append('\n');
+                break;
+            case 'r':
+                builder.append('\r');
+                break;
+            case 't':
+                builder.append('\t');
+                break;
+            case 'u':
+                int c = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(next(), 16);
+                    if (digit < 0)
+                        throw error("Invalid unicode escape");
+                    c = (c << 4) | digit;
+                }
+                builder.append((char) c);
+                break;
+            default:
+                throw error("Invalid escape");
+            }
+            start = position;
+        }
+    }
+
+    /**
+     * Skips a value of any type.
+     */
+    private void skipValue() throws IOException {
+        skipWhitespace();
+        byte b = current();
+        if (b == '"') {
+            if (!readRawString())
+                readEscapedString();
+        } else if (b == '{') {
+            position++;
+            if (nextMember('}', true)) {
+                do {
+                    if (!readRawString())
+                        readEscapedString();
+                    expect(':');
+                    skipValue();
+                } while (nextMember('}', false));
+            }
+        } else if (b == '[') {
+            position++;
+            if (nextMember(']', true)) {
+                do {
+                    skipValue();
+                } while (nextMember(']', false));
+            }
+        } else {
+            // numbers, true, false and null
+            int start = position;
+            while (position < end && (Character.isLetterOrDigit(data[position]) || data[position] == '-'
+                    || data[position] == '+' || data[position] == '.'))
+                position++;
+            if (position == start)
+                throw error("Unexpected character");
+        }
+    }
+
+    private void expect(char c) throws IOException {
+        skipWhitespace();
+        if (current() != c)
+            throw error("Expected '" + c + "'");
+        position++;
+    }
+
+    private void skipWhitespace() {
+        while (position < end) {
+            byte b = data[position];
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t')
+                return;
+            position++;
+        }
+    }
+
+    private byte current() throws IOException {
+        if (position >= end)
+            throw error("Unexpected end of result set");
+        return data[position];
+    }
+
+    private byte next() throws IOException {
+        byte b = current();
+        position++;
+        return b;
+    }
+
+    private IOException error(String message) {
+        return new IOException(message + " at position " + position + ".");
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
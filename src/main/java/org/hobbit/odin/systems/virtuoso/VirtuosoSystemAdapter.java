@@ -3,7 +3,10 @@ package org.hobbit.odin.systems.virtuoso;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -21,6 +24,8 @@ import org.apache.jena.query.ResultSetFormatter;
 import org.apache.jena.update.UpdateRequest;
 import org.hobbit.core.components.AbstractSystemAdapter;
 import org.hobbit.core.rabbit.RabbitMQUtils;
+import org.hobbit.odin.util.OdinConstants;
+import org.hobbit.odin.util.SaturationCodec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,6 +38,8 @@ import org.slf4j.LoggerFactory;
  */
 public class VirtuosoSystemAdapter extends AbstractSystemAdapter {
     private static final Logger LOGGER = LoggerFactory.getLogger(VirtuosoSystemAdapter.class);
+    /* Interval of the feedback sent to the Data Generators in milliseconds */
+    public static final long FEEDBACK_INTERVAL = 1000l;
     public String virtuosoContName = null;
 
     private int selectsReceived = 0;
@@ -48,6 +55,20 @@ public class VirtuosoSystemAdapter extends AbstractSystemAdapter {
 
     private boolean phase2 = true;
 
+    /* Thread sending feedback to the Data Generators */
+    private ScheduledExecutorService feedback = null;
+    /* Whether any INSERT query carried the time it was sent */
+    private volatile boolean stamped = false;
+    /*
+     * Map with keys the ids of the Data Generators and values the number of
+     * their INSERT queries acknowledged in the current feedback window and the
+     * sum of the times they were acknowledged at minus the times they were
+     * sent at
+     */
+    private HashMap<Integer, long[]> acknowledgements = new HashMap<Integer, long[]>();
+    /* Number of the current feedback window, only used by the feedback thread */
+    private long window = 0l;
+
     List<String> graphUris = new ArrayList<String>();
 
     public VirtuosoSystemAdapter() {
@@ -153,6 +174,7 @@ public class VirtuosoSystemAdapter extends AbstractSystemAdapter {
 
             thread.start();
             phase2 = false;
+            startFeedback();
 
         }
         super.receiveCommand(command, data);
@@ -173,6 +195,9 @@ public class VirtuosoSystemAdapter extends AbstractSystemAdapter {
             ByteBuffer buffer = ByteBuffer.wrap(arg0);
             // read the insert query
             String insertQuery = RabbitMQUtils.readString(buffer);
+            // Data Generator and time the query was sent, if the Data
+            // Generator measures the acknowledgement latency
+            long[] stamp = SaturationCodec.readStamp(buffer);
             // insert query
             UpdateRequest updateRequest = UpdateRequestUtils.parse(insertQuery);
 
@@ -187,6 +212,17 @@ public class VirtuosoSystemAdapter extends AbstractSystemAdapter {
 
             //LOGGER.info("INSERT SPARQL query has been processed.");
             this.insertsProcessed++;
+            if (stamp != null) {
+                // the clocks of the Data Generator and the System Adapter may
+                // differ, so the difference is only used by the Data Generator
+                long offset = System.currentTimeMillis() - stamp[1];
+                synchronized (acknowledgements) {
+                    long[] acknowledged = acknowledgements.computeIfAbsent((int) stamp[0], id -> new long[2]);
+                    acknowledged[0]++;
+                    acknowledged[1] += offset;
+                }
+                this.stamped = true;
+            }
         }
 
     }
@@ -235,8 +271,37 @@ public class VirtuosoSystemAdapter extends AbstractSystemAdapter {
 
     }
 
+    /**
+     * Starts sending the acknowledgements of the INSERT queries to the Data
+     * Generators periodically, from which they compute the acknowledgement
+     * latency of their queries. Feedback is only sent once a Data Generator
+     * has sent an INSERT query with the time it was sent.
+     */
+    private void startFeedback() {
+        if (feedback != null)
+            return;
+        feedback = Executors.newSingleThreadScheduledExecutor();
+        feedback.scheduleAtFixedRate(() -> {
+            if (!stamped)
+                return;
+            HashMap<Integer, long[]> acknowledged = null;
+            synchronized (acknowledgements) {
+                acknowledged = new HashMap<Integer, long[]>(acknowledgements);
+                acknowledgements.clear();
+            }
+            try {
+                sendToCmdQueue(OdinConstants.FEEDBACK_FROM_SYSTEM_ADAPTER,
+                        SaturationCodec.createFeedback(window++, System.currentTimeMillis(), acknowledged));
+            } catch (IOException e) {
+                LOGGER.error("Couldn't send feedback to the Data Generators.", e);
+            }
+        }, FEEDBACK_INTERVAL, FEEDBACK_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
     @Override
     public void close() throws IOException {
+        if (feedback != null)
+            feedback.shutdownNow();
         if (this.insertsProcessed != this.insertsReceived) {
             LOGGER.error("INSERT queries received and processed are not equal:"+this.insertsProcessed+" "+this.insertsReceived);
         }
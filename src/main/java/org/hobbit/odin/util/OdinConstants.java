@@ -11,6 +11,8 @@ public final class OdinConstants {
     // =============== STRUCTURED BENCHMARK CONTROLLER CONSTANTS ===============
     public static final byte MIN_MAX_FROM_DATAGENERATOR = (byte) 200;
     public static final byte OVERALL_MIN_MAX = (byte) 201;
+    public static final byte SATURATION_RATES_FROM_DATAGENERATOR = (byte) 202;
+    public static final byte FEEDBACK_FROM_SYSTEM_ADAPTER = (byte) 210;
     
     public static final byte BULK_LOAD_FROM_DATAGENERATOR = (byte) 250;
     public static final byte BULK_LOAD_FROM_CONTROLLER = (byte) 251;
@@ -23,6 +25,26 @@ public final class OdinConstants {
     public static final String GENERATOR_MIMICKING_OUTPUT = "generator_mimicking-output";
     public static final String GENERATOR_INSERT_QUERIES_COUNT = "generator_insert-queries-count";
     public static final String GENERATOR_BENCHMARK_DURATION = "generator_benchmark_duration";
+    public static final String GENERATOR_PREPROCESSING_THREADS = "generator_preprocessing-threads";
+    public static final String GENERATOR_INSERT_PAYLOAD_BUDGET = "generator_insert-payload-budget";
+    public static final String GENERATOR_DISPATCH_THREADS = "generator_dispatch-threads";
+    public static final String GENERATOR_DISPATCH_QUEUE_SIZE = "generator_dispatch-queue-size";
+    public static final String GENERATOR_DISPATCH_BATCH_SIZE = "generator_dispatch-batch-size";
+    public static final String GENERATOR_REFERENCE_STORE = "generator_reference-store";
+    public static final String GENERATOR_EXPECTED_ANSWERS = "generator_expected-answers";
+    public static final String GENERATOR_ARTIFACT_CACHE = "generator_artifact-cache";
+    public static final String GENERATOR_PERSIST_MODELS = "generator_persist-models";
+    public static final String GENERATOR_UNION_SHAPE = "generator_union-shape";
+    public static final String GENERATOR_SELECT_REQUESTED_PATTERNS = "generator_select-requested-patterns";
+    public static final String GENERATOR_SELECT_SAMPLE_SIZE = "generator_select-sample-size";
+    public static final String GENERATOR_SELECT_MAX_PATTERNS = "generator_select-max-patterns";
+    public static final String GENERATOR_SELECT_TARGET_CARDINALITY = "generator_select-target-cardinality";
+    public static final String GENERATOR_LOAD_PROFILE = "generator_load-profile";
+    public static final String GENERATOR_LOAD_FACTOR = "generator_load-factor";
+    public static final String GENERATOR_LOAD_PERIOD = "generator_load-period";
+    public static final String GENERATOR_SATURATION_LATENCY = "generator_saturation-latency";
+    public static final String GENERATOR_SATURATION_INCREASE = "generator_saturation-increase";
+    public static final String GENERATOR_SATURATION_DECREASE = "generator_saturation-decrease";
 
     // =============== STRUCTURED EVALUATION MODULE CONSTANTS ===============
 
@@ -38,6 +60,8 @@ public final class OdinConstants {
     
     public static final String EVALUATION_MAX_TPS = "evaluation_max-tps";
     public static final String EVALUATION_AVERAGE_TPS = "evaluation_average-tps";
+    public static final String EVALUATION_SATURATION_TPS = "evaluation_saturation-tps";
+    public static final String EVALUATION_SATURATION_TPS_VALUE = "evaluation_saturation-tps-value";
     
     public static final String EVALUATION_TASKS_EVALUATION_RECALL = "evaluation_task-evaluation-recall";
     public static final String EVALUATION_TASKS_EVALUATION_TPS = "evaluation_task-evaluation-tps";
@@ -45,5 +69,7 @@ public final class OdinConstants {
     public static final String EVALUATION_TASKS_EVALUATION_PRECISION = "evaluation_task-evaluation-precision";
     public static final String EVALUATION_TASKS_EVALUATION_FMEASURE = "evaluation_task-evaluation-fmeasure";
 
+    public static final String EVALUATION_THREADS = "evaluation_threads";
+
     
 }
@@ -0,0 +1,171 @@
+package org.hobbit.odin.util;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+/**
+ * Saturation Codec class. Writes and reads the messages of the saturation
+ * mode that are exchanged between the Data Generators, the System Adapter and
+ * the Benchmark Controller:
+ *
+ * (1) the id of the Data Generator and the time it sent an INSERT query,
+ * written into space reserved at the end of the payload of the query and
+ * read by the System Adapter.
+ *
+ * (2) the feedback the System Adapter sends to all Data Generators at the end
+ * of each feedback window (see
+ * {@link OdinConstants#FEEDBACK_FROM_SYSTEM_ADAPTER}): the number of the
+ * window, the time the feedback was sent and, for each Data Generator, the
+ * number of its INSERT queries acknowledged during the window and the sum of
+ * the times they were acknowledged at minus the times they were sent at.
+ * Times of the System Adapter and a Data Generator are only subtracted from
+ * each other in a sum that contains both of them once with opposite signs,
+ * so that the difference of their clocks cancels out.
+ *
+ * (3) the rates each Data Generator sent at during the feedback windows
+ * within the target latency, sent to the Benchmark Controller (see
+ * {@link OdinConstants#SATURATION_RATES_FROM_DATAGENERATOR}).
+ *
+ * @author Kleanthi Georgala (georgala@informatik.uni-leipzig.de)
+ * @version 1.0
+ *
+ */
+public class SaturationCodec {
+    /* Size of a time stamp of an INSERT query in bytes */
+    public static final int STAMP_SIZE = Integer.BYTES + Long.BYTES;
+
+    /**
+     * Writes the id of a Data Generator and the time it sends an INSERT query
+     * into the space reserved at the end of the payload of the query. The
+     * stamp follows the query as a further byte array, so that System
+     * Adapters that only read the query are not affected.
+     *
+     * @param payload,
+     *            the serialized INSERT query with a reserved stamp
+     * @param generatorId,
+     *            the id of the Data Generator
+     * @param timestamp,
+     *            the current time of the Data Generator in milliseconds
+     */
+    public static void writeStamp(byte[] payload, int generatorId, long timestamp) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload, payload.length - STAMP_SIZE, STAMP_SIZE);
+        buffer.putInt(generatorId);
+        buffer.putLong(timestamp);
+    }
+
+    /**
+     * Reads the time stamp of an INSERT query from the rest of its payload.
+     *
+     * @param buffer,
+     *            the payload after the query
+     * @return the id of the Data Generator and the time the query was sent,
+     *         or null if the payload has no time stamp
+     */
+    public static long[] readStamp(ByteBuffer buffer) {
+        if (buffer.remaining() < Integer.BYTES + STAMP_SIZE)
+            return null;
+        if (buffer.getInt() != STAMP_SIZE)
+            return null;
+        long generatorId = buffer.getInt();
+        long timestamp = buffer.getLong();
+        // the stamp is reserved, but was not written
+        if (timestamp <= 0)
+            return null;
+        return new long[] { generatorId, timestamp };
+    }
+
+    /**
+     * Creates a feedback message of the System Adapter.
+     *
+     * @param window,
+     *            the number of the feedback window, the same for all Data
+     *            Generators
+     * @param timestamp,
+     *            the current time of the System Adapter in milliseconds
+     * @param acknowledgements,
+     *            a map with keys the ids of the Data Generators and values the
+     *            number of their INSERT queries acknowledged during the window
+     *            and the sum of the times they were acknowledged at minus the
+     *            times they were sent at
+     * @return the feedback message
+     */
+    public static byte[] createFeedback(long window, long timestamp, Map<Integer, long[]> acknowledgements) {
+        ByteBuffer buffer = ByteBuffer.allocate(2 * Long.BYTES + Integer.BYTES
+                + acknowledgements.size() * (Integer.BYTES + 2 * Long.BYTES));
+        buffer.putLong(window);
+        buffer.putLong(timestamp);
+        buffer.putInt(acknowledgements.size());
+        for (Entry<Integer, long[]> entry : acknowledgements.entrySet()) {
+            buffer.putInt(entry.getKey());
+            buffer.putLong(entry.getValue()[0]);
+            buffer.putLong(entry.getValue()[1]);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Reads the part of a feedback message of the System Adapter that
+     * concerns a Data Generator.
+     *
+     * @param data,
+     *            the feedback message
+     * @param generatorId,
+     *            the id of the Data Generator
+     * @return the window, the time the feedback was sent, the number of
+     *         acknowledged queries of the Data Generator and the sum of the
+     *         times they were acknowledged at minus the times they were sent
+     *         at, in this order
+     */
+    public static long[] readFeedback(byte[] data, int generatorId) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        long[] feedback = new long[] { buffer.getLong(), buffer.getLong(), 0l, 0l };
+        int size = buffer.getInt();
+        for (int i = 0; i < size; i++) {
+            int id = buffer.getInt();
+            long acknowledged = buffer.getLong();
+            long sum = buffer.getLong();
+            if (id == generatorId) {
+                feedback[2] = acknowledged;
+                feedback[3] = sum;
+            }
+        }
+        return feedback;
+    }
+
+    /**
+     * Creates the message of the rates of a Data Generator.
+     *
+     * @param rates,
+     *            a map with keys feedback windows and values the rate of the
+     *            window in triples per second
+     * @return the message
+     */
+    public static byte[] createRates(Map<Long, Double> rates) {
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + rates.size() * (Long.BYTES + Double.BYTES));
+        buffer.putInt(rates.size());
+        for (Entry<Long, Double> entry : rates.entrySet()) {
+            buffer.putLong(entry.getKey());
+            buffer.putDouble(entry.getValue());
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Reads the message of the rates of a Data Generator.
+     *
+     * @param data,
+     *            the message
+     * @return a map with keys feedback windows and values the rate of the
+     *         window in triples per second
+     */
+    public static TreeMap<Long, Double> readRates(byte[] data) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        TreeMap<Long, Double> rates = new TreeMap<Long, Double>();
+        int size = buffer.getInt();
+        for (int i = 0; i < size; i++)
+            rates.put(buffer.getLong(), buffer.getDouble());
+        return rates;
+    }
+}
@@ -0,0 +1,203 @@
+package org.hobbit.odin.util;
+
+import static java.time.temporal.ChronoField.HOUR_OF_DAY;
+import static java.time.temporal.ChronoField.MINUTE_OF_HOUR;
+import static java.time.temporal.ChronoField.NANO_OF_SECOND;
+import static java.time.temporal.ChronoField.OFFSET_SECONDS;
+import static java.time.temporal.ChronoField.SECOND_OF_MINUTE;
+
+import java.text.ParsePosition;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAccessor;
+import java.util.Calendar;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Time Stamp Codec class. Converts the lexical forms of generation time stamps
+ * into epoch microseconds and normalizes xsd date/time values of result sets.
+ * All mimicking algorithms write xsd:dateTime time stamps (with or without
+ * fraction and offset), so one formatter parses all of them. Results are kept
+ * in a bounded LRU cache per thread, so each distinct lexical form is parsed
+ * once per thread without locking. Instances are thread-safe.
+ *
+ * Time stamps without an offset are interpreted in the default time zone of
+ * the JVM, as done by DatatypeConverter and SimpleDateFormat before.
+ *
+ * @author Kleanthi Georgala (georgala@informatik.uni-leipzig.de)
+ * @version 1.0
+ *
+ */
+public class TimeStampCodec {
+    protected static final Logger logger = Logger.getLogger(TimeStampCodec.class.getName());
+    /* Default maximum number of cached lexical forms per thread */
+    public static final int DEFAULT_CACHE_SIZE = 65536;
+
+    /* xsd:dateTime with optional fraction (up to nanoseconds) and offset */
+    private static final DateTimeFormatter DATE_TIME = new DateTimeFormatterBuilder()
+            .append(DateTimeFormatter.ISO_LOCAL_DATE).appendLiteral('T').appendValue(HOUR_OF_DAY, 2)
+            .appendLiteral(':').appendValue(MINUTE_OF_HOUR, 2).appendLiteral(':').appendValue(SECOND_OF_MINUTE, 2)
+            .optionalStart().appendFraction(NANO_OF_SECOND, 0, 9, true).optionalEnd().optionalStart()
+            .appendOffsetId().optionalEnd().toFormatter();
+    /* Normalized form of date/time values, in GMT with microseconds */
+    private static final DateTimeFormatter NORMALIZED = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSS")
+            .withZone(ZoneOffset.UTC);
+    /* Value cached for lexical forms that are not date/time values */
+    private static final String NO_DATE = "";
+
+    /*
+     * Codec of generation time stamps and result set values. TWIG:
+     * 2017-02-03T13:34:44Z, TRANSPORT_DATA and TT: 2016-08-01T10:06:05.000000,
+     * OBS: 2017-02-03T13:34:44
+     */
+    private static final TimeStampCodec codec = new TimeStampCodec(DATE_TIME, DEFAULT_CACHE_SIZE);
+
+    /* Formatter of the lexical forms */
+    private DateTimeFormatter formatter;
+    /* Map with keys lexical forms and values epoch microseconds */
+    private ThreadLocal<LruCache<Long>> micros;
+    /* Map with keys lexical forms and values normalized forms */
+    private ThreadLocal<LruCache<String>> normalized;
+
+    /* Constructor */
+    public TimeStampCodec(DateTimeFormatter formatter, int cacheSize) {
+        this.formatter = formatter;
+        this.micros = ThreadLocal.withInitial(() -> new LruCache<Long>(cacheSize));
+        this.normalized = ThreadLocal.withInitial(() -> new LruCache<String>(cacheSize));
+    }
+
+    /**
+     * Returns the codec of generation time stamps and xsd date/time values of
+     * result sets.
+     *
+     * @return the codec
+     */
+    public static TimeStampCodec getCodec() {
+        return codec;
+    }
+
+    /**
+     * Checks cheaply whether a lexical form may be an xsd date/time value,
+     * i.e. an xsd:dateTime, xsd:date, xsd:time, xsd:gYear, xsd:gYearMonth,
+     * xsd:gMonth, xsd:gDay or xsd:gMonthDay: it begins with a digit or '-' and
+     * contains only digits and the characters '-', ':', '.', '+', 'T' and
+     * 'Z'. Only such forms are worth normalizing, so that other literals are
+     * not cached.
+     *
+     * @param lexicalForm,
+     *            the lexical form of the value
+     * @return true if the lexical form may be a date/time value
+     */
+    public static boolean isTemporal(String lexicalForm) {
+        if (lexicalForm.isEmpty())
+            return false;
+        char first = lexicalForm.charAt(0);
+        if (first != '-' && !Character.isDigit(first))
+            return false;
+        for (int i = 1; i < lexicalForm.length(); i++) {
+            char c = lexicalForm.charAt(i);
+            if (!Character.isDigit(c) && c != '-' && c != ':' && c != '.' && c != '+' && c != 'T' && c != 'Z')
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Converts the lexical form of a generation time stamp into epoch
+     * microseconds.
+     *
+     * @param lexicalForm,
+     *            the lexical form of the time stamp
+     * @return the time stamp in microseconds
+     * @throws DateTimeParseException
+     *             if the lexical form is not a valid time stamp
+     */
+    public long toMicros(String lexicalForm) {
+        LruCache<Long> cache = micros.get();
+        Long value = cache.get(lexicalForm);
+        if (value == null) {
+            ParsePosition position = new ParsePosition(0);
+            TemporalAccessor accessor = formatter.parse(lexicalForm, position);
+            if (position.getIndex() != lexicalForm.length())
+                throw new DateTimeParseException("Text '" + lexicalForm + "' has unparsed text at index "
+                        + position.getIndex(), lexicalForm, position.getIndex());
+            value = toMicros(toInstant(accessor));
+            cache.put(lexicalForm, value);
+        }
+        return value;
+    }
+
+    /**
+     * Normalizes an xsd date/time value into a GMT date time with
+     * microseconds. Complete xsd:dateTime values are parsed directly, all
+     * other forms (dates, times, years etc.) through DatatypeConverter, which
+     * takes the missing fields from 1970-01-01T00:00:00, so that e.g.
+     * 09:30:10Z and 11:30:10+02:00 are normalized into the same value.
+     * Callers should only pass the lexical forms accepted by isTemporal, since
+     * all normalized forms are cached.
+     *
+     * @param lexicalForm,
+     *            the lexical form of the value
+     * @return the normalized value or null if the value is not a date/time
+     */
+    public String normalize(String lexicalForm) {
+        LruCache<String> cache = normalized.get();
+        String value = cache.get(lexicalForm);
+        if (value == null) {
+            Instant instant = null;
+            try {
+                instant = toInstant(formatter.parse(lexicalForm));
+            } catch (Exception e) {
+                try {
+                    Calendar cal = DatatypeConverter.parseDateTime(lexicalForm);
+                    instant = Instant.ofEpochMilli(cal.getTimeInMillis());
+                } catch (Exception e1) {
+                    instant = null;
+                }
+            }
+            value = (instant == null) ? NO_DATE : NORMALIZED.format(instant);
+            cache.put(lexicalForm, value);
+        }
+        return value.isEmpty() ? null : value;
+    }
+
+    private static Instant toInstant(TemporalAccessor accessor) {
+        LocalDateTime dateTime = LocalDateTime.from(accessor);
+        if (accessor.isSupported(OFFSET_SECONDS))
+            return dateTime.toInstant(ZoneOffset.ofTotalSeconds(accessor.get(OFFSET_SECONDS)));
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant();
+    }
+
+    private static long toMicros(Instant instant) {
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1000000l), instant.getNano() / 1000);
+    }
+
+    /**
+     * Bounded map that evicts the least recently used entry. It is not
+     * synchronized, since each thread has its own.
+     */
+    @SuppressWarnings("serial")
+    private static class LruCache<V> extends LinkedHashMap<String, V> {
+        private int maxSize;
+
+        public LruCache(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+            return size() > maxSize;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package org.hobbit.odin.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jena.query.QuerySolution;
+import org.apache.jena.query.ResultSet;
+import org.apache.jena.query.ResultSetFactory;
+import org.hobbit.odin.odinevaluationmodule.ResultTable;
+import org.hobbit.odin.odinevaluationmodule.ResultValue;
+import org.hobbit.odin.odinevaluationmodule.SparqlJsonReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the former parsing of result sets by the evaluation module (String,
+ * Jena ResultSet and list of maps) with {@link SparqlJsonReader}. Run with
+ * "-prof gc" (as done by main) to compare the allocation rate per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ResultParsingBenchmark {
+    @Param({ "1000", "100000" })
+    private int bindings;
+
+    private byte[] data;
+
+    @Setup
+    public void setup() {
+        StringBuilder json = new StringBuilder("{ \"head\": { \"vars\": [ \"event\", \"value\", \"time\" ] },\n");
+        json.append("  \"results\": { \"bindings\": [\n");
+        for (int i = 0; i < bindings; i++) {
+            if (i > 0)
+                json.append(",\n");
+            json.append("    { \"event\": { \"type\": \"uri\", \"value\": \"http://www.myOntology.com#event")
+                    .append(i).append("\" },\n");
+            json.append("      \"value\": { \"type\": \"literal\", ")
+                    .append("\"datatype\": \"http://www.w3.org/2001/XMLSchema#double\", \"value\": \"")
+                    .append(i * 0.5d).append("\" },\n");
+            json.append("      \"time\": { \"type\": \"literal\", \"value\": \"label ").append(i % 100)
+                    .append("\" } }");
+        }
+        json.append("\n  ] }\n}\n");
+        data = json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<HashMap<String, ResultValue>> jena() {
+        // the former path of OdinEvaluationModule.evaluateResponse
+        String expected = new String(data, StandardCharsets.UTF_8);
+        ResultSet results = ResultSetFactory
+                .fromJSON(new ByteArrayInputStream(expected.getBytes(StandardCharsets.UTF_8)));
+        ArrayList<HashMap<String, ResultValue>> answers = new ArrayList<HashMap<String, ResultValue>>();
+        List<String> variables = results.getResultVars();
+        while (results.hasNext()) {
+            QuerySolution solution = results.next();
+            HashMap<String, ResultValue> binding = new HashMap<String, ResultValue>();
+            for (String variable : variables) {
+                if (solution.contains(variable) == true)
+                    binding.put(variable, new ResultValue(solution.get(variable)));
+            }
+            answers.add(binding);
+        }
+        return answers;
+    }
+
+    @Benchmark
+    public ResultTable reader() throws Exception {
+        return SparqlJsonReader.read(data);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder().include(ResultParsingBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class).build();
+        new Runner(options).run();
+    }
+}
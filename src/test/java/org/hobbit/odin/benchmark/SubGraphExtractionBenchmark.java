@@ -0,0 +1,79 @@
+package org.hobbit.odin.benchmark;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.ResourceFactory;
+import org.apache.jena.vocabulary.RDF;
+import org.hobbit.odin.odindatagenerator.DataProcessor;
+import org.hobbit.odin.odindatagenerator.SubGraphExtractor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the recursive in-link/out-link extraction of {@link DataProcessor}
+ * with the indexed extraction of {@link SubGraphExtractor} over all events of
+ * the test data.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SubGraphExtractionBenchmark {
+    private static final String EVENT_CLASS = "http://www.myOntology.com#isEvent";
+
+    private Model model;
+    private List<Resource> events;
+    private DataProcessor processor;
+
+    @Setup
+    public void setup() {
+        String directory = System.getProperty("user.dir") + "/src/test/resources/data/debug_data/insertQuery/clean/";
+        model = ModelFactory.createDefaultModel();
+        for (File file : new File(directory).listFiles())
+            model.read(file.getAbsolutePath(), "ttl");
+        events = model.listSubjectsWithProperty(RDF.type, ResourceFactory.createResource(EVENT_CLASS)).toList();
+        processor = new DataProcessor(directory, "TWIG", 0);
+    }
+
+    @Benchmark
+    public void recursive(Blackhole blackhole) {
+        for (Resource event : events) {
+            blackhole.consume(processor.getOutLinks(event, ModelFactory.createDefaultModel(), model));
+            blackhole.consume(processor.getInLinks((RDFNode) event, ModelFactory.createDefaultModel(), model));
+        }
+    }
+
+    @Benchmark
+    public void indexed(Blackhole blackhole) {
+        SubGraphExtractor extractor = new SubGraphExtractor(model);
+        for (Resource event : events) {
+            blackhole.consume(extractor.getOutLinks(event));
+            blackhole.consume(extractor.getInLinks(event));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder().include(SubGraphExtractionBenchmark.class.getSimpleName()).build();
+        new Runner(options).run();
+    }
+}
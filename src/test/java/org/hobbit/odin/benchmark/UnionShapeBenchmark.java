@@ -0,0 +1,98 @@
+package org.hobbit.odin.benchmark;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryFactory;
+import org.apache.jena.sparql.algebra.Algebra;
+import org.apache.jena.sparql.algebra.Op;
+import org.apache.jena.sparql.algebra.OpAsQuery;
+import org.apache.jena.sparql.algebra.op.OpBGP;
+import org.apache.jena.sparql.core.BasicPattern;
+import org.apache.jena.sparql.core.Var;
+import org.hobbit.odin.odindatagenerator.UnionShape;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the cost of the SELECT queries created with each
+ * {@link UnionShape}: building the query from its algebra expression, parsing
+ * it as the Data Generator and the Evaluation Storage do and planning it as
+ * Jena does. The cost of executing the queries depends on the system and is
+ * not measured. The queries have one basic graph pattern per variable, as the
+ * queries of the Select Query class. Deep left-deep queries may exceed the
+ * default thread stack, in which case their benchmark fails.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class UnionShapeBenchmark {
+    @Param({ "100", "1000", "2000" })
+    private int patterns;
+
+    @Param({ "LEFT_DEEP", "BALANCED" })
+    private String shape;
+
+    private Op op;
+    private String query;
+    private Query parsed;
+
+    @Setup
+    public void setup() throws Exception {
+        ArrayList<Op> ops = new ArrayList<Op>();
+        for (int i = 0; i < patterns; i++) {
+            BasicPattern pattern = new BasicPattern();
+            pattern.add(Triple.create(Var.alloc("x" + i),
+                    NodeFactory.createURI("http://www.myOntology.com#Property" + (i % 50)),
+                    NodeFactory.createURI("http://www.myOntology.com#Object" + i)));
+            pattern.add(Triple.create(Var.alloc("x" + i),
+                    NodeFactory.createURI("http://www.w3.org/1999/02/22-rdf-syntax-ns#type"),
+                    NodeFactory.createURI("http://www.myOntology.com#isEvent")));
+            ops.add(new OpBGP(pattern));
+        }
+        op = UnionShape.getUnionShape(shape).union(ops);
+        query = build();
+        parsed = QueryFactory.create(query);
+    }
+
+    @Benchmark
+    public String build() {
+        Query q = OpAsQuery.asQuery(op);
+        q.addGraphURI("http://www.graph1.com/");
+        q.setQuerySelectType();
+        return q.serialize();
+    }
+
+    @Benchmark
+    public Query parse() {
+        return QueryFactory.create(query);
+    }
+
+    @Benchmark
+    public Op plan() {
+        return Algebra.optimize(Algebra.compile(parsed));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder().include(UnionShapeBenchmark.class.getSimpleName()).build();
+        new Runner(options).run();
+    }
+}
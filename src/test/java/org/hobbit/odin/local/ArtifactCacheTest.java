@@ -0,0 +1,117 @@
+package org.hobbit.odin.local;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.TreeMap;
+
+import org.apache.commons.io.FileUtils;
+import org.hobbit.odin.odindatagenerator.ArtifactCache;
+import org.hobbit.odin.odindatagenerator.InsertQueryInfo;
+import org.hobbit.odin.odindatagenerator.SelectQueryInfo;
+import org.hobbit.odin.odindatagenerator.Stream;
+import org.junit.Test;
+
+public class ArtifactCacheTest {
+
+    private String touch(String file) throws IOException {
+        Files.write(Paths.get(file), "{}".getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    @Test
+    public void test() throws IOException {
+        String directory = System.getProperty("user.dir") + "/src/test/resources/data/debug_data/artifactCache/";
+        FileUtils.deleteDirectory(new File(directory));
+        Files.createDirectories(Paths.get(directory + "clean/"));
+
+        String key = ArtifactCache.hash("TWIG", 1000, "100", 0);
+        assertEquals(key, ArtifactCache.hash("TWIG", 1000, "100", 0));
+        assertFalse(key.equals(ArtifactCache.hash("TWIG", 1000, "101", 0)));
+        // parameters are separated, so their concatenation is not enough
+        assertFalse(ArtifactCache.hash("ab", "c").equals(ArtifactCache.hash("a", "bc")));
+
+        ArtifactCache cache = new ArtifactCache(directory);
+        assertFalse(cache.isPreprocessingValid(key));
+
+        String clean = touch(directory + "clean/1.ttl");
+        Files.write(Paths.get(directory + "timeStamps.tsv"),
+                ("1000\t" + clean + "\n").getBytes(StandardCharsets.UTF_8));
+        cache.setPreprocessing(key);
+        assertTrue(cache.isPreprocessingValid(key));
+        assertFalse(cache.isPreprocessingValid(ArtifactCache.hash("TWIG", 1000, "101", 0)));
+
+        // the streams of a different duration are kept in their own folder
+        String streamsKey = ArtifactCache.hash(key, 600000l, 5);
+        String otherKey = ArtifactCache.hash(key, 1200000l, 5);
+        assertFalse(cache.getStreamsDirectory(streamsKey).equals(cache.getStreamsDirectory(otherKey)));
+        assertNull(cache.loadStreams(streamsKey));
+
+        cache.clearStreams(streamsKey);
+        String streamsDirectory = cache.getStreamsDirectory(streamsKey);
+        InsertQueryInfo insert = new InsertQueryInfo(10l, 10l);
+        insert.setInsertFile(touch(streamsDirectory + "insertQuery1.sparql"));
+        insert.setModelFile(touch(streamsDirectory + "model1.ttl"));
+        insert.setModelSize(7l);
+        SelectQueryInfo select = new SelectQueryInfo();
+        select.setTimeStamp(1010l);
+        select.setDelay(1000l);
+        select.setSelectQueryFile(touch(streamsDirectory + "selectQuery1.sparql"));
+        select.setAnswersFile(touch(streamsDirectory + "expectedAnswers1.json"));
+        ArrayList<InsertQueryInfo> inserts = new ArrayList<InsertQueryInfo>();
+        inserts.add(insert);
+        Stream stream = new Stream(1, inserts, select);
+        stream.setBeginPoint(10l);
+        stream.setEndPoint(1010l);
+        TreeMap<Integer, Stream> streams = new TreeMap<Integer, Stream>();
+        streams.put(1, stream);
+        cache.saveStreams(streamsKey, streams);
+
+        // a new cache reads the manifest of the previous one
+        cache = new ArtifactCache(directory);
+        assertTrue(cache.isPreprocessingValid(key));
+        assertNull(cache.loadStreams(otherKey));
+        TreeMap<Integer, Stream> loaded = cache.loadStreams(streamsKey);
+        assertNotNull(loaded);
+        assertEquals(1, loaded.size());
+        Stream loadedStream = loaded.get(1);
+        assertEquals(1, loadedStream.getID());
+        assertEquals(10l, loadedStream.getBeginPoint());
+        assertEquals(1010l, loadedStream.getEndPoint());
+        assertEquals(1, loadedStream.getSizeOfInserts());
+        assertEquals(10l, loadedStream.getInsertQueryInfo(0).getTimeStamp());
+        assertEquals(10l, loadedStream.getInsertQueryInfo(0).getDelay());
+        assertEquals(insert.getInsertFile(), loadedStream.getInsertQueryInfo(0).getInsertFile());
+        assertEquals(insert.getModelFile(), loadedStream.getInsertQueryInfo(0).getModelFile());
+        assertEquals(7l, loadedStream.getInsertQueryInfo(0).getModelSize());
+        assertEquals(1010l, loadedStream.getSelectQuery().getTimeStamp());
+        assertEquals(1000l, loadedStream.getSelectQuery().getDelay());
+        assertEquals(select.getSelectQueryFile(), loadedStream.getSelectQuery().getSelectQueryFile());
+        assertEquals(select.getAnswersFile(), loadedStream.getSelectQuery().getAnswersFile());
+
+        // a missing file invalidates the stage
+        new File(select.getAnswersFile()).delete();
+        assertNull(cache.loadStreams(streamsKey));
+        new File(clean).delete();
+        assertFalse(cache.isPreprocessingValid(key));
+
+        // saving the streams of a different duration removes the previous ones
+        cache.clearStreams(otherKey);
+        cache.saveStreams(otherKey, new TreeMap<Integer, Stream>());
+        assertFalse(new File(streamsDirectory).exists());
+        assertTrue(new File(cache.getStreamsDirectory(otherKey)).exists());
+        cache = new ArtifactCache(directory);
+        assertNull(cache.loadStreams(streamsKey));
+        assertNotNull(cache.loadStreams(otherKey));
+
+        cache.clear();
+        assertEquals(0, new File(directory).list().length);
+        FileUtils.deleteDirectory(new File(directory));
+    }
+
+}
@@ -0,0 +1,76 @@
+package org.hobbit.odin.local;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+import org.apache.jena.rdf.model.ResourceFactory;
+import org.apache.log4j.Logger;
+import org.hobbit.odin.odinevaluationmodule.BindingMatcher;
+import org.hobbit.odin.odinevaluationmodule.ResultValue;
+import org.junit.Test;
+
+public class BindingMatcherTest {
+    protected static final Logger logger = Logger.getLogger(BindingMatcherTest.class.getName());
+
+    private Random random = new Random(42);
+
+    private ResultValue createValue() {
+        switch (random.nextInt(10)) {
+        case 0:
+            return new ResultValue(ResourceFactory.createResource());
+        case 1:
+            return new ResultValue(ResourceFactory.createPlainLiteral("0"));
+        case 2:
+        case 3:
+            return new ResultValue(ResourceFactory.createResource("http://www.myOntology.com#" + random.nextInt(5)));
+        case 4:
+            return new ResultValue(ResourceFactory.createPlainLiteral("value" + random.nextInt(5)));
+        default:
+            // doubles around the tolerance of ResultValue
+            double base = (random.nextBoolean() ? 1 : -1) * Math.pow(10, random.nextInt(7) - 3) * (1 + random.nextInt(3));
+            double factor = 1 + (random.nextDouble() * 2 - 1) * 0.00015;
+            return new ResultValue(ResourceFactory.createPlainLiteral(String.valueOf(base * factor)));
+        }
+    }
+
+    private HashMap<String, ResultValue> createBinding() {
+        HashMap<String, ResultValue> binding = new HashMap<String, ResultValue>();
+        int size = random.nextInt(3) + 1;
+        for (int i = 0; i < size; i++) {
+            if (random.nextInt(4) > 0)
+                binding.put("x" + i, createValue());
+        }
+        return binding;
+    }
+
+    @Test
+    public void test() {
+        logger.info("Testing Binding Matcher");
+
+        for (int task = 0; task < 50; task++) {
+            ArrayList<HashMap<String, ResultValue>> receivedAnswers = new ArrayList<HashMap<String, ResultValue>>();
+            ArrayList<HashMap<String, ResultValue>> expectedAnswers = new ArrayList<HashMap<String, ResultValue>>();
+            for (int i = 0; i < 200; i++) {
+                receivedAnswers.add(createBinding());
+                expectedAnswers.add(createBinding());
+            }
+
+            BindingMatcher matcher = new BindingMatcher(receivedAnswers);
+            for (HashMap<String, ResultValue> expectedBinding : expectedAnswers) {
+                // the matcher must agree with a nested loop
+                boolean found = false;
+                for (HashMap<String, ResultValue> receivedBinding : receivedAnswers) {
+                    if (expectedBinding.equals(receivedBinding)) {
+                        found = true;
+                        break;
+                    }
+                }
+                assertEquals(found, matcher.matches(expectedBinding));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,37 @@
+package org.hobbit.odin.local;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.hobbit.odin.odindatagenerator.DeadlineScheduler;
+import org.junit.Test;
+
+public class DeadlineSchedulerTest {
+    protected static final Logger logger = Logger.getLogger(DeadlineSchedulerTest.class.getName());
+
+    @Test
+    public void test() throws InterruptedException {
+        logger.info("Testing Deadline Scheduler");
+
+        DeadlineScheduler scheduler = new DeadlineScheduler();
+        long deadline = 0l;
+        scheduler.start();
+        for (int i = 0; i < 50; i++) {
+            deadline += TimeUnit.MILLISECONDS.toNanos(2);
+            // slow work before an event must not shift the following events
+            if (i % 10 == 0)
+                Thread.sleep(3);
+            scheduler.awaitDeadline(deadline);
+        }
+        long elapsed = System.nanoTime() - scheduler.getEpoch();
+        assertEquals(50, scheduler.getEvents());
+        // events are never sent before their deadline
+        for (int i = 0; i < scheduler.getEvents(); i++)
+            assertTrue(scheduler.getLateness(i) >= 0);
+        assertTrue(elapsed >= deadline);
+        scheduler.logStatistics("Deadline Scheduler Test");
+    }
+
+}
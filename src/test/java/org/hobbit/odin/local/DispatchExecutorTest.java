@@ -0,0 +1,41 @@
+package org.hobbit.odin.local;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+import org.hobbit.odin.odindatagenerator.DispatchExecutor;
+import org.junit.Test;
+
+public class DispatchExecutorTest {
+    protected static final Logger logger = Logger.getLogger(DispatchExecutorTest.class.getName());
+
+    @Test
+    public void test() throws InterruptedException {
+        logger.info("Testing Dispatch Executor");
+
+        DispatchExecutor executor = new DispatchExecutor(2, 4, 3);
+        AtomicInteger sent = new AtomicInteger();
+        for (int i = 0; i < 200; i++) {
+            final int query = i;
+            executor.execute(() -> {
+                if (query == 100)
+                    throw new RuntimeException();
+                sent.incrementAndGet();
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+        assertEquals(199, sent.get());
+        assertEquals(200, executor.getSubmitted());
+        assertEquals(199, executor.getCompleted());
+        assertEquals(1, executor.getFailed());
+        // the queue never holds more queries than its capacity
+        assertTrue(executor.getMaxQueueDepth() <= 4);
+        executor.logStatistics("Dispatch Executor Test");
+    }
+
+}
@@ -0,0 +1,77 @@
+package org.hobbit.odin.local;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.log4j.Logger;
+import org.hobbit.odin.odindatagenerator.EncodedTriples;
+import org.hobbit.odin.odindatagenerator.TermDictionary;
+import org.junit.Test;
+
+public class EncodedTriplesTest {
+    protected static final Logger logger = Logger.getLogger(EncodedTriplesTest.class.getName());
+
+    @Test
+    public void testDictionary() {
+        logger.info("Testing Term Dictionary");
+
+        TermDictionary dictionary = new TermDictionary();
+        Node iri = NodeFactory.createURI("http://www.myOntology.com#Object6");
+        Node literal = NodeFactory.createLiteral("d6ec4e0b");
+        assertEquals(0, dictionary.encode(iri));
+        assertEquals(1, dictionary.encode(literal));
+        assertEquals(0, dictionary.encode(NodeFactory.createURI("http://www.myOntology.com#Object6")));
+        assertEquals(2, dictionary.size());
+        assertEquals(literal, dictionary.decode(1));
+        // equal terms share the instance of the dictionary
+        assertTrue(dictionary.intern(NodeFactory.createURI("http://www.myOntology.com#Object6")) == iri);
+    }
+
+    @Test
+    public void testTriples() {
+        logger.info("Testing Encoded Triples");
+
+        TermDictionary dictionary = new TermDictionary();
+        EncodedTriples triples = new EncodedTriples(dictionary);
+        for (int i = 0; i < 3000; i++) {
+            Triple triple = new Triple(NodeFactory.createURI("http://www.myOntology.com#Event" + (i % 100)),
+                    NodeFactory.createURI("http://www.myOntology.com#Property" + (i % 7)),
+                    NodeFactory.createURI("http://www.myOntology.com#Object" + (i % 300)));
+            triples.add(triple);
+        }
+        // as many triples as distinct combinations, in order of insertion
+        assertEquals(2100, triples.size());
+        assertEquals(100 + 7 + 300, dictionary.size());
+        assertFalse(triples.add(triples.getTriple(5)));
+        assertEquals("http://www.myOntology.com#Event5", triples.getTriple(5).getSubject().getURI());
+
+        // the same triples as a Jena Model
+        String directory = System.getProperty("user.dir") + "/src/test/resources/data/debug_data/insertQuery/clean/";
+        EncodedTriples file = new EncodedTriples(dictionary);
+        Model model = ModelFactory.createDefaultModel();
+        for (File f : new File(directory).listFiles()) {
+            file.read(f.getAbsolutePath());
+            model.read(f.getAbsolutePath());
+        }
+        assertEquals(model.size(), file.size());
+        for (Triple triple : file)
+            assertTrue(model.getGraph().contains(triple));
+
+        // written triples are read back as the same model
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        file.write(out);
+        Model written = ModelFactory.createDefaultModel();
+        written.read(new StringReader(new String(out.toByteArray(), StandardCharsets.UTF_8)), null, "TTL");
+        assertTrue(written.isIsomorphicWith(model));
+    }
+
+}
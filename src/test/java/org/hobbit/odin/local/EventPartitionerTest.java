@@ -0,0 +1,48 @@
+package org.hobbit.odin.local;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.hobbit.odin.odindatagenerator.EventPartitioner;
+import org.junit.Test;
+
+public class EventPartitionerTest {
+
+    private Model read(String fileName) {
+        Model model = ModelFactory.createDefaultModel();
+        model.read(fileName, "ttl");
+        return model;
+    }
+
+    @Test
+    public void testRerun() throws Exception {
+        String directory = System.getProperty("user.dir") + "/src/test/resources/data/debug_data/";
+        String output = directory + "partitions/";
+        FileUtils.deleteDirectory(new File(output));
+        new File(output).mkdirs();
+        String fileName = output + "1.ttl";
+        Model first = read(directory + "insertQuery/clean/1.ttl");
+        Model second = read(directory + "insertQuery/clean/2.ttl");
+
+        // the buckets of a run are appended to the file
+        EventPartitioner partitioner = new EventPartitioner(1l);
+        partitioner.add(fileName, first);
+        partitioner.add(fileName, second);
+        assertEquals(2, partitioner.getFlushCounter());
+        Model union = ModelFactory.createDefaultModel().add(first).add(second);
+        assertTrue(read(fileName).isIsomorphicWith(union));
+
+        // a new run replaces the file
+        partitioner = new EventPartitioner();
+        partitioner.add(fileName, first);
+        partitioner.flush();
+        assertTrue(read(fileName).isIsomorphicWith(first));
+
+        FileUtils.deleteDirectory(new File(output));
+    }
+
+}
@@ -0,0 +1,61 @@
+package org.hobbit.odin.local;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.apache.log4j.Logger;
+import org.hobbit.odin.odindatagenerator.InsertPayloadCache;
+import org.hobbit.odin.odindatagenerator.InsertQueryInfo;
+import org.junit.Test;
+
+public class InsertPayloadCacheTest {
+    protected static final Logger logger = Logger.getLogger(InsertPayloadCacheTest.class.getName());
+
+    private ArrayList<InsertQueryInfo> createQueries() {
+        String directory = System.getProperty("user.dir")
+                + "/src/test/resources/data/debug_data/selectQuery2/insertQueries/";
+        ArrayList<InsertQueryInfo> queries = new ArrayList<InsertQueryInfo>();
+        for (int i = 0; i < 30; i++) {
+            InsertQueryInfo query = new InsertQueryInfo((long) i, (long) i * 100);
+            query.setInsertFile(directory + "insertQuery" + (i % 3 + 1) + ".sparql");
+            queries.add(query);
+        }
+        return queries;
+    }
+
+    @Test
+    public void test() {
+        logger.info("Testing Insert Payload Cache");
+
+        for (long budget : new long[] { 0l, 3000l, 100000l }) {
+            ArrayList<InsertQueryInfo> queries = createQueries();
+            InsertPayloadCache cache = new InsertPayloadCache(budget, 4);
+            cache.preload(queries);
+            assertTrue(cache.getPreloadedBytes() <= budget);
+            assertEquals(queries.size(), cache.getPreloadedQueries() + cache.getLazyQueries());
+
+            // payloads must be identical to reading the queries on send
+            for (InsertQueryInfo query : queries)
+                assertTrue(Arrays.equals(query.getUpdateRequestPayload(), cache.getPayload(query)));
+            // sent payloads are released
+            assertEquals(0, cache.getRetainedQueries());
+            cache.close();
+        }
+    }
+
+    @Test
+    public void testOutOfOrder() {
+        ArrayList<InsertQueryInfo> queries = createQueries();
+        InsertPayloadCache cache = new InsertPayloadCache(0l, 4);
+        cache.preload(queries);
+        // queries sent before the prefetcher reaches them are not prefetched
+        // afterwards
+        for (int i = queries.size() - 1; i >= 0; i--)
+            assertTrue(Arrays.equals(queries.get(i).getUpdateRequestPayload(), cache.getPayload(queries.get(i))));
+        assertEquals(0, cache.getRetainedQueries());
+        cache.close();
+    }
+
+}
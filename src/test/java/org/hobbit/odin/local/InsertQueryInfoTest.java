@@ -56,4 +56,30 @@ public class InsertQueryInfoTest {
         assertTrue(filesCounter == 2);
     }
 
+    @Test
+    public void testInsertData() throws Exception {
+        logger.info("Testing Insert Data Writer");
+
+        String directory = System.getProperty("user.dir") + "/src/test/resources/data/debug_data/insertQuery/";
+        File[] listOfFiles = (new File(directory + "/clean/")).listFiles();
+        ArrayList<String> files = new ArrayList<String>();
+        for (File file : listOfFiles)
+            files.add(file.getAbsolutePath());
+
+        InsertQueryInfo insertQueryInfo = new InsertQueryInfo(1l, 100l);
+        insertQueryInfo.createInsertQuery(files, directory, 3, "http://www.virtuoso-graph.com/");
+
+        // the query is a single INSERT DATA of all triples into the graph
+        UpdateRequest request = UpdateFactory.create(insertQueryInfo.getUpdateRequestAsString());
+        List<Update> updates = request.getOperations();
+        assertEquals(1, updates.size());
+        assertTrue(updates.get(0) instanceof UpdateDataInsert);
+        List<Quad> quads = ((UpdateData) updates.get(0)).getQuads();
+        assertEquals(insertQueryInfo.getModelSize(), quads.size());
+        for (Quad quad : quads)
+            assertEquals("http://www.virtuoso-graph.com/", quad.getGraph().getURI());
+
+        FileUtils.deleteDirectory(new File(directory + "insertQueries/"));
+    }
+
 }
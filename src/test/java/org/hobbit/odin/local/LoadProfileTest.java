@@ -0,0 +1,46 @@
+package org.hobbit.odin.local;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+
+import org.hobbit.odin.odindatagenerator.LoadProfile;
+import org.junit.Test;
+
+public class LoadProfileTest {
+
+    @Test
+    public void test() throws IOException {
+        assertEquals(LoadProfile.STEP, LoadProfile.getLoadProfile("STEP"));
+        for (LoadProfile profile : LoadProfile.values()) {
+            // the first stream keeps the original delays
+            assertEquals(1000l, profile.getDelay(1000l, 1, 3.0, 2));
+        }
+
+        for (int streamID = 1; streamID <= 10; streamID++) {
+            // the default profile is the original schedule of the benchmark
+            assertEquals((long) (1000l / Math.pow(2, (streamID - 1))), LoadProfile.EXPONENTIAL.getDelay(1000l,
+                    streamID, LoadProfile.DEFAULT_FACTOR, LoadProfile.DEFAULT_PERIOD));
+            assertEquals(1000l, LoadProfile.CONSTANT.getDelay(1000l, streamID, 3.0, 2));
+        }
+
+        assertEquals(250l, LoadProfile.LINEAR.getDelay(1000l, 4, 2.0, 2));
+        assertEquals(100l, LoadProfile.LINEAR.getDelay(1000l, 4, 4.0, 2));
+
+        assertEquals(1000l, LoadProfile.STEP.getDelay(1000l, 2, 2.0, 2));
+        assertEquals(500l, LoadProfile.STEP.getDelay(1000l, 3, 2.0, 2));
+        assertEquals(500l, LoadProfile.STEP.getDelay(1000l, 4, 2.0, 2));
+        assertEquals(250l, LoadProfile.STEP.getDelay(1000l, 5, 2.0, 2));
+
+        assertEquals(1000l, LoadProfile.BURST.getDelay(1000l, 3, 10.0, 4));
+        assertEquals(100l, LoadProfile.BURST.getDelay(1000l, 4, 10.0, 4));
+        assertEquals(1000l, LoadProfile.BURST.getDelay(1000l, 5, 10.0, 4));
+        assertEquals(100l, LoadProfile.BURST.getDelay(1000l, 8, 10.0, 4));
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnknownProfile() throws IOException {
+        LoadProfile.getLoadProfile("RANDOM");
+    }
+
+}
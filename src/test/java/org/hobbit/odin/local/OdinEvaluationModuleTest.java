@@ -496,4 +496,66 @@ public class OdinEvaluationModuleTest {
         }
     }
 
+
+    private Model evaluate(int threads) throws Exception {
+        envVariablesEvaluationModule.set(Constants.HOBBIT_SESSION_ID_KEY, "Test6");
+        envVariablesEvaluationModule.set(Constants.HOBBIT_EXPERIMENT_URI_KEY, Constants.EXPERIMENT_URI_NS + "123");
+
+        envVariablesEvaluationModule.set(OdinConstants.EVALUATION_AVERAGE_TASK_DELAY,
+                "http://w3id.org/bench#averageTaskDelay");
+        envVariablesEvaluationModule.set(OdinConstants.EVALUATION_MICRO_AVERAGE_RECALL,
+                "http://w3id.org/bench#microAverageRecall");
+        envVariablesEvaluationModule.set(OdinConstants.EVALUATION_MICRO_AVERAGE_PRECISION,
+                "http://w3id.org/bench#microAveragePrecision");
+        envVariablesEvaluationModule.set(OdinConstants.EVALUATION_MICRO_AVERAGE_FMEASURE,
+                "http://w3id.org/bench#microAverageFmeasure");
+
+        envVariablesEvaluationModule.set(OdinConstants.EVALUATION_MACRO_AVERAGE_RECALL,
+                "http://w3id.org/bench#macroAverageRecall");
+        envVariablesEvaluationModule.set(OdinConstants.EVALUATION_MACRO_AVERAGE_PRECISION,
+                "http://w3id.org/bench#macroAveragePrecision");
+        envVariablesEvaluationModule.set(OdinConstants.EVALUATION_MACRO_AVERAGE_FMEASURE,
+                "http://w3id.org/bench#macroAverageFmeasure");
+
+        envVariablesEvaluationModule.set(OdinConstants.EVALUATION_MAX_TPS, "http://w3id.org/bench#maxTPS");
+        envVariablesEvaluationModule.set(OdinConstants.EVALUATION_AVERAGE_TPS, "http://w3id.org/bench#averageTPS");
+
+        envVariablesEvaluationModule.set(OdinConstants.EVALUATION_TASKS_EVALUATION_RECALL,
+                "http://w3id.org/bench#tasksRecall");
+        envVariablesEvaluationModule.set(OdinConstants.EVALUATION_TASKS_EVALUATION_TPS,
+                "http://w3id.org/bench#tasksTPS");
+        envVariablesEvaluationModule.set(OdinConstants.EVALUATION_TASKS_EVALUATION_DELAY,
+                "http://w3id.org/bench#tasksAnswerDelay");
+        envVariablesEvaluationModule.set(OdinConstants.EVALUATION_TASKS_EVALUATION_PRECISION,
+                "http://w3id.org/bench#tasksPrecision");
+        envVariablesEvaluationModule.set(OdinConstants.EVALUATION_TASKS_EVALUATION_FMEASURE,
+                "http://w3id.org/bench#tasksFmeasure");
+        envVariablesEvaluationModule.set(OdinConstants.EVALUATION_THREADS, String.valueOf(threads));
+
+        OdinEvaluationModule module = new OdinEvaluationModule();
+        module.internalInit();
+        assertTrue(module.getEvaluationThreads() == threads);
+
+        String folder = System.getProperty("user.dir") + "/src/test/resources/data/debug_data/evaluationModule/";
+        for (int task = 0; task < 200; task++) {
+            byte[][] expectedAnswers = new byte[4][];
+            expectedAnswers[0] = RabbitMQUtils.writeString(String.valueOf(100 + task * 7));
+            expectedAnswers[1] = RabbitMQUtils.writeString(String.valueOf(task * 13));
+            expectedAnswers[2] = RabbitMQUtils.writeString(String.valueOf(task * 13 + 700 + task % 11));
+            expectedAnswers[3] = Files.readAllBytes(Paths.get(folder + "referenceSet" + (task % 4 + 1) + ".sparql"));
+            byte[] dataReceived = Files.readAllBytes(Paths.get(folder + "receivedSet" + (task % 5 + 1) + ".sparql"));
+            // several tasks share the same time stamp
+            module.evaluateResponse(RabbitMQUtils.writeByteArrays(expectedAnswers), dataReceived, 1000 + task / 3,
+                    1500 + task * 17);
+        }
+        return module.summarizeEvaluation();
+    }
+
+    @Test
+    public void testParallelEvaluation() throws Exception {
+        Model sequential = evaluate(1);
+        Model parallel = evaluate(4);
+        assertTrue(sequential.isIsomorphicWith(parallel));
+    }
+
 }
@@ -9,6 +9,7 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.TreeSet;
 
@@ -17,7 +18,13 @@ import org.apache.jena.query.Query;
 import org.apache.jena.query.QueryFactory;
 import org.apache.jena.query.ResultSet;
 import org.apache.jena.query.ResultSetFactory;
+import org.apache.jena.query.ResultSetFormatter;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.hobbit.odin.odindatagenerator.ExpectedAnswerEngine;
+import org.hobbit.odin.odindatagenerator.ExpectedAnswerMode;
 import org.hobbit.odin.odindatagenerator.ReferenceSet;
+import org.hobbit.odin.odindatagenerator.ReferenceStoreType;
 import org.junit.Test;
 
 public class ReferenceSetTest {
@@ -151,4 +158,164 @@ public class ReferenceSetTest {
 
     }
 
+    @Test
+    public void testBatchedLoading() throws IOException {
+        String directory = System.getProperty("user.dir") + "/src/test/resources/data/debug_data/referenceSet/";
+        String directoryFiles = directory + "data/";
+        String selectQuery = QueryFactory.read(directory + "selectQuery.sparql").serialize();
+
+        File[] listOfFiles = (new File(directoryFiles)).listFiles();
+        TreeSet<String> allFiles = new TreeSet<String>();
+        for (File file : listOfFiles) {
+            allFiles.add(directoryFiles + file.getName());
+        }
+
+        // one transaction per file
+        FileUtils.deleteDirectory(new File(directory + "expectedResults/"));
+        FileUtils.deleteDirectory(new File(directory + "TDB/"));
+        Files.createDirectories(Paths.get(directory + "TDB/"));
+        ReferenceSet single = new ReferenceSet(directory + "TDB/");
+        for (String filePath : allFiles) {
+            ArrayList<String> files = new ArrayList<String>();
+            files.add(filePath);
+            single.updateTDB(files, "http://www.virtuoso-graph.com/");
+        }
+        int expected = ResultSetFormatter.consume(ResultSetFactory.fromJSON(
+                Files.newInputStream(Paths.get(single.queryTDB(selectQuery, directory, 1)))));
+
+        // one transaction for all files, committed by the query
+        FileUtils.deleteDirectory(new File(directory + "TDB_batched/"));
+        Files.createDirectories(Paths.get(directory + "TDB_batched/"));
+        ReferenceSet batched = new ReferenceSet(directory + "TDB_batched/");
+        for (String filePath : allFiles) {
+            ArrayList<String> files = new ArrayList<String>();
+            files.add(filePath);
+            batched.loadTDB(files, "http://www.virtuoso-graph.com/");
+        }
+        assertEquals(0, batched.getCommits());
+        int received = ResultSetFormatter.consume(ResultSetFactory.fromJSON(
+                Files.newInputStream(Paths.get(batched.queryTDB(selectQuery, directory, 2)))));
+        assertEquals(1, batched.getCommits());
+        assertEquals(single.getLoadedTriples(), batched.getLoadedTriples());
+        assertTrue(batched.getLoadedTriples() > 0);
+        assertEquals(expected, received);
+        batched.logStatistics();
+        FileUtils.deleteDirectory(new File(directory + "TDB_batched/"));
+    }
+
+    @Test
+    public void testMemoryStore() throws IOException {
+        String directory = System.getProperty("user.dir") + "/src/test/resources/data/debug_data/referenceSet/";
+        String directoryFiles = directory + "data/";
+        String selectQuery = QueryFactory.read(directory + "selectQuery.sparql").serialize();
+
+        File[] listOfFiles = (new File(directoryFiles)).listFiles();
+        ArrayList<String> allFiles = new ArrayList<String>();
+        for (File file : listOfFiles) {
+            allFiles.add(directoryFiles + file.getName());
+        }
+
+        FileUtils.deleteDirectory(new File(directory + "expectedResults/"));
+        FileUtils.deleteDirectory(new File(directory + "TDB/"));
+        Files.createDirectories(Paths.get(directory + "TDB/"));
+        ReferenceSet tdb = new ReferenceSet(directory + "TDB/", ReferenceStoreType.TDB);
+        tdb.updateTDB(allFiles, "http://www.virtuoso-graph.com/");
+        int expected = ResultSetFormatter.consume(
+                ResultSetFactory.fromJSON(Files.newInputStream(Paths.get(tdb.queryTDB(selectQuery, directory, 1)))));
+
+        // the in-memory store must not create the TDB directory
+        ReferenceSet memory = new ReferenceSet(directory + "TDB_memory/", ReferenceStoreType.MEMORY);
+        memory.updateTDB(allFiles, "http://www.virtuoso-graph.com/");
+        int received = ResultSetFormatter.consume(ResultSetFactory
+                .fromJSON(Files.newInputStream(Paths.get(memory.queryTDB(selectQuery, directory, 2)))));
+        assertFalse(new File(directory + "TDB_memory/").exists());
+        assertEquals(tdb.getLoadedTriples(), memory.getLoadedTriples());
+        assertEquals(expected, received);
+    }
+
+    @Test
+    public void testExpectedAnswerEngine() throws IOException {
+        String directory = System.getProperty("user.dir") + "/src/test/resources/data/debug_data/referenceSet/";
+        String graph = "http://www.virtuoso-graph.com/";
+        String prefix = "<http://www.myOntology.com#";
+
+        // literals that a Jena TDB does not return as written
+        Path literals = Files.createTempFile("literals", ".ttl");
+        Files.write(literals, (prefix + "e> " + prefix + "value> \"01\"^^<http://www.w3.org/2001/XMLSchema#integer> .\n"
+                + prefix + "e> " + prefix + "value> \"2.50\"^^<http://www.w3.org/2001/XMLSchema#decimal> .\n"
+                + prefix + "e> " + prefix + "value> \"2016-01-01T00:00:00.000Z\"^^"
+                + "<http://www.w3.org/2001/XMLSchema#dateTime> .\n" + prefix + "e> " + prefix
+                + "value> \"label\" .\n").getBytes(StandardCharsets.UTF_8));
+        ArrayList<String> files = new ArrayList<String>();
+        for (File file : (new File(directory + "data/")).listFiles())
+            files.add(directory + "data/" + file.getName());
+        files.add(literals.toString());
+
+        // a UNION of basic graph patterns with one variable each
+        String union = "SELECT * FROM <" + graph + "> WHERE { { ?x0 a " + prefix + "isEvent> . ?x0 " + prefix
+                + "Property24> " + prefix + "Subject82> } UNION { " + prefix + "a> ?x1 " + prefix
+                + "Subject84> } UNION { " + prefix + "e> " + prefix + "value> ?x2 } UNION { " + prefix
+                + "b> ?x3 " + prefix + "Subject856> . " + prefix + "b> ?x3 " + prefix + "Subject82> } }";
+        // several variables in one basic graph pattern
+        String other = QueryFactory.read(directory + "selectQuery.sparql").serialize();
+
+        for (ReferenceStoreType storeType : ReferenceStoreType.values()) {
+            FileUtils.deleteDirectory(new File(directory + "expectedResults/"));
+            FileUtils.deleteDirectory(new File(directory + "TDB/"));
+            Files.createDirectories(Paths.get(directory + "TDB/"));
+            // fails if the answers of the engine and the store differ
+            ReferenceSet rset = new ReferenceSet(directory + "TDB/", storeType, ExpectedAnswerMode.CROSS_CHECK);
+            rset.loadTDB(files, graph);
+            int received = ResultSetFormatter.consume(ResultSetFactory
+                    .fromJSON(Files.newInputStream(Paths.get(rset.queryTDB(union, directory, 1)))));
+            assertEquals(3 + 1 + 4, received);
+            ResultSetFormatter.consume(ResultSetFactory
+                    .fromJSON(Files.newInputStream(Paths.get(rset.queryTDB(other, directory, 2)))));
+        }
+        Files.delete(literals);
+
+        ExpectedAnswerEngine engine = new ExpectedAnswerEngine(false);
+        engine.add(graph, Triple.create(NodeFactory.createURI("http://www.myOntology.com#a"),
+                NodeFactory.createURI("http://www.myOntology.com#Property24"),
+                NodeFactory.createURI("http://www.myOntology.com#Subject84")));
+        assertEquals(1, engine.answer(QueryFactory.create(union)).size());
+        assertNull(engine.answer(QueryFactory.create(other)));
+    }
+
+    @Test
+    public void testPipelinedQueries() throws IOException {
+        String directory = System.getProperty("user.dir") + "/src/test/resources/data/debug_data/referenceSet/";
+        String selectQuery = QueryFactory.read(directory + "selectQuery.sparql").serialize();
+        TreeSet<String> allFiles = new TreeSet<String>();
+        for (File file : (new File(directory + "data/")).listFiles())
+            allFiles.add(directory + "data/" + file.getName());
+
+        ArrayList<ArrayList<String>> answers = new ArrayList<ArrayList<String>>();
+        for (int threads : new int[] { 1, 4 }) {
+            String outputFolder = directory + "pipelined" + threads + "/";
+            FileUtils.deleteDirectory(new File(outputFolder));
+            Files.createDirectories(Paths.get(outputFolder + "TDB/"));
+            ReferenceSet rset = new ReferenceSet(outputFolder + "TDB/", ReferenceStoreType.TDB,
+                    ExpectedAnswerMode.TDB, threads);
+            ArrayList<String> resultFiles = new ArrayList<String>();
+            int streamID = 1;
+            // each query must only see the files loaded before it
+            for (String filePath : allFiles) {
+                ArrayList<String> files = new ArrayList<String>();
+                files.add(filePath);
+                rset.loadTDB(files, "http://www.virtuoso-graph.com/");
+                resultFiles.add(rset.submitQuery(selectQuery, outputFolder, streamID++));
+            }
+            rset.commit();
+            rset.awaitQueries();
+
+            ArrayList<String> contents = new ArrayList<String>();
+            for (String resultFile : resultFiles)
+                contents.add(new String(Files.readAllBytes(Paths.get(resultFile)), StandardCharsets.UTF_8));
+            answers.add(contents);
+            FileUtils.deleteDirectory(new File(outputFolder));
+        }
+        assertEquals(answers.get(0), answers.get(1));
+    }
+
 }
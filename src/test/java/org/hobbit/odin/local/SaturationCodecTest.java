@@ -0,0 +1,55 @@
+package org.hobbit.odin.local;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.TreeMap;
+
+import org.hobbit.core.rabbit.RabbitMQUtils;
+import org.hobbit.odin.util.SaturationCodec;
+import org.junit.Test;
+
+public class SaturationCodecTest {
+
+    @Test
+    public void testStamp() {
+        byte[] query = RabbitMQUtils.writeString("INSERT DATA {}");
+        byte[] payload = RabbitMQUtils
+                .writeByteArrays(new byte[][] { query, new byte[SaturationCodec.STAMP_SIZE] });
+        // a reserved stamp that was not written is ignored
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        assertEquals("INSERT DATA {}", RabbitMQUtils.readString(buffer));
+        assertNull(SaturationCodec.readStamp(buffer));
+
+        // the stamp is written in place and follows the query
+        SaturationCodec.writeStamp(payload, 7, 1234l);
+        buffer = ByteBuffer.wrap(payload);
+        assertEquals("INSERT DATA {}", RabbitMQUtils.readString(buffer));
+        assertArrayEquals(new long[] { 7l, 1234l }, SaturationCodec.readStamp(buffer));
+
+        buffer = ByteBuffer.wrap(RabbitMQUtils.writeByteArrays(new byte[][] { query }));
+        RabbitMQUtils.readString(buffer);
+        assertNull(SaturationCodec.readStamp(buffer));
+    }
+
+    @Test
+    public void testMessages() {
+        HashMap<Integer, long[]> acknowledgements = new HashMap<Integer, long[]>();
+        acknowledgements.put(1, new long[] { 3l, 2000l });
+        acknowledgements.put(2, new long[] { 5l, -700l });
+        byte[] feedback = SaturationCodec.createFeedback(7l, 1234l, acknowledgements);
+        assertArrayEquals(new long[] { 7l, 1234l, 3l, 2000l }, SaturationCodec.readFeedback(feedback, 1));
+        assertArrayEquals(new long[] { 7l, 1234l, 5l, -700l }, SaturationCodec.readFeedback(feedback, 2));
+        assertArrayEquals(new long[] { 7l, 1234l, 0l, 0l }, SaturationCodec.readFeedback(feedback, 3));
+
+        TreeMap<Long, Double> rates = new TreeMap<Long, Double>();
+        assertEquals(rates, SaturationCodec.readRates(SaturationCodec.createRates(rates)));
+        rates.put(2l, 1500.0);
+        rates.put(5l, 250.5);
+        assertEquals(rates, SaturationCodec.readRates(SaturationCodec.createRates(rates)));
+    }
+
+}
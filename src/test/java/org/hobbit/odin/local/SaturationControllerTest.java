@@ -0,0 +1,95 @@
+package org.hobbit.odin.local;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.hobbit.odin.odindatagenerator.SaturationController;
+import org.hobbit.odin.util.SaturationCodec;
+import org.junit.Test;
+
+public class SaturationControllerTest {
+
+    @Test
+    public void test() {
+        SaturationController controller = new SaturationController(1000l, 0.5, 0.5);
+        controller.start(0l);
+        assertEquals(1.0, controller.getSpeedup(), 0.0);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1000l), controller.getDelayNanos(1000l));
+
+        // healthy windows increase the speedup additively
+        controller.recordSent(1000l);
+        assertTrue(controller.onFeedback(0l, 1l, 400l, 1000l));
+        assertEquals(1.5, controller.getSpeedup(), 0.0);
+        assertEquals(1000.0, controller.getCeiling(), 0.0);
+        controller.recordSent(3000l);
+        assertTrue(controller.onFeedback(1l, 1l, 600l, 2000l));
+        assertEquals(2.0, controller.getSpeedup(), 0.0);
+        assertEquals(3000.0, controller.getCeiling(), 0.0);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500l), controller.getDelayNanos(1000l));
+
+        // the target latency shrinks with the delay of the SELECT queries
+        controller.recordSent(5000l);
+        assertFalse(controller.onFeedback(2l, 1l, 600l, 3000l));
+        assertEquals(1.0, controller.getSpeedup(), 0.0);
+        // the rate of unhealthy windows is not a ceiling
+        assertEquals(3000.0, controller.getCeiling(), 0.0);
+
+        // a system that acknowledges nothing while queries are in flight is
+        // saturated
+        controller.recordSent(10l);
+        assertFalse(controller.onFeedback(3l, 0l, 0l, 4000l));
+        assertEquals(0.5, controller.getSpeedup(), 0.0);
+        assertFalse(controller.onFeedback(4l, 1l, 4000l, 5000l));
+        assertEquals(0.25, controller.getSpeedup(), 0.0);
+        // an idle system does not change the speedup
+        assertTrue(controller.onFeedback(5l, 0l, 0l, 6000l));
+        assertEquals(0.25, controller.getSpeedup(), 0.0);
+        assertEquals(2, controller.getHealthyWindows());
+        assertEquals(3, controller.getUnhealthyWindows());
+        // only the rates of healthy windows are kept, by window
+        assertEquals(2, controller.getRates().size());
+        assertEquals(1000.0, controller.getRates().get(0l), 0.0);
+        assertEquals(3000.0, controller.getRates().get(1l), 0.0);
+
+        // the speedup never drops below its minimum
+        controller.recordSent(1l);
+        for (int i = 0; i < 20; i++)
+            controller.onFeedback(6l + i, 0l, 0l, 7000l + i);
+        assertEquals(SaturationController.MIN_SPEEDUP, controller.getSpeedup(), 0.0);
+    }
+
+    @Test
+    public void testFeedback() {
+        // the clock of the System Adapter is 1000000 ms ahead: two queries
+        // sent at 100 and 200 are acknowledged at 300 and 500, and the
+        // feedback is sent at 600 and received at 650
+        HashMap<Integer, long[]> acknowledgements = new HashMap<Integer, long[]>();
+        acknowledgements.put(7, new long[] { 2l, (1000300l - 100l) + (1000500l - 200l) });
+        byte[] feedback = SaturationCodec.createFeedback(3l, 1000600l, acknowledgements);
+
+        // the latency is the mean of 200 and 300 plus 50 for the feedback
+        SaturationController within = new SaturationController(300l);
+        within.start(0l);
+        within.recordSent(500l);
+        within.recordSent(500l);
+        assertTrue(within.onFeedback(feedback, 7, 650l));
+        assertEquals(1000.0 / 0.65, within.getRates().get(3l), 0.001);
+        SaturationController beyond = new SaturationController(299l);
+        beyond.start(0l);
+        beyond.recordSent(500l);
+        beyond.recordSent(500l);
+        assertFalse(beyond.onFeedback(feedback, 7, 650l));
+
+        // the queries of other Data Generators are not acknowledged
+        SaturationController other = new SaturationController(1000l);
+        other.start(0l);
+        other.recordSent(500l);
+        assertFalse(other.onFeedback(feedback, 8, 650l));
+        assertFalse(other.getRates().containsKey(3l));
+    }
+
+}
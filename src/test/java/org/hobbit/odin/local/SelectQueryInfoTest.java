@@ -1,13 +1,44 @@
 package org.hobbit.odin.local;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.StmtIterator;
+import org.apache.jena.sparql.algebra.Algebra;
+import org.apache.jena.sparql.algebra.Op;
+import org.apache.jena.sparql.algebra.op.OpBGP;
+import org.apache.jena.sparql.algebra.op.OpUnion;
+import org.apache.jena.sparql.core.BasicPattern;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.QueryIterator;
+import org.hobbit.core.rabbit.RabbitMQUtils;
+import org.hobbit.odin.odindatagenerator.EncodedTriples;
 import org.hobbit.odin.odindatagenerator.InsertQueryInfo;
+import org.hobbit.odin.odindatagenerator.ModelPersister;
 import org.hobbit.odin.odindatagenerator.SelectQueryInfo;
+import org.hobbit.odin.odindatagenerator.TermDictionary;
+import org.hobbit.odin.odindatagenerator.UnionShape;
 import org.junit.Test;
 
 public class SelectQueryInfoTest {
@@ -54,5 +85,240 @@ public class SelectQueryInfoTest {
 
     }
 
-    
+    @Test
+    public void testLegacySelection() throws Exception {
+        String directory = System.getProperty("user.dir") + "/src/test/resources/data/debug_data/";
+        String output = directory + "selectQuery4/";
+        FileUtils.deleteDirectory(new File(output));
+        new File(output).mkdirs();
+        // the golden files were created by the Select Query class before its
+        // coverage was kept in bit sets, from the first i model files of each
+        // row, and are named after the first element of the row and i
+        String[][] models = new String[][] {
+                { "selectQuery", "selectQuery/insertQueries/model1.ttl", "selectQuery/insertQueries/model2.ttl" },
+                { "selectQuery2", "selectQuery2/insertQueries/model1.ttl", "selectQuery2/insertQueries/model2.ttl",
+                        "selectQuery2/insertQueries/model3.ttl" },
+                { "clean", "insertQuery/clean/1.ttl", "insertQuery/clean/2.ttl" },
+                { "referenceSet", "referenceSet/data/test1.ttl", "referenceSet/data/test2.ttl",
+                        "referenceSet/data/test3.ttl" } };
+        for (String[] files : models) {
+            for (int i = 1; i < files.length; i++) {
+                ArrayList<InsertQueryInfo> insertQueries = new ArrayList<InsertQueryInfo>();
+                for (int j = 1; j <= i; j++) {
+                    InsertQueryInfo insertQuery = new InsertQueryInfo((long) j, (long) j);
+                    insertQuery.setModelFile(directory + files[j]);
+                    insertQueries.add(insertQuery);
+                }
+                SelectQueryInfo selectQuery = new SelectQueryInfo(0l, null);
+                selectQuery.createSelectQuery(insertQueries, output, i, "http://www.virtuoso-graph.com/");
+
+                SelectQueryInfo golden = new SelectQueryInfo(0l,
+                        directory + "selectQueryGolden/" + files[0] + "_" + i + ".sparql");
+                assertEquals(golden.getSelectQueryAsString(), selectQuery.getSelectQueryAsString());
+            }
+        }
+
+        FileUtils.deleteDirectory(new File(output));
+    }
+
+    @Test
+    public void testInMemoryHandoff() throws Exception {
+        String directory = System.getProperty("user.dir") + "/src/test/resources/data/debug_data/";
+        String output = directory + "selectQuery3/";
+        FileUtils.deleteDirectory(new File(output));
+        new File(output).mkdirs();
+        File[] listOfFiles = new File(directory + "insertQuery/clean/").listFiles();
+
+        // triples handed over in memory, no model files
+        TermDictionary dictionary = new TermDictionary();
+        ArrayList<InsertQueryInfo> inMemory = new ArrayList<InsertQueryInfo>();
+        // model files written in the background and read back
+        ModelPersister persister = new ModelPersister(true);
+        ArrayList<InsertQueryInfo> persisted = new ArrayList<InsertQueryInfo>();
+        int counter = 1;
+        for (File file : listOfFiles) {
+            ArrayList<String> files = new ArrayList<String>();
+            files.add(file.getAbsolutePath());
+            InsertQueryInfo insert = new InsertQueryInfo(counter, counter);
+            insert.createInsertQuery(files, output, counter, "http://www.virtuoso-graph.com/", dictionary, null);
+            assertNull(insert.getModelFile());
+            inMemory.add(insert);
+
+            insert = new InsertQueryInfo(counter, counter);
+            insert.createInsertQuery(files, output, counter + listOfFiles.length, "http://www.virtuoso-graph.com/",
+                    new TermDictionary(), persister);
+            insert.setTriples(null);
+            persisted.add(insert);
+            counter++;
+        }
+        persister.await();
+
+        SelectQueryInfo fromMemory = new SelectQueryInfo(0l, null);
+        fromMemory.createSelectQuery(inMemory, output, 1, "http://www.virtuoso-graph.com/", dictionary);
+        SelectQueryInfo fromFiles = new SelectQueryInfo(0l, null);
+        fromFiles.createSelectQuery(persisted, output, 2, "http://www.virtuoso-graph.com/", new TermDictionary());
+        assertEquals(fromFiles.getSelectQueryAsString(), fromMemory.getSelectQueryAsString());
+
+        FileUtils.deleteDirectory(new File(output));
+    }
+
+    private int depth(Op op) {
+        if (op instanceof OpUnion)
+            return 1 + Math.max(depth(((OpUnion) op).getLeft()), depth(((OpUnion) op).getRight()));
+        return 0;
+    }
+
+    private List<String> answers(Op op, Model model) {
+        ArrayList<String> answers = new ArrayList<String>();
+        QueryIterator it = Algebra.exec(op, model.getGraph());
+        while (it.hasNext())
+            answers.add(it.next().toString());
+        it.close();
+        Collections.sort(answers);
+        return answers;
+    }
+
+    @Test
+    public void testUnionShape() throws Exception {
+        Model model = ModelFactory.createDefaultModel();
+        model.read(System.getProperty("user.dir") + "/src/test/resources/data/debug_data/insertQuery/clean/1.ttl");
+
+        // one basic graph pattern per predicate of the model
+        ArrayList<Op> ops = new ArrayList<Op>();
+        Set<Node> predicates = new HashSet<Node>();
+        StmtIterator it = model.listStatements();
+        while (it.hasNext()) {
+            Triple triple = it.next().asTriple();
+            if (!predicates.add(triple.getPredicate()))
+                continue;
+            BasicPattern pattern = new BasicPattern();
+            pattern.add(Triple.create(Var.alloc("x" + ops.size()), triple.getPredicate(), triple.getObject()));
+            ops.add(new OpBGP(pattern));
+        }
+        assertTrue(ops.size() > 2);
+
+        Op leftDeep = UnionShape.LEFT_DEEP.union(ops);
+        Op balanced = UnionShape.BALANCED.union(ops);
+        assertEquals(ops.size() - 1, depth(leftDeep));
+        assertEquals(32 - Integer.numberOfLeadingZeros(ops.size() - 1), depth(balanced));
+        assertEquals(answers(leftDeep, model), answers(balanced, model));
+        assertNull(UnionShape.BALANCED.union(new ArrayList<Op>()));
+    }
+
+    private EncodedTriples stream() {
+        EncodedTriples triples = new EncodedTriples(new TermDictionary());
+        for (int i = 0; i < 3000; i++) {
+            triples.add(new Triple(NodeFactory.createURI("http://www.myOntology.com#Event" + (i % 100)),
+                    NodeFactory.createURI("http://www.myOntology.com#Property" + (i % 7)),
+                    NodeFactory.createURI("http://www.myOntology.com#Object" + (i % 300))));
+        }
+        return triples;
+    }
+
+    private int patterns(LinkedHashMap<Node, HashSet<Triple>> triples) {
+        int size = 0;
+        for (HashSet<Triple> patterns : triples.values())
+            size += patterns.size();
+        return size;
+    }
+
+    @Test
+    public void testSampledSelection() throws Exception {
+        EncodedTriples triples = stream();
+        assertEquals(2100, triples.size());
+
+        // without a sample, half of the requested patterns are covered
+        SelectQueryInfo all = new SelectQueryInfo(0l, null);
+        all.selectTriplePatterns(triples);
+        assertTrue(all.getTriplesCovered().size() >= 2100 / 2);
+        SelectQueryInfo requested = new SelectQueryInfo(0l, null);
+        requested.setMaxRequestedPatterns(100);
+        requested.selectTriplePatterns(triples);
+        assertTrue(requested.getTriplesCovered().size() >= 100 / 2);
+        assertTrue(requested.getTriplesCovered().size() < 2100 / 2);
+
+        // the same seed gives the same sample and query
+        SelectQueryInfo first = new SelectQueryInfo(0l, null);
+        first.setSampleSize(500);
+        first.setSampleSeed(7l);
+        LinkedHashMap<Node, HashSet<Triple>> firstPatterns = first.selectTriplePatterns(triples);
+        SelectQueryInfo second = new SelectQueryInfo(0l, null);
+        second.setSampleSize(500);
+        second.setSampleSeed(7l);
+        LinkedHashMap<Node, HashSet<Triple>> secondPatterns = second.selectTriplePatterns(triples);
+        assertEquals(firstPatterns, secondPatterns);
+        assertEquals(first.getTriplesCovered(), second.getTriplesCovered());
+        // the triples of the sample are covered
+        assertTrue(first.getTriplesCovered().size() >= 500 / 2);
+        assertTrue(((TreeSet<Integer>) first.getTriplesCovered()).last() <= 500);
+        // the sample does not depend on the order of the triples
+        EncodedTriples reversed = new EncodedTriples(new TermDictionary());
+        for (int index = triples.size() - 1; index >= 0; index--)
+            reversed.add(triples.getTriple(index));
+        SelectQueryInfo third = new SelectQueryInfo(0l, null);
+        third.setSampleSize(500);
+        third.setSampleSeed(7l);
+        assertEquals(firstPatterns, third.selectTriplePatterns(reversed));
+        assertEquals(first.getTriplesCovered(), third.getTriplesCovered());
+
+        // the number of triple patterns is bounded
+        SelectQueryInfo bounded = new SelectQueryInfo(0l, null);
+        bounded.setSampleSize(500);
+        bounded.setSampleSeed(7l);
+        bounded.setMaxPatterns(2);
+        LinkedHashMap<Node, HashSet<Triple>> boundedPatterns = bounded.selectTriplePatterns(triples);
+        assertEquals(2, bounded.getPatternCounter());
+        assertEquals(2, patterns(boundedPatterns));
+
+        // the number of answers is bounded
+        SelectQueryInfo targeted = new SelectQueryInfo(0l, null);
+        targeted.setSampleSize(500);
+        targeted.setSampleSeed(7l);
+        targeted.setTargetCardinality(20l);
+        LinkedHashMap<Node, HashSet<Triple>> targetedPatterns = targeted.selectTriplePatterns(triples);
+        assertTrue(targeted.getEstimatedCardinality() > 0);
+        assertTrue(targeted.getEstimatedCardinality() <= 20);
+        assertEquals(targeted.getPatternCounter(), patterns(targetedPatterns));
+        assertEquals(targetedPatterns.size(), targeted.getVariableCounter());
+    }
+
+    @Test
+    public void testTaskPayload() throws Exception {
+        String directory = System.getProperty("user.dir") + "/src/test/resources/data/debug_data/taskGenerator/";
+        SelectQueryInfo selectQuery = new SelectQueryInfo(0l, directory + "selectQuery.sparql");
+        selectQuery.setAnswersFile(directory + "referenceSet.sparql");
+        byte[] fromFiles = selectQuery.getTaskPayload(760l, 1000l);
+
+        assertFalse(selectQuery.isPayloadPrepared());
+        selectQuery.preparePayload();
+        assertTrue(selectQuery.isPayloadPrepared());
+        // the prepared payload does not read the files again
+        selectQuery.setSelectQueryFile(directory + "missing.sparql");
+        selectQuery.setAnswersFile(directory + "missing.sparql");
+        byte[] prepared = selectQuery.getTaskPayload(760l, 1000l);
+        assertArrayEquals(fromFiles, prepared);
+
+        ByteBuffer buffer = ByteBuffer.wrap(prepared);
+        assertTrue(RabbitMQUtils.readString(buffer).indexOf("SELECT") != -1);
+        assertEquals("760", RabbitMQUtils.readString(buffer));
+        assertEquals("1000", RabbitMQUtils.readString(buffer));
+        assertArrayEquals(Files.readAllBytes(Paths.get(directory + "referenceSet.sparql")),
+                RabbitMQUtils.readByteArray(buffer));
+
+        // each call returns its own task
+        byte[] other = selectQuery.getTaskPayload(10l, 2000l);
+        assertFalse(other == prepared);
+        buffer = ByteBuffer.wrap(other);
+        assertTrue(RabbitMQUtils.readString(buffer).indexOf("SELECT") != -1);
+        assertEquals("10", RabbitMQUtils.readString(buffer));
+        assertEquals("2000", RabbitMQUtils.readString(buffer));
+        assertArrayEquals(Files.readAllBytes(Paths.get(directory + "referenceSet.sparql")),
+                RabbitMQUtils.readByteArray(buffer));
+        // the earlier task is not changed
+        buffer = ByteBuffer.wrap(prepared);
+        RabbitMQUtils.readString(buffer);
+        assertEquals("760", RabbitMQUtils.readString(buffer));
+        assertEquals("1000", RabbitMQUtils.readString(buffer));
+    }
+
 }
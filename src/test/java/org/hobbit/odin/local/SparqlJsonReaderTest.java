@@ -0,0 +1,100 @@
+package org.hobbit.odin.local;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Objects;
+
+import org.apache.jena.query.QuerySolution;
+import org.apache.jena.query.ResultSet;
+import org.apache.jena.query.ResultSetFactory;
+import org.apache.log4j.Logger;
+import org.hobbit.odin.odinevaluationmodule.ResultTable;
+import org.hobbit.odin.odinevaluationmodule.ResultValue;
+import org.hobbit.odin.odinevaluationmodule.SparqlJsonReader;
+import org.junit.Test;
+
+public class SparqlJsonReaderTest {
+    protected static final Logger logger = Logger.getLogger(SparqlJsonReaderTest.class.getName());
+
+    private ArrayList<HashMap<String, ResultValue>> readWithJena(byte[] data) {
+        ArrayList<HashMap<String, ResultValue>> answers = new ArrayList<HashMap<String, ResultValue>>();
+        ResultSet results = ResultSetFactory.fromJSON(new ByteArrayInputStream(data));
+        while (results.hasNext()) {
+            QuerySolution solution = results.next();
+            HashMap<String, ResultValue> binding = new HashMap<String, ResultValue>();
+            for (String variable : results.getResultVars()) {
+                if (solution.contains(variable) == true)
+                    binding.put(variable, new ResultValue(solution.get(variable)));
+            }
+            answers.add(binding);
+        }
+        return answers;
+    }
+
+    private void assertSameBindings(byte[] data) throws IOException {
+        ArrayList<HashMap<String, ResultValue>> expected = readWithJena(data);
+        ResultTable table = SparqlJsonReader.read(data);
+        assertEquals(expected.size(), table.size());
+        for (int row = 0; row < table.size(); row++) {
+            HashMap<String, ResultValue> binding = table.getBinding(row);
+            assertEquals(expected.get(row).keySet(), binding.keySet());
+            for (String variable : binding.keySet())
+                assertTrue(Objects.equals(expected.get(row).get(variable).getValue(), binding.get(variable).getValue()));
+        }
+    }
+
+    @Test
+    public void testResultSets() throws IOException {
+        logger.info("Testing SPARQL JSON Reader");
+        File directory = new File(
+                System.getProperty("user.dir") + "/src/test/resources/data/debug_data/evaluationModule/");
+        for (File file : directory.listFiles())
+            assertSameBindings(Files.readAllBytes(file.toPath()));
+    }
+
+    @Test
+    public void testValues() throws IOException {
+        String json = "{ \"results\": { \"bindings\": [ "
+                + "{ \"x\": { \"value\": \"http://www.myOntology.com#a\\u00e9\", \"type\": \"uri\" }, "
+                + "\"y\": { \"type\": \"literal\", \"value\": \"\\\"caf\u00e9\\\"\\n\", \"xml:lang\": \"fr\" }, "
+                + "\"z\": { \"type\": \"bnode\", \"value\": \"b0\" } }, "
+                + "{ \"y\": { \"type\": \"typed-literal\", \"datatype\": \"http://www.w3.org/2001/XMLSchema#double\", \"value\": \"1.5E2\" }, "
+                + "\"w\": { \"type\": \"literal\", \"value\": \"ignored\" } }, "
+                + "{ } ] }, "
+                + "\"head\": { \"link\": [], \"vars\": [ \"x\", \"y\", \"z\" ] } }";
+        byte[] data = json.getBytes(StandardCharsets.UTF_8);
+        assertSameBindings(data);
+
+        ResultTable table = SparqlJsonReader.read(data);
+        assertEquals(3, table.size());
+        assertEquals("http://www.myOntology.com#a\u00e9", table.getBinding(0).get("x").getValue());
+        assertEquals("\"caf\u00e9\"\n", table.getBinding(0).get("y").getValue());
+        assertNull(table.getBinding(0).get("z").getValue());
+        assertEquals(150.0d, table.getBinding(1).get("y").getValue());
+        assertFalse(table.getBinding(1).containsKey("w"));
+        assertTrue(table.getBinding(2).isEmpty());
+    }
+
+    @Test
+    public void testInvalid() {
+        String[] inputs = new String[] { "", "{ \"head\": { \"vars\": [] } }",
+                "{ \"head\": { \"vars\": [] }, \"results\": { \"bindings\": [ { \"x\": { \"type\": \"uri\" } } ] } }",
+                "{ \"head\": { \"vars\": [] }, \"results\": { \"bindings\": [ ", "no json" };
+        for (String input : inputs) {
+            try {
+                SparqlJsonReader.read(input.getBytes(StandardCharsets.UTF_8));
+                fail("Read an invalid result set: " + input);
+            } catch (IOException e) {
+                // expected
+            }
+        }
+    }
+
+}
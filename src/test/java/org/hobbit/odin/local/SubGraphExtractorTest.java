@@ -0,0 +1,48 @@
+package org.hobbit.odin.local;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.List;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.ResourceFactory;
+import org.apache.jena.vocabulary.RDF;
+import org.apache.log4j.Logger;
+import org.hobbit.odin.odindatagenerator.DataProcessor;
+import org.hobbit.odin.odindatagenerator.SubGraphExtractor;
+import org.junit.Test;
+
+public class SubGraphExtractorTest {
+    protected static final Logger logger = Logger.getLogger(SubGraphExtractorTest.class.getName());
+
+    @Test
+    public void test() {
+        logger.info("Testing Sub-Graph Extractor");
+
+        String directory = System.getProperty("user.dir") + "/src/test/resources/data/debug_data/insertQuery/clean/";
+        Model model = ModelFactory.createDefaultModel();
+        for (File file : new File(directory).listFiles())
+            model.read(file.getAbsolutePath(), "ttl");
+
+        List<Resource> events = model
+                .listSubjectsWithProperty(RDF.type, ResourceFactory.createResource("http://www.myOntology.com#isEvent"))
+                .toList();
+        assertTrue(events.size() != 0);
+
+        DataProcessor processor = new DataProcessor(directory, "TWIG", 0);
+        SubGraphExtractor extractor = new SubGraphExtractor(model);
+        for (Resource event : events) {
+            // the indexed closures must be identical to the recursive ones
+            Model outlinks = processor.getOutLinks(event, ModelFactory.createDefaultModel(), model);
+            assertTrue(outlinks.isIsomorphicWith(extractor.getOutLinks(event)));
+
+            Model inlinks = processor.getInLinks((RDFNode) event, ModelFactory.createDefaultModel(), model);
+            assertTrue(inlinks.isIsomorphicWith(extractor.getInLinks(event)));
+        }
+    }
+
+}
@@ -0,0 +1,55 @@
+package org.hobbit.odin.local;
+
+import static org.junit.Assert.*;
+
+import java.time.format.DateTimeParseException;
+
+import org.hobbit.odin.util.TimeStampCodec;
+import org.junit.Test;
+
+public class TimeStampCodecTest {
+
+    @Test
+    public void testMicros() {
+        TimeStampCodec codec = TimeStampCodec.getCodec();
+        // microseconds must be kept
+        long a = codec.toMicros("2016-08-01T10:06:05.000001");
+        long b = codec.toMicros("2016-08-01T10:06:05.123456");
+        assertEquals(123455l, b - a);
+        // cached values must be identical
+        assertEquals(b, codec.toMicros("2016-08-01T10:06:05.123456"));
+
+        assertEquals(1486128884000000l, codec.toMicros("2017-02-03T13:34:44Z"));
+        assertEquals(1486128884000000l, codec.toMicros("2017-02-03T15:34:44+02:00"));
+    }
+
+    @Test
+    public void testNormalize() {
+        TimeStampCodec codec = TimeStampCodec.getCodec();
+        assertEquals("2002-05-30T07:30:10.000000", codec.normalize("2002-05-30T09:30:10+02:00"));
+        assertEquals("2002-05-30T07:30:10.500001", codec.normalize("2002-05-30T07:30:10.500001Z"));
+        assertEquals(codec.normalize("2002-05-30T07:30:10.5Z"), codec.normalize("2002-05-30T09:30:10.500+02:00"));
+        assertNull(codec.normalize("PT2M10S"));
+        // times with an offset are normalized as before
+        assertNotNull(codec.normalize("09:30:10Z"));
+        assertEquals(codec.normalize("09:30:10Z"), codec.normalize("11:30:10+02:00"));
+    }
+
+    @Test
+    public void testIsTemporal() {
+        assertTrue(TimeStampCodec.isTemporal("2002-05-30T09:30:10+02:00"));
+        assertTrue(TimeStampCodec.isTemporal("2002-05-30"));
+        assertTrue(TimeStampCodec.isTemporal("09:30:10Z"));
+        assertTrue(TimeStampCodec.isTemporal("--05-30"));
+        assertFalse(TimeStampCodec.isTemporal("PT2M10S"));
+        assertFalse(TimeStampCodec.isTemporal("2002-05-30 is a date"));
+        assertFalse(TimeStampCodec.isTemporal("http://www.example.com/"));
+        assertFalse(TimeStampCodec.isTemporal(""));
+    }
+
+    @Test(expected = DateTimeParseException.class)
+    public void testTrailingText() {
+        TimeStampCodec.getCodec().toMicros("2017-01-01T00:00:00Zgarbage");
+    }
+
+}